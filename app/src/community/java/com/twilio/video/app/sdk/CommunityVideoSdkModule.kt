@@ -7,8 +7,12 @@ import com.twilio.video.app.ApplicationScope
 import com.twilio.video.app.data.AuthServiceModule
 import com.twilio.video.app.data.DataModule
 import com.twilio.video.app.data.api.TokenService
+import com.twilio.video.app.util.Ticker
 import dagger.Module
 import dagger.Provides
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 
 @Module(includes = [
     ApplicationModule::class,
@@ -16,13 +20,18 @@ import dagger.Provides
     AuthServiceModule::class])
 class CommunityVideoSdkModule {
 
+    @Provides
+    @ApplicationScope
+    fun providesBandwidthEstimator(): BandwidthEstimator = BandwidthEstimator()
+
     @Provides
     fun providesConnectOptionsFactory(
         application: Application,
         sharedPreferences: SharedPreferences,
-        tokenService: TokenService
+        tokenService: TokenService,
+        bandwidthEstimator: BandwidthEstimator
     ): ConnectOptionsFactory =
-            ConnectOptionsFactory(application, sharedPreferences, tokenService)
+            ConnectOptionsFactory(application, sharedPreferences, tokenService, bandwidthEstimator)
 
     @Provides
     fun providesRoomFactory(
@@ -31,12 +40,20 @@ class CommunityVideoSdkModule {
     ): VideoClient =
             VideoClient(application, connectOptionsFactory)
 
+    @Provides
+    @ApplicationScope
+    fun providesTicker(): Ticker =
+            Ticker(CoroutineScope(SupervisorJob() + Dispatchers.Default))
+
     @Provides
     @ApplicationScope
     fun providesRoomManager(
         application: Application,
         videoClient: VideoClient,
-        sharedPreferences: SharedPreferences
+        sharedPreferences: SharedPreferences,
+        ticker: Ticker,
+        bandwidthEstimator: BandwidthEstimator
     ): RoomManager =
-            RoomManager(application, videoClient, sharedPreferences)
+            RoomManager(application, videoClient, sharedPreferences, ticker = ticker,
+                    bandwidthEstimator = bandwidthEstimator)
 }
@@ -17,205 +17,303 @@
 package com.twilio.video.app.adapter
 
 import android.content.Context
-import android.os.Handler
-import android.os.Looper
+import android.content.res.Resources
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.recyclerview.widget.RecyclerView
-import com.twilio.video.RemoteAudioTrack
-import com.twilio.video.RemoteParticipant
-import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.R
 import com.twilio.video.app.databinding.StatsViewBinding
 import com.twilio.video.app.model.StatsListItem
+import com.twilio.video.app.model.StatsListItem.ALL_FIELDS
+import com.twilio.video.app.model.StatsListItem.FIELD_AUDIO_LEVEL
+import com.twilio.video.app.model.StatsListItem.FIELD_BYTES
+import com.twilio.video.app.model.StatsListItem.FIELD_CAPTURE
+import com.twilio.video.app.model.StatsListItem.FIELD_DESCRIPTION
+import com.twilio.video.app.model.StatsListItem.FIELD_DIMENSIONS
+import com.twilio.video.app.model.StatsListItem.FIELD_FRAMERATE
+import com.twilio.video.app.model.StatsListItem.FIELD_JITTER
+import com.twilio.video.app.model.StatsListItem.FIELD_PACKETS_LOST
+import com.twilio.video.app.model.StatsListItem.FIELD_RTT
+import com.twilio.video.app.sdk.CaptureState
+import com.twilio.video.app.sdk.CaptureStepReason
+import com.twilio.video.app.sdk.RemoteTrackIndex
 import com.twilio.video.app.sdk.RoomStats
 
-class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<StatsListAdapter.ViewHolder>() {
+/*
+ * Marks a partial rebind. The fields to rebind are taken from the changed fields of the row itself.
+ */
+private val PAYLOAD_CHANGED_FIELDS = Any()
+
+/*
+ * Stats rows keyed by track sid. Rows are recycled StatsListItem instances updated in place from
+ * every StatsReport, so a steady-state update with the same tracks allocates nothing and only the
+ * rows with changed values are rebound, and only for those values. Rows of tracks that disappear
+ * are pooled for the tracks that appear later, and their stable id and cached name are dropped.
+ */
+class StatsListAdapter(context: Context) : RecyclerView.Adapter<StatsListAdapter.ViewHolder>() {
+
+    private class RemoteTrackName(val identity: String, val trackCount: Int, val name: String)
 
-    private val statsListItems = ArrayList<StatsListItem>()
-    private val handler: Handler = Handler(Looper.getMainLooper())
+    private var rows = ArrayList<StatsListItem>()
+    private var nextRows = ArrayList<StatsListItem>()
+    private val rowsBySid = HashMap<String?, StatsListItem>()
+    private val rowPool = ArrayList<StatsListItem>()
+    private val stableIds = HashMap<String?, Long>()
+    private var nextStableId = 0L
+    private val remoteTrackNames = HashMap<String, RemoteTrackName>()
+    private val localAudioTrackLabel = context.getString(R.string.local_audio_track)
+    private val localVideoTrackLabel = context.getString(R.string.local_video_track)
+    private val audioTrackLabel = context.getString(R.string.audio_track)
+    private val videoTrackLabel = context.getString(R.string.video_track)
+    private val bytesSentTitle = context.getString(R.string.stats_bytes_sent)
+    private val bytesReceivedTitle = context.getString(R.string.stats_bytes_received)
+    private val resources: Resources = context.resources
+    private var captureState: CaptureState? = null
+    private var captureText: String? = null
+
+    init {
+        setHasStableIds(true)
+    }
 
     class ViewHolder(internal val binding: StatsViewBinding) : RecyclerView.ViewHolder(binding.root)
 
+    override fun getItemCount() = rows.size
+
+    override fun getItemId(position: Int): Long =
+            stableIds.getOrPut(rows[position].trackSid) { nextStableId++ }
+
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ViewHolder {
         val layoutInflater = LayoutInflater.from(parent.context)
         val binding = StatsViewBinding.inflate(layoutInflater, parent, false)
         return ViewHolder(binding)
     }
 
+    override fun onBindViewHolder(holder: ViewHolder, position: Int, payloads: List<Any>) {
+        val item = rows[position]
+        val changedFields = item.takeChangedFields()
+        if (payloads.isEmpty() || changedFields and FIELD_DESCRIPTION != 0) {
+            bindRow(holder.binding, item)
+        } else {
+            bindValues(holder.binding, item, changedFields)
+        }
+    }
+
     override fun onBindViewHolder(holder: ViewHolder, position: Int) {
-        val item = statsListItems[position]
-        val binding = holder.binding
+        val item = rows[position]
+        item.takeChangedFields()
+        bindRow(holder.binding, item)
+    }
+
+    private fun bindRow(binding: StatsViewBinding, item: StatsListItem) {
         binding.trackName.text = item.trackName
         binding.trackSid.text = item.trackSid
         binding.codec.text = item.codec
-        binding.packetsLost.text = item.packetsLost.toString()
-        binding.bytes.text = item.bytes.toString()
         if (item.isLocalTrack) {
-            binding.bytesTitle.text = context.getString(R.string.stats_bytes_sent)
-            binding.rtt.text = item.rtt.toString()
+            binding.bytesTitle.text = bytesSentTitle
             binding.rttRow.visibility = View.VISIBLE
         } else {
             binding.rttRow.visibility = View.GONE
-            binding.bytesTitle.text = context.getString(R.string.stats_bytes_received)
+            binding.bytesTitle.text = bytesReceivedTitle
         }
         if (item.isAudioTrack) {
-            binding.jitter.text = item.jitter.toString()
-            binding.audioLevel.text = item.audioLevel.toString()
             binding.dimensionsRow.visibility = View.GONE
             binding.framerateRow.visibility = View.GONE
             binding.jitterRow.visibility = View.VISIBLE
             binding.audioLevelRow.visibility = View.VISIBLE
         } else {
-            binding.dimensions.text = item.dimensions
-            binding.framerate.text = item.framerate.toString()
             binding.dimensionsRow.visibility = View.VISIBLE
             binding.framerateRow.visibility = View.VISIBLE
             binding.jitterRow.visibility = View.GONE
             binding.audioLevelRow.visibility = View.GONE
         }
+        binding.captureRow.visibility = if (item.capture != null) View.VISIBLE else View.GONE
+        bindValues(binding, item, ALL_FIELDS)
     }
 
-    override fun getItemCount(): Int {
-        return statsListItems.size
+    private fun bindValues(binding: StatsViewBinding, item: StatsListItem, changedFields: Int) {
+        if (changedFields and FIELD_PACKETS_LOST != 0) {
+            binding.packetsLost.text = item.packetsLost.toString()
+        }
+        if (changedFields and FIELD_BYTES != 0) binding.bytes.text = item.bytes.toString()
+        if (item.isLocalTrack && changedFields and FIELD_RTT != 0) {
+            binding.rtt.text = item.rtt.toString()
+        }
+        if (item.isAudioTrack) {
+            if (changedFields and FIELD_JITTER != 0) binding.jitter.text = item.jitter.toString()
+            if (changedFields and FIELD_AUDIO_LEVEL != 0) {
+                binding.audioLevel.text = item.audioLevel.toString()
+            }
+        } else {
+            if (changedFields and FIELD_DIMENSIONS != 0) binding.dimensions.text = item.dimensions
+            if (changedFields and FIELD_FRAMERATE != 0) {
+                binding.framerate.text = item.framerate.toString()
+            }
+            if (item.capture != null && changedFields and FIELD_CAPTURE != 0) {
+                binding.capture.text = item.capture
+            }
+        }
     }
 
+    /*
+     * Updates the rows in place. The stats lists are walked by index so no iterators are
+     * allocated. If the same tracks are reported in the same order only the rows with changed
+     * fields are notified, otherwise the rows of tracks that are gone are pooled, the state kept
+     * per track sid is evicted and the whole list is rebound.
+     */
     fun updateStatsData(roomStats: RoomStats?) {
-        /*
-         * Generate new items on a separate list to ensure statsListItems changes are only
-         * performed on the UI thread to meet the threading requirement of RecyclerView.Adapter.
-         */
-        val statsItemList = mutableListOf<StatsListItem>()
-
-        // Generate stats items list from reports
+        val nextRows = nextRows
+        nextRows.clear()
         var localTracksAdded = false
-        roomStats?.statsReports?.let { statsReports ->
-            for (report in statsReports) {
+        val statsReports = roomStats?.statsReports
+        if (statsReports != null) {
+            for (reportIndex in 0 until statsReports.size) {
+                val report = statsReports[reportIndex]
                 if (!localTracksAdded) {
-                    // go trough local tracks
-                    for (localAudioTrackStats in report.localAudioTrackStats) {
-                        val item = StatsListItem.Builder()
-                                .baseTrackInfo(localAudioTrackStats)
-                                .bytes(localAudioTrackStats.bytesSent)
-                                .rtt(localAudioTrackStats.roundTripTime)
-                                .jitter(localAudioTrackStats.jitter)
-                                .audioLevel(localAudioTrackStats.audioLevel)
-                                .trackName(context.getString(R.string.local_audio_track))
-                                .isAudioTrack(true)
-                                .isLocalTrack(true)
-                                .build()
-                        statsItemList.add(item)
+                    val localAudioTrackStats = report.localAudioTrackStats
+                    for (i in 0 until localAudioTrackStats.size) {
+                        val trackStats = localAudioTrackStats[i]
+                        val item = obtainRow(trackStats.trackSid)
+                        item.setDescription(localAudioTrackLabel, trackStats.codec, true, true)
+                        item.setPacketsLost(trackStats.packetsLost)
+                        item.setBytes(trackStats.bytesSent)
+                        item.setRtt(trackStats.roundTripTime)
+                        item.setJitter(trackStats.jitter)
+                        item.setAudioLevel(trackStats.audioLevel)
+                        nextRows.add(item)
                     }
-                    for (localVideoTrackStats in report.localVideoTrackStats) {
-                        var localVideoTrackName = roomStats.localVideoTrackNames[localVideoTrackStats.trackSid]
-                        if (localVideoTrackName == null) {
-                            localVideoTrackName = context.getString(R.string.local_video_track)
-                        }
-                        val item = StatsListItem.Builder()
-                                .baseTrackInfo(localVideoTrackStats)
-                                .bytes(localVideoTrackStats.bytesSent)
-                                .rtt(localVideoTrackStats.roundTripTime)
-                                .dimensions(localVideoTrackStats.dimensions.toString())
-                                .framerate(localVideoTrackStats.frameRate)
-                                .trackName(localVideoTrackName)
-                                .isAudioTrack(false)
-                                .isLocalTrack(true)
-                                .build()
-                        statsItemList.add(item)
+                    val localVideoTrackStats = report.localVideoTrackStats
+                    for (i in 0 until localVideoTrackStats.size) {
+                        val trackStats = localVideoTrackStats[i]
+                        val trackName = roomStats.localVideoTrackNames[trackStats.trackSid]
+                                ?: localVideoTrackLabel
+                        val item = obtainRow(trackStats.trackSid)
+                        item.setDescription(trackName, trackStats.codec, true, false)
+                        item.setPacketsLost(trackStats.packetsLost)
+                        item.setBytes(trackStats.bytesSent)
+                        item.setRtt(trackStats.roundTripTime)
+                        item.setDimensions(trackStats.dimensions.width,
+                                trackStats.dimensions.height)
+                        item.setFramerate(trackStats.frameRate)
+                        item.setCapture(roomStats.captureState?.takeIf {
+                            it.trackSid == trackStats.trackSid
+                        }?.let { captureText(it) })
+                        nextRows.add(item)
                     }
                     localTracksAdded = true
                 }
-                var trackCount = 0
-                for (remoteAudioTrackStats in report.remoteAudioTrackStats) {
-                    val trackName = (getParticipantName(remoteAudioTrackStats.trackSid, true, roomStats.remoteParticipants) +
-                            " " +
-                            context.getString(R.string.audio_track) +
-                            " " +
-                            trackCount)
-                    val item = StatsListItem.Builder()
-                            .baseTrackInfo(remoteAudioTrackStats)
-                            .bytes(remoteAudioTrackStats.bytesReceived)
-                            .jitter(remoteAudioTrackStats.jitter)
-                            .audioLevel(remoteAudioTrackStats.audioLevel)
-                            .trackName(trackName)
-                            .isAudioTrack(true)
-                            .isLocalTrack(false)
-                            .build()
-                    statsItemList.add(item)
-                    trackCount++
+                val remoteAudioTrackStats = report.remoteAudioTrackStats
+                for (i in 0 until remoteAudioTrackStats.size) {
+                    val trackStats = remoteAudioTrackStats[i]
+                    val trackName = remoteTrackName(roomStats.remoteTrackIndex,
+                            trackStats.trackSid, audioTrackLabel, i)
+                    val item = obtainRow(trackStats.trackSid)
+                    item.setDescription(trackName, trackStats.codec, false, true)
+                    item.setPacketsLost(trackStats.packetsLost)
+                    item.setBytes(trackStats.bytesReceived)
+                    item.setJitter(trackStats.jitter)
+                    item.setAudioLevel(trackStats.audioLevel)
+                    nextRows.add(item)
                 }
-                trackCount = 0
-                for (remoteVideoTrackStats in report.remoteVideoTrackStats) {
-                    val trackName = (getParticipantName(
-                            remoteVideoTrackStats.trackSid, false, roomStats.remoteParticipants) +
-                            " " +
-                            context.getString(R.string.video_track) +
-                            " " +
-                            trackCount)
-                    val item = StatsListItem.Builder()
-                            .baseTrackInfo(remoteVideoTrackStats)
-                            .bytes(remoteVideoTrackStats.bytesReceived)
-                            .dimensions(remoteVideoTrackStats.dimensions.toString())
-                            .framerate(remoteVideoTrackStats.frameRate)
-                            .trackName(trackName)
-                            .isAudioTrack(false)
-                            .isLocalTrack(false)
-                            .build()
-                    statsItemList.add(item)
-                    trackCount++
+                val remoteVideoTrackStats = report.remoteVideoTrackStats
+                for (i in 0 until remoteVideoTrackStats.size) {
+                    val trackStats = remoteVideoTrackStats[i]
+                    val trackName = remoteTrackName(roomStats.remoteTrackIndex,
+                            trackStats.trackSid, videoTrackLabel, i)
+                    val item = obtainRow(trackStats.trackSid)
+                    item.setDescription(trackName, trackStats.codec, false, false)
+                    item.setPacketsLost(trackStats.packetsLost)
+                    item.setBytes(trackStats.bytesReceived)
+                    item.setDimensions(trackStats.dimensions.width, trackStats.dimensions.height)
+                    item.setFramerate(trackStats.frameRate)
+                    nextRows.add(item)
                 }
             }
         }
 
-        handler.post {
-            statsListItems.clear()
-            statsListItems.addAll(statsItemList.toList())
+        if (hasSameRows(nextRows)) {
+            for (i in 0 until rows.size) {
+                if (rows[i].hasChangedFields()) notifyItemChanged(i, PAYLOAD_CHANGED_FIELDS)
+            }
+        } else {
+            for (i in 0 until rows.size) {
+                val item = rows[i]
+                if (!nextRows.contains(item)) {
+                    rowsBySid.remove(item.trackSid)
+                    stableIds.remove(item.trackSid)
+                    remoteTrackNames.remove(item.trackSid)
+                    rowPool.add(item)
+                }
+            }
+            this.nextRows = rows
+            rows = nextRows
             notifyDataSetChanged()
         }
     }
 
-    private fun getParticipantName(
-        trackSid: String,
-        isAudioTrack: Boolean,
-        remoteParticipants: List<RemoteParticipant>
-    ): String {
-        for (remoteParticipant in remoteParticipants) {
-            if (isAudioTrack) {
-                val remoteAudioTrack = getAudioTrack(remoteParticipant, trackSid)
-                if (remoteAudioTrack != null) {
-                    return remoteParticipant.identity
-                }
-            } else {
-                val remoteVideoTrack = getRemoteVideoTrack(remoteParticipant, trackSid)
-                if (remoteVideoTrack != null) {
-                    return remoteParticipant.identity
-                }
-            }
-        }
-        return ""
+    private fun obtainRow(trackSid: String?): StatsListItem {
+        rowsBySid[trackSid]?.let { return it }
+        val item = if (rowPool.isEmpty()) StatsListItem() else rowPool.removeAt(rowPool.size - 1)
+        item.reset(trackSid)
+        rowsBySid[trackSid] = item
+        return item
     }
 
-    private fun getAudioTrack(remoteParticipant: RemoteParticipant, trackSid: String): RemoteAudioTrack? {
-        for (remoteAudioTrackPublication in remoteParticipant.remoteAudioTracks) {
-            if (remoteAudioTrackPublication.trackSid == trackSid) {
-                return remoteAudioTrackPublication.remoteAudioTrack
-            }
+    private fun hasSameRows(nextRows: List<StatsListItem>): Boolean {
+        if (nextRows.size != rows.size) return false
+        for (i in 0 until rows.size) {
+            if (nextRows[i] !== rows[i]) return false
         }
-
-        return null
+        return true
     }
 
-    private fun getRemoteVideoTrack(
-        remoteParticipant: RemoteParticipant,
-        trackSid: String
-    ): RemoteVideoTrack? {
-        for (remoteVideoTrackPublication in remoteParticipant.remoteVideoTracks) {
-            if (remoteVideoTrackPublication.trackSid == trackSid) {
-                return remoteVideoTrackPublication.remoteVideoTrack
+    /*
+     * Describes the capture ladder rung of the camera track and the last step taken. The text is
+     * only rebuilt when the capture state changes.
+     */
+    private fun captureText(captureState: CaptureState): String? {
+        if (captureState == this.captureState) return captureText
+        val format = captureState.format.toString()
+        val rung = captureState.rung + 1
+        val captureText = captureState.lastStep?.let { step ->
+            val reason = resources.getString(when (step.reason) {
+                CaptureStepReason.PACKET_LOSS -> R.string.stats_capture_reason_packet_loss
+                CaptureStepReason.ROUND_TRIP_TIME -> R.string.stats_capture_reason_round_trip_time
+                CaptureStepReason.NETWORK_QUALITY -> R.string.stats_capture_reason_network_quality
+                CaptureStepReason.RECOVERED -> R.string.stats_capture_reason_recovered
+            })
+            val direction = if (step.reason == CaptureStepReason.RECOVERED) {
+                R.string.stats_capture_step_up
+            } else {
+                R.string.stats_capture_step_down
             }
-        }
+            resources.getString(R.string.stats_capture_format_with_step, format, rung,
+                    captureState.rungCount, resources.getString(direction, reason))
+        } ?: resources.getString(R.string.stats_capture_format, format, rung,
+                captureState.rungCount)
+        this.captureState = captureState
+        this.captureText = captureText
+        return captureText
+    }
 
-        return null
+    /*
+     * Returns the "<identity> <track label> <index>" name of a remote track. Names are cached per
+     * track sid and only rebuilt when the participant identity or index of the track changes.
+     */
+    private fun remoteTrackName(
+        remoteTrackIndex: RemoteTrackIndex,
+        trackSid: String,
+        trackLabel: String,
+        trackCount: Int
+    ): String {
+        val identity = remoteTrackIndex.identityOf(trackSid) ?: ""
+        val cachedName = remoteTrackNames[trackSid]
+        if (cachedName != null && cachedName.identity == identity &&
+                cachedName.trackCount == trackCount) {
+            return cachedName.name
+        }
+        val name = "$identity $trackLabel $trackCount"
+        remoteTrackNames[trackSid] = RemoteTrackName(identity, trackCount, name)
+        return name
     }
 }
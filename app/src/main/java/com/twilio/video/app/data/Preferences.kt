@@ -52,6 +52,8 @@ object Preferences {
     const val LOGOUT = "pref_logout"
     const val ENABLE_STATS = "pref_enable_stats"
     const val ENABLE_STATS_DEFAULT = true
+    const val RECORD_STATS = "pref_record_stats"
+    const val RECORD_STATS_DEFAULT = false
     const val ENABLE_INSIGHTS = "pref_enable_insights"
     const val ENABLE_NETWORK_QUALITY_LEVEL = "pref_enable_network_quality_level"
     const val ENABLE_NETWORK_QUALITY_LEVEL_DEFAULT = true
@@ -70,6 +72,10 @@ object Preferences {
     const val MAX_AUDIO_BITRATE_DEFAULT = 16
     const val MAX_VIDEO_BITRATE = "pref_max_video_bitrate"
     const val MAX_VIDEO_BITRATE_DEFAULT = 0
+    const val THUMBNAIL_MAX_FRAME_RATE = "pref_thumbnail_max_frame_rate"
+    const val THUMBNAIL_MAX_FRAME_RATE_DEFAULT = 15
+    const val THUMBNAIL_COMPOSITOR = "pref_thumbnail_compositor"
+    const val THUMBNAIL_COMPOSITOR_DEFAULT = false
     const val RECORD_PARTICIPANTS_ON_CONNECT = "pref_record_participants_on_connect"
     const val RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT = false
     const val BANDWIDTH_PROFILE_MODE = "pref_bandwidth_profile_mode"
@@ -88,6 +94,9 @@ object Preferences {
     const val BANDWIDTH_PROFILE_STANDARD_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT = SERVER_DEFAULT
     const val BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS = "pref_bandwidth_profile_high_track_priority_dimensions"
     const val BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT = SERVER_DEFAULT
+    const val BANDWIDTH_PROFILE_MEASURED_BANDWIDTH = "pref_bandwidth_profile_measured_bandwidth"
+    const val BANDWIDTH_PROFILE_LIMIT_TO_MEASURED_BANDWIDTH = "pref_bandwidth_profile_limit_to_measured_bandwidth"
+    const val BANDWIDTH_PROFILE_LIMIT_TO_MEASURED_BANDWIDTH_DEFAULT = false
     const val AUDIO_ACOUSTIC_ECHO_CANCELER = "pref_audio_acoustic_echo_canceler"
     const val AUDIO_ACOUSTIC_ECHO_CANCELER_DEFAULT = true
     const val AUDIO_ACOUSTIC_NOISE_SUPRESSOR = "pref_noise_supressor"
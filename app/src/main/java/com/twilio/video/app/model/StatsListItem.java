@@ -16,107 +16,202 @@
 
 package com.twilio.video.app.model;
 
-import com.twilio.video.BaseTrackStats;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
 
+/**
+ * Mutable stats row of a single track. Rows are recycled across stats updates and updated in
+ * place, so every setter only records a change when the value actually differs. The changed fields
+ * are accumulated as a bit set until the row is bound and taken with {@link #takeChangedFields()}.
+ */
 public class StatsListItem {
-    public final String trackSid;
-    public final String trackName;
-    public final String codec;
-    public final int packetsLost;
-    public final long bytes;
-    public final long rtt;
-    public final String dimensions;
-    public final int framerate;
-    public final int jitter;
-    public final int audioLevel;
-    public final boolean isLocalTrack;
-    public final boolean isAudioTrack;
-
-    private StatsListItem(Builder builder) {
-        this.trackSid = builder.trackSid;
-        this.trackName = builder.trackName;
-        this.codec = builder.codec;
-        this.packetsLost = builder.packetsLost;
-        this.bytes = builder.bytes;
-        this.rtt = builder.rtt;
-        this.dimensions = builder.dimensions;
-        this.framerate = builder.framerate;
-        this.jitter = builder.jitter;
-        this.audioLevel = builder.audioLevel;
-        this.isLocalTrack = builder.isLocalTrack;
-        this.isAudioTrack = builder.isAudioTrack;
-    }
-
-    public static class Builder {
-        private String trackSid;
-        private String trackName;
-        private String codec;
-        private int packetsLost;
-        private long bytes;
-        private long rtt;
-        private String dimensions;
-        private int framerate;
-        private int jitter;
-        private int audioLevel;
-        private boolean isLocalTrack;
-        private boolean isAudioTrack;
-
-        public Builder() {}
-
-        public Builder trackName(String trackName) {
+    public static final int FIELD_PACKETS_LOST = 1;
+    public static final int FIELD_BYTES = 1 << 1;
+    public static final int FIELD_RTT = 1 << 2;
+    public static final int FIELD_JITTER = 1 << 3;
+    public static final int FIELD_AUDIO_LEVEL = 1 << 4;
+    public static final int FIELD_DIMENSIONS = 1 << 5;
+    public static final int FIELD_FRAMERATE = 1 << 6;
+    public static final int FIELD_CAPTURE = 1 << 7;
+    /** The description of the track changed and the whole row has to be rebound. */
+    public static final int FIELD_DESCRIPTION = 1 << 8;
+
+    public static final int ALL_FIELDS = (FIELD_DESCRIPTION << 1) - 1;
+
+    private String trackSid;
+    private String trackName;
+    private String codec;
+    private int packetsLost;
+    private long bytes;
+    private long rtt;
+    private int width = -1;
+    private int height = -1;
+    private String dimensions;
+    private int framerate;
+    private int jitter;
+    private int audioLevel;
+    private boolean isLocalTrack;
+    private boolean isAudioTrack;
+    private String capture;
+    private int changedFields = ALL_FIELDS;
+
+    /** Prepares a new or recycled row for the track so that it is fully bound next time. */
+    public void reset(String trackSid) {
+        this.trackSid = trackSid;
+        trackName = null;
+        codec = null;
+        packetsLost = 0;
+        bytes = 0;
+        rtt = 0;
+        width = -1;
+        height = -1;
+        dimensions = null;
+        framerate = 0;
+        jitter = 0;
+        audioLevel = 0;
+        isLocalTrack = false;
+        isAudioTrack = false;
+        capture = null;
+        changedFields = ALL_FIELDS;
+    }
+
+    public void setDescription(
+            String trackName, String codec, boolean isLocalTrack, boolean isAudioTrack) {
+        if (!ObjectsCompat.equals(this.trackName, trackName)
+                || !ObjectsCompat.equals(this.codec, codec)
+                || this.isLocalTrack != isLocalTrack
+                || this.isAudioTrack != isAudioTrack) {
             this.trackName = trackName;
-            return this;
+            this.codec = codec;
+            this.isLocalTrack = isLocalTrack;
+            this.isAudioTrack = isAudioTrack;
+            changedFields |= FIELD_DESCRIPTION;
+        }
+    }
+
+    public void setPacketsLost(int packetsLost) {
+        if (this.packetsLost != packetsLost) {
+            this.packetsLost = packetsLost;
+            changedFields |= FIELD_PACKETS_LOST;
         }
+    }
 
-        public Builder bytes(long bytes) {
+    public void setBytes(long bytes) {
+        if (this.bytes != bytes) {
             this.bytes = bytes;
-            return this;
+            changedFields |= FIELD_BYTES;
         }
+    }
 
-        public Builder rtt(long rtt) {
+    public void setRtt(long rtt) {
+        if (this.rtt != rtt) {
             this.rtt = rtt;
-            return this;
+            changedFields |= FIELD_RTT;
         }
+    }
 
-        public Builder dimensions(String dimensions) {
-            this.dimensions = dimensions;
-            return this;
+    /** The "widthxheight" text is only rebuilt when the dimensions change. */
+    public void setDimensions(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            dimensions = width + "x" + height;
+            changedFields |= FIELD_DIMENSIONS;
         }
+    }
 
-        public Builder framerate(int framerate) {
+    public void setFramerate(int framerate) {
+        if (this.framerate != framerate) {
             this.framerate = framerate;
-            return this;
+            changedFields |= FIELD_FRAMERATE;
         }
+    }
 
-        public Builder jitter(int jitter) {
+    public void setJitter(int jitter) {
+        if (this.jitter != jitter) {
             this.jitter = jitter;
-            return this;
+            changedFields |= FIELD_JITTER;
         }
+    }
 
-        public Builder audioLevel(int audioLevel) {
+    public void setAudioLevel(int audioLevel) {
+        if (this.audioLevel != audioLevel) {
             this.audioLevel = audioLevel;
-            return this;
+            changedFields |= FIELD_AUDIO_LEVEL;
         }
+    }
 
-        public Builder isLocalTrack(boolean isLocalTrack) {
-            this.isLocalTrack = isLocalTrack;
-            return this;
+    /** Showing or hiding the capture row changes the layout of the row. */
+    public void setCapture(@Nullable String capture) {
+        if (!ObjectsCompat.equals(this.capture, capture)) {
+            changedFields |= (this.capture == null) != (capture == null)
+                    ? FIELD_DESCRIPTION
+                    : FIELD_CAPTURE;
+            this.capture = capture;
         }
+    }
 
-        public Builder isAudioTrack(boolean isAudioTrack) {
-            this.isAudioTrack = isAudioTrack;
-            return this;
-        }
+    public boolean hasChangedFields() {
+        return changedFields != 0;
+    }
 
-        public Builder baseTrackInfo(BaseTrackStats trackStats) {
-            this.codec = trackStats.codec;
-            this.packetsLost = trackStats.packetsLost;
-            this.trackSid = trackStats.trackSid;
-            return this;
-        }
+    /** Returns the fields changed since the row was last bound and clears them. */
+    public int takeChangedFields() {
+        int changedFields = this.changedFields;
+        this.changedFields = 0;
+        return changedFields;
+    }
 
-        public StatsListItem build() {
-            return new StatsListItem(this);
-        }
+    public String getTrackSid() {
+        return trackSid;
+    }
+
+    public String getTrackName() {
+        return trackName;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public int getPacketsLost() {
+        return packetsLost;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getRtt() {
+        return rtt;
+    }
+
+    public String getDimensions() {
+        return dimensions;
+    }
+
+    public int getFramerate() {
+        return framerate;
+    }
+
+    public int getJitter() {
+        return jitter;
+    }
+
+    public int getAudioLevel() {
+        return audioLevel;
+    }
+
+    public boolean isLocalTrack() {
+        return isLocalTrack;
+    }
+
+    public boolean isAudioTrack() {
+        return isAudioTrack;
+    }
+
+    @Nullable
+    public String getCapture() {
+        return capture;
     }
 }
@@ -7,53 +7,66 @@ import timber.log.Timber
 
 class ParticipantManager {
 
-    private val mutableParticipants = mutableListOf<ParticipantViewState>()
-    val participantThumbnails: List<ParticipantViewState> get() = mutableParticipants.toList()
-    var primaryParticipant: ParticipantViewState
+    private val primaryCandidates = PrimaryCandidates()
+    private val participants = ParticipantStore(ParticipantViewState(isLocalParticipant = true),
+            primaryCandidates::onParticipantChanged)
+    val participantThumbnails: ParticipantSnapshot get() = participants.snapshot()
+    var primaryParticipant: ParticipantViewState = participants.localParticipant
         private set
+    private var batchDepth = 0
+    private var isPrimaryParticipantStale = false
 
-    init {
-        val localParticipant = ParticipantViewState(isLocalParticipant = true)
-        mutableParticipants.add(localParticipant)
-        primaryParticipant = localParticipant
+    /*
+     * Starts a batch of participant mutations. The primary participant is only recomputed once
+     * the outermost batch is committed. Batches may be nested.
+     */
+    fun beginBatch() {
+        batchDepth++
+    }
+
+    fun commitBatch() {
+        check(batchDepth > 0) { "commitBatch called without a matching beginBatch" }
+        batchDepth--
+        if (batchDepth == 0 && isPrimaryParticipantStale) {
+            updatePrimaryParticipant()
+        }
+    }
+
+    inline fun batch(mutations: ParticipantManager.() -> Unit) {
+        beginBatch()
+        try {
+            mutations()
+        } finally {
+            commitBatch()
+        }
     }
 
     fun addParticipant(participantViewState: ParticipantViewState) {
         Timber.d("Adding participant: %s", participantViewState)
-        mutableParticipants.add(participantViewState)
-        updatePrimaryParticipant()
+        participants.add(participantViewState)
+        onParticipantsChanged()
     }
 
     fun updateLocalParticipantVideoTrack(videoTrack: VideoTrackViewState?) =
-            mutableParticipants.find { it.isLocalParticipant }?.copy(
-                    videoTrack = videoTrack)?.let { updateLocalParticipant(it) }
+            updateLocalParticipant(participants.localParticipant.copy(videoTrack = videoTrack))
 
     fun updateLocalParticipantSid(sid: String) =
-            mutableParticipants.find { it.isLocalParticipant }?.copy(
-                    sid = sid)?.let { updateLocalParticipant(it) }
-
-    fun updateParticipant(
-        participantViewState: ParticipantViewState,
-        participantMatchPredicate: (ParticipantViewState) -> Boolean = {
-            it.sid == participantViewState.sid }
-    ) {
-
-        mutableParticipants.indexOfFirst(participantMatchPredicate).let { index ->
-            if (index > -1) {
-                Timber.d("Updating participant: %s", participantViewState)
-                mutableParticipants[index] = participantViewState
-                updatePrimaryParticipant()
-            }
+            updateLocalParticipant(participants.localParticipant.copy(sid = sid))
+
+    fun updateParticipant(participantViewState: ParticipantViewState) {
+        if (participants.update(participantViewState)) {
+            Timber.d("Updating participant: %s", participantViewState)
+            onParticipantsChanged()
         }
     }
 
     fun removeParticipant(sid: String) {
         Timber.d("Removing participant: %s", sid)
-        mutableParticipants.removeAll { it.sid == sid }
-        updatePrimaryParticipant()
+        participants.remove(sid)
+        onParticipantsChanged()
     }
 
-    fun getParticipant(sid: String): ParticipantViewState? = mutableParticipants.find { it.sid == sid }
+    fun getParticipant(sid: String): ParticipantViewState? = participants[sid]
 
     fun updateNetworkQuality(sid: String, networkQualityLevel: NetworkQualityLevel) {
         getParticipant(sid)?.copy(networkQualityLevel = networkQualityLevel)?.let {
@@ -62,13 +75,11 @@ class ParticipantManager {
     }
 
     fun updateParticipantVideoTrack(sid: String, videoTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
-                videoTrack = videoTrack)?.let { updateParticipant(it) }
+        getParticipant(sid)?.copy(videoTrack = videoTrack)?.let { updateParticipant(it) }
     }
 
     fun updateParticipantScreenTrack(sid: String, screenTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
-                screenTrack = screenTrack)?.let { updateParticipant(it) }
+        getParticipant(sid)?.copy(screenTrack = screenTrack)?.let { updateParticipant(it) }
     }
 
     fun muteParticipant(sid: String, mute: Boolean) {
@@ -77,8 +88,8 @@ class ParticipantManager {
         }
     }
 
-    fun changePinnedParticipant(sid: String) {
-        val existingPin = mutableParticipants.find { it.isPinned }?.copy(
+    fun changePinnedParticipant(sid: String) = batch {
+        val existingPin = primaryCandidates.pinnedSid?.let { getParticipant(it) }?.copy(
             isPinned = false)
         existingPin?.let { updateParticipant(it) }
 
@@ -89,7 +100,7 @@ class ParticipantManager {
         }
     }
 
-    fun changeDominantSpeaker(newDominantSpeakerSid: String?) {
+    fun changeDominantSpeaker(newDominantSpeakerSid: String?) = batch {
         Timber.d("new dominant speaker with sid: %s", newDominantSpeakerSid)
         newDominantSpeakerSid?.let { sid ->
             clearDominantSpeaker()
@@ -101,67 +112,81 @@ class ParticipantManager {
         }
     }
 
-    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) =
-            updateParticipant(participantViewState) { it.isLocalParticipant }
+    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) {
+        Timber.d("Updating local participant: %s", participantViewState)
+        participants.localParticipant = participantViewState
+        onParticipantsChanged()
+    }
 
     private fun moveDominantSpeakerToTop(newDominantSpeaker: ParticipantViewState) {
-        if (mutableParticipants.size > 1) {
-            mutableParticipants.removeAll { it.sid == newDominantSpeaker.sid }
-            mutableParticipants.add(1, newDominantSpeaker)
-            updatePrimaryParticipant()
+        if (participants.size > 1) {
+            participants.moveToTop(newDominantSpeaker)
+            onParticipantsChanged()
         }
     }
 
     private fun clearDominantSpeaker() {
-        mutableParticipants.find { it.isDominantSpeaker }?.copy(
+        primaryCandidates.dominantSpeakerSid?.let { getParticipant(it) }?.copy(
                 isDominantSpeaker = false)?.let { updateParticipant(it) }
     }
 
     fun clearRemoteParticipants() {
-        mutableParticipants.removeAll { !it.isLocalParticipant }
-        updatePrimaryParticipant()
+        participants.clearRemoteParticipants()
+        onParticipantsChanged()
     }
 
-    private fun updatePrimaryParticipant() {
-        primaryParticipant = retrievePrimaryParticipant()
-        Timber.d("Participant Cache: $mutableParticipants")
-        Timber.d("Primary Participant: $primaryParticipant")
+    private fun onParticipantsChanged() {
+        if (batchDepth > 0) {
+            isPrimaryParticipantStale = true
+        } else {
+            updatePrimaryParticipant()
+        }
     }
 
-    private fun retrievePrimaryParticipant(): ParticipantViewState =
-            determinePrimaryParticipant().apply { setTrackPriority(this) }
+    private fun updatePrimaryParticipant() {
+        isPrimaryParticipantStale = false
+        val newPrimaryParticipant = determinePrimaryParticipant()
+        if (newPrimaryParticipant.sid != primaryParticipant.sid) {
+            setTrackPriority(newPrimaryParticipant)
+        }
+        primaryParticipant = newPrimaryParticipant
+        Timber.d("Participant Cache: %s", participants)
+        Timber.d("Primary Participant: %s", primaryParticipant)
+    }
 
     private fun determinePrimaryParticipant(): ParticipantViewState {
-        return mutableParticipants.find { it.isPinned }
-                ?: mutableParticipants.find { it.isScreenSharing }
-                ?: mutableParticipants.find { it.isDominantSpeaker }
-                ?: mutableParticipants.find { !it.isLocalParticipant }
-                ?: mutableParticipants[0] // local participant
+        return primaryCandidates.pinnedSid?.let { getParticipant(it) }
+                ?: primaryCandidates.screenSharingSid?.let { getParticipant(it) }
+                ?: primaryCandidates.dominantSpeakerSid?.let { getParticipant(it) }
+                ?: participants.firstRemoteParticipant()
+                ?: participants.localParticipant
     }
 
+    /*
+     * Only invoked when the primary participant changes so track priorities are not reassigned
+     * for every update to the current primary participant.
+     */
     private fun setTrackPriority(participant: ParticipantViewState) {
-        if (participant.sid != primaryParticipant.sid) {
-            when {
-                participant.isScreenSharing -> {
-                    participant.getRemoteScreenTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting screen track priority to high for participant with sid: ${participant.sid}")
-                    }
+        when {
+            participant.isScreenSharing -> {
+                participant.getRemoteScreenTrack()?.let {
+                    it.priority = HIGH
+                    clearOldTrackPriorities()
+                    Timber.d("Setting screen track priority to high for participant with sid: ${participant.sid}")
                 }
-                participant.isDominantSpeaker -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = null
-                        clearOldTrackPriorities()
-                        Timber.d("Clearing dominant speaker priority for participant with sid: ${participant.sid}")
-                    }
+            }
+            participant.isDominantSpeaker -> {
+                participant.getRemoteVideoTrack()?.let {
+                    it.priority = null
+                    clearOldTrackPriorities()
+                    Timber.d("Clearing dominant speaker priority for participant with sid: ${participant.sid}")
                 }
-                else -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting video track priority to high for participant with sid: ${participant.sid}")
-                    }
+            }
+            else -> {
+                participant.getRemoteVideoTrack()?.let {
+                    it.priority = HIGH
+                    clearOldTrackPriorities()
+                    Timber.d("Setting video track priority to high for participant with sid: ${participant.sid}")
                 }
             }
         }
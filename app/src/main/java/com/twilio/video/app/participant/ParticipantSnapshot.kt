@@ -0,0 +1,68 @@
+package com.twilio.video.app.participant
+
+private const val CHUNK_SHIFT = 5
+private const val CHUNK_SIZE = 1 shl CHUNK_SHIFT
+private const val CHUNK_MASK = CHUNK_SIZE - 1
+
+/*
+ * Immutable list of participants stored as fixed size chunks. A new version that only replaces
+ * some participants copies the chunk table and the touched chunks and shares every other chunk
+ * with the previous version. The version increases monotonically for every new snapshot, so
+ * consumers can detect that nothing changed by comparing versions instead of list contents.
+ */
+class ParticipantSnapshot private constructor(
+    val version: Long,
+    private val chunks: Array<Array<ParticipantViewState?>>,
+    override val size: Int
+) : AbstractList<ParticipantViewState>() {
+
+    override fun get(index: Int): ParticipantViewState {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Index: $index, Size: $size")
+        }
+        return chunks[index shr CHUNK_SHIFT][index and CHUNK_MASK]!!
+    }
+
+    /*
+     * Returns a new version with the participants at the given positions replaced.
+     */
+    internal fun withUpdates(
+        version: Long,
+        positions: IntArray,
+        participants: Array<ParticipantViewState>,
+        count: Int
+    ): ParticipantSnapshot {
+        val newChunks = chunks.copyOf()
+        val copiedChunks = BooleanArray(chunks.size)
+        for (i in 0 until count) {
+            val position = positions[i]
+            val chunkIndex = position shr CHUNK_SHIFT
+            if (!copiedChunks[chunkIndex]) {
+                newChunks[chunkIndex] = chunks[chunkIndex].copyOf()
+                copiedChunks[chunkIndex] = true
+            }
+            newChunks[chunkIndex][position and CHUNK_MASK] = participants[i]
+        }
+        return ParticipantSnapshot(version, newChunks, size)
+    }
+
+    internal fun sharesChunkWith(other: ParticipantSnapshot, index: Int) =
+            chunks[index shr CHUNK_SHIFT] === other.chunks[index shr CHUNK_SHIFT]
+
+    companion object {
+        internal fun of(version: Long, participants: Iterable<ParticipantViewState>, size: Int):
+                ParticipantSnapshot {
+            val chunks = Array((size + CHUNK_MASK) shr CHUNK_SHIFT) { chunkIndex ->
+                arrayOfNulls<ParticipantViewState>(
+                        minOf(CHUNK_SIZE, size - (chunkIndex shl CHUNK_SHIFT)))
+            }
+            var position = 0
+            for (participant in participants) {
+                chunks[position shr CHUNK_SHIFT][position and CHUNK_MASK] = participant
+                position++
+            }
+            check(position == size) { "Expected $size participants but found $position" }
+            return ParticipantSnapshot(version, chunks, size)
+        }
+    }
+}
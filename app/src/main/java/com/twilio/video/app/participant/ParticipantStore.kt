@@ -0,0 +1,204 @@
+package com.twilio.video.app.participant
+
+/*
+ * Ordered participant collection indexed by sid. The local participant always occupies the first
+ * position and the remaining participants keep their thumbnail order in a doubly linked list, so
+ * lookups, in place updates, removals and moves to the second position are all constant time.
+ * The optional change listener is invoked with the old and new value of every participant that is
+ * added, replaced or removed.
+ *
+ * Snapshots are rebuilt after structural changes and otherwise derived from the previous snapshot
+ * by replacing only the participants that were updated since it was taken.
+ */
+internal class ParticipantStore(
+    localParticipant: ParticipantViewState,
+    private val changeListener: ((ParticipantViewState?, ParticipantViewState?) -> Unit)? = null
+) : Iterable<ParticipantViewState> {
+
+    private class Node(var value: ParticipantViewState) {
+        var previous: Node? = null
+        var next: Node? = null
+        var position = -1
+        var isUpdated = false
+    }
+
+    private val index = HashMap<String, Node>()
+    private val head = Node(localParticipant).also { node -> node.value.sid?.let { index[it] = node } }
+    private var tail = head
+    private var snapshotVersion = 0L
+    private var snapshot: ParticipantSnapshot? = null
+    private var isStructureChanged = true
+    private val updatedNodes = ArrayList<Node>()
+
+    var size = 1
+        private set
+
+    var localParticipant: ParticipantViewState
+        get() = head.value
+        set(value) = replace(head, value)
+
+    operator fun get(sid: String): ParticipantViewState? = index[sid]?.value
+
+    operator fun contains(sid: String): Boolean = index.containsKey(sid)
+
+    /*
+     * Returns the first remote participant in thumbnail order. Remote participants always follow
+     * the local participant so this is normally the second entry.
+     */
+    fun firstRemoteParticipant(): ParticipantViewState? {
+        var node = head.next
+        while (node != null && node.value.isLocalParticipant) node = node.next
+        return node?.value
+    }
+
+    /*
+     * Appends the participant to the end of the thumbnail order. A participant whose sid is
+     * already present is updated in place instead of being duplicated.
+     */
+    fun add(participantViewState: ParticipantViewState) {
+        participantViewState.sid?.let { sid ->
+            index[sid]?.let { existing ->
+                replace(existing, participantViewState)
+                return
+            }
+        }
+        val node = Node(participantViewState)
+        linkAfter(tail, node)
+        participantViewState.sid?.let { index[it] = node }
+        changeListener?.invoke(null, participantViewState)
+    }
+
+    /*
+     * Replaces the participant that has the same sid. Returns false if no such participant exists.
+     */
+    fun update(participantViewState: ParticipantViewState): Boolean {
+        val node = participantViewState.sid?.let { index[it] } ?: return false
+        replace(node, participantViewState)
+        return true
+    }
+
+    /*
+     * Removes the remote participant with the given sid. The local participant is never removed.
+     */
+    fun remove(sid: String): ParticipantViewState? {
+        val node = index[sid]
+        if (node == null || node === head) return null
+        index.remove(sid)
+        unlink(node)
+        changeListener?.invoke(node.value, null)
+        return node.value
+    }
+
+    /*
+     * Moves the participant with the given sid directly after the local participant, updating its
+     * value at the same time.
+     */
+    fun moveToTop(participantViewState: ParticipantViewState) {
+        val node = participantViewState.sid?.let { index[it] } ?: return
+        replace(node, participantViewState)
+        if (node === head || node.previous === head) return
+        unlink(node)
+        linkAfter(head, node)
+    }
+
+    fun clearRemoteParticipants() {
+        changeListener?.let { listener ->
+            var node = head.next
+            while (node != null) {
+                listener(node.value, null)
+                node = node.next
+            }
+        }
+        head.next = null
+        tail = head
+        size = 1
+        isStructureChanged = true
+        index.clear()
+        head.value.sid?.let { index[it] = head }
+    }
+
+    fun toList(): List<ParticipantViewState> =
+            ArrayList<ParticipantViewState>(size).also { list -> forEach { list.add(it) } }
+
+    /*
+     * Returns an immutable snapshot of the participants in thumbnail order. The same instance is
+     * returned until the store is modified.
+     */
+    fun snapshot(): ParticipantSnapshot {
+        val currentSnapshot = snapshot
+        if (currentSnapshot != null && !isStructureChanged && updatedNodes.isEmpty()) {
+            return currentSnapshot
+        }
+        val newSnapshot = if (currentSnapshot == null || isStructureChanged) {
+            var position = 0
+            var node: Node? = head
+            while (node != null) {
+                node.position = position++
+                node = node.next
+            }
+            ParticipantSnapshot.of(++snapshotVersion, this, size)
+        } else {
+            val count = updatedNodes.size
+            val positions = IntArray(count) { updatedNodes[it].position }
+            val values = Array(count) { updatedNodes[it].value }
+            currentSnapshot.withUpdates(++snapshotVersion, positions, values, count)
+        }
+        updatedNodes.forEach { it.isUpdated = false }
+        updatedNodes.clear()
+        isStructureChanged = false
+        snapshot = newSnapshot
+        return newSnapshot
+    }
+
+    override fun iterator(): Iterator<ParticipantViewState> = object : Iterator<ParticipantViewState> {
+        private var next: Node? = head
+
+        override fun hasNext() = next != null
+
+        override fun next(): ParticipantViewState {
+            val node = next ?: throw NoSuchElementException()
+            next = node.next
+            return node.value
+        }
+    }
+
+    override fun toString() = toList().toString()
+
+    private fun replace(node: Node, participantViewState: ParticipantViewState) {
+        val old = node.value
+        val oldSid = old.sid
+        val newSid = participantViewState.sid
+        node.value = participantViewState
+        if (oldSid != newSid) {
+            oldSid?.let { if (index[it] === node) index.remove(it) }
+            newSid?.let { index[it] = node }
+        }
+        if (!isStructureChanged && !node.isUpdated && node.position >= 0) {
+            node.isUpdated = true
+            updatedNodes.add(node)
+        }
+        changeListener?.invoke(old, participantViewState)
+    }
+
+    private fun linkAfter(anchor: Node, node: Node) {
+        val next = anchor.next
+        node.previous = anchor
+        node.next = next
+        anchor.next = node
+        if (next != null) next.previous = node else tail = node
+        size++
+        isStructureChanged = true
+    }
+
+    private fun unlink(node: Node) {
+        val previous = node.previous
+        val next = node.next
+        previous?.next = next
+        if (next != null) next.previous = previous else tail = previous ?: head
+        node.previous = null
+        node.next = null
+        node.position = -1
+        size--
+        isStructureChanged = true
+    }
+}
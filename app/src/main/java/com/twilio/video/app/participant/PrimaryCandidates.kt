@@ -0,0 +1,37 @@
+package com.twilio.video.app.participant
+
+/*
+ * Tracks which participants are pinned, screen sharing or the dominant speaker so that the primary
+ * participant can be selected without scanning the participant list. Each holder keeps sids in the
+ * order the flag was set, which preserves a deterministic pick if more than one participant has
+ * the same flag.
+ */
+internal class PrimaryCandidates {
+
+    private val pinned = LinkedHashSet<String>()
+    private val screenSharing = LinkedHashSet<String>()
+    private val dominantSpeakers = LinkedHashSet<String>()
+
+    val pinnedSid: String? get() = pinned.firstOrNull()
+    val screenSharingSid: String? get() = screenSharing.firstOrNull()
+    val dominantSpeakerSid: String? get() = dominantSpeakers.firstOrNull()
+
+    fun onParticipantChanged(old: ParticipantViewState?, new: ParticipantViewState?) {
+        old?.sid?.let { sid ->
+            if (new?.sid != sid) {
+                pinned.remove(sid)
+                screenSharing.remove(sid)
+                dominantSpeakers.remove(sid)
+            }
+        }
+        new?.sid?.let { sid ->
+            update(pinned, sid, new.isPinned)
+            update(screenSharing, sid, new.isScreenSharing)
+            update(dominantSpeakers, sid, new.isDominantSpeaker)
+        }
+    }
+
+    private fun update(holder: MutableSet<String>, sid: String, isSet: Boolean) {
+        if (isSet) holder.add(sid) else holder.remove(sid)
+    }
+}
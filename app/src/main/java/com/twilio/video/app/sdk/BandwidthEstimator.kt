@@ -0,0 +1,154 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+
+const val DEFAULT_BANDWIDTH_ESTIMATE_ALPHA = 0.3
+const val MAX_BANDWIDTH_HINT_AGE_MILLIS = 10 * 60 * 1000L
+const val MIN_SUBSCRIPTION_BITRATE_HINT_KBPS = 1000
+const val SUBSCRIPTION_BITRATE_HINT_HEADROOM = 1.5
+
+data class TrackBandwidth(
+    val trackSid: String,
+    val isInbound: Boolean,
+    val isVideo: Boolean,
+    val bitrate: Long
+)
+
+/*
+ * Smoothed bitrates in bits per second at the time of the latest stats reports. The peaks are the
+ * highest aggregate bitrates of the current or, after a disconnect, the last call.
+ */
+data class BandwidthEstimate(
+    val timestampMillis: Long,
+    val inboundBitrate: Long,
+    val outboundBitrate: Long,
+    val peakInboundBitrate: Long,
+    val peakOutboundBitrate: Long,
+    val tracks: Map<String, TrackBandwidth>
+) {
+
+    val outboundVideoBitrate: Long
+        get() = tracks.values.sumOf { if (!it.isInbound && it.isVideo) it.bitrate else 0L }
+}
+
+/*
+ * Estimates the inbound and outbound bitrates per track and in aggregate. The stats reports only
+ * tell the direction and kind of each track, the rate between two samples is the one its
+ * TrackStatsSeries derived, and the bitrate of a track is the exponentially weighted moving average
+ * of those rates. Tracks missing from a set of reports are dropped.
+ *
+ * The estimates are published as a StateFlow. The last estimate of a call is kept after a reset so
+ * it can inform the options of the next connect.
+ */
+class BandwidthEstimator(private val alpha: Double = DEFAULT_BANDWIDTH_ESTIMATE_ALPHA) {
+
+    private class TrackState(val isInbound: Boolean, val isVideo: Boolean, alpha: Double) {
+        val bitrate = EwmaStats(alpha)
+        var updatedMillis = 0L
+    }
+
+    private val tracks = HashMap<String, TrackState>()
+    private var peakInboundBitrate = 0L
+    private var peakOutboundBitrate = 0L
+    private val mutableEstimates = MutableStateFlow<BandwidthEstimate?>(null)
+
+    val estimates: StateFlow<BandwidthEstimate?> = mutableEstimates
+
+    init {
+        require(alpha > 0 && alpha <= 1) { "alpha must be in (0, 1] but was $alpha" }
+    }
+
+    @Synchronized
+    fun update(
+        timestampMillis: Long,
+        statsReports: List<StatsReport>,
+        trackStats: Map<String, TrackStatsSummary>
+    ): BandwidthEstimate {
+        statsReports.firstOrNull()?.let { report ->
+            // Local tracks are reported for every peer connection, only count them once
+            report.localAudioTrackStats.forEach {
+                updateTrack(timestampMillis, it.trackSid, false, false, trackStats[it.trackSid])
+            }
+            report.localVideoTrackStats.forEach {
+                updateTrack(timestampMillis, it.trackSid, false, true, trackStats[it.trackSid])
+            }
+        }
+        statsReports.forEach { report ->
+            report.remoteAudioTrackStats.forEach {
+                updateTrack(timestampMillis, it.trackSid, true, false, trackStats[it.trackSid])
+            }
+            report.remoteVideoTrackStats.forEach {
+                updateTrack(timestampMillis, it.trackSid, true, true, trackStats[it.trackSid])
+            }
+        }
+
+        var inboundBitrate = 0L
+        var outboundBitrate = 0L
+        val trackBandwidths = HashMap<String, TrackBandwidth>(tracks.size)
+        val iterator = tracks.entries.iterator()
+        while (iterator.hasNext()) {
+            val (trackSid, track) = iterator.next()
+            if (track.updatedMillis != timestampMillis) {
+                iterator.remove()
+                continue
+            }
+            val bitrate = track.bitrate.mean.toLong()
+            if (track.isInbound) inboundBitrate += bitrate else outboundBitrate += bitrate
+            trackBandwidths[trackSid] =
+                    TrackBandwidth(trackSid, track.isInbound, track.isVideo, bitrate)
+        }
+        peakInboundBitrate = maxOf(peakInboundBitrate, inboundBitrate)
+        peakOutboundBitrate = maxOf(peakOutboundBitrate, outboundBitrate)
+        val estimate = BandwidthEstimate(timestampMillis, inboundBitrate, outboundBitrate,
+                peakInboundBitrate, peakOutboundBitrate, trackBandwidths)
+        mutableEstimates.value = estimate
+        return estimate
+    }
+
+    /*
+     * Forgets the tracks and peaks of the current call. The last estimate stays published.
+     */
+    @Synchronized
+    fun reset() {
+        tracks.clear()
+        peakInboundBitrate = 0
+        peakOutboundBitrate = 0
+    }
+
+    /*
+     * Suggests a maximum subscription bitrate in kbps for the next connect from the peak inbound
+     * bitrate of the last call, with headroom so the limit does not ratchet down from one call to
+     * the next. Returns null without a recent enough estimate.
+     */
+    fun subscriptionBitrateHintKbps(nowMillis: Long): Int? {
+        val estimate = estimates.value ?: return null
+        if (nowMillis - estimate.timestampMillis > MAX_BANDWIDTH_HINT_AGE_MILLIS ||
+                estimate.peakInboundBitrate <= 0) {
+            return null
+        }
+        val hintKbps = estimate.peakInboundBitrate * SUBSCRIPTION_BITRATE_HINT_HEADROOM / 1000
+        return maxOf(MIN_SUBSCRIPTION_BITRATE_HINT_KBPS, hintKbps.toInt())
+    }
+
+    private fun updateTrack(
+        timestampMillis: Long,
+        trackSid: String,
+        isInbound: Boolean,
+        isVideo: Boolean,
+        summary: TrackStatsSummary?
+    ) {
+        val existingTrack = tracks[trackSid]
+        val track = if (existingTrack == null || existingTrack.isInbound != isInbound) {
+            TrackState(isInbound, isVideo, alpha).also { tracks[trackSid] = it }
+        } else {
+            existingTrack
+        }
+        // The first sample of a series has no rate yet
+        if (summary != null && summary.sampleCount > 1) {
+            track.bitrate.update(summary.bitrate.toDouble())
+        }
+        track.updatedMillis = timestampMillis
+    }
+}
@@ -0,0 +1,134 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.EncodingParameters
+import kotlin.math.abs
+
+/*
+ * Mirrors of the PowerManager THERMAL_STATUS constants, which are only available from API 29.
+ */
+const val THERMAL_STATUS_NONE = 0
+const val THERMAL_STATUS_LIGHT = 1
+const val THERMAL_STATUS_MODERATE = 2
+const val THERMAL_STATUS_SEVERE = 3
+const val THERMAL_STATUS_CRITICAL = 4
+
+const val ENCODING_ADAPTATION_STATS_INTERVAL_MILLIS = STATS_UI_INTERVAL_MILLIS
+
+/*
+ * Encoding bitrate limits in kilobits per second, zero meaning no limit.
+ */
+data class EncodingLimits(val maxAudioBitrateKbps: Int, val maxVideoBitrateKbps: Int) {
+
+    fun toEncodingParameters() = EncodingParameters(maxAudioBitrateKbps, maxVideoBitrateKbps)
+}
+
+/*
+ * Adjusts the maximum video bitrate during a call. The limit decreases while the uplink is
+ * congested and increases while the encoder uses most of it without congestion. It never exceeds
+ * a budget derived from the preferred maximum, the number of remote participants and the thermal
+ * status of the device. Every change is bounded to a fraction of the current limit, decreases and
+ * increases are rate limited separately, increases also wait for minIncreaseIntervalMillis
+ * without congestion, and changes smaller than minChangeKbps are skipped so the limit does not
+ * oscillate.
+ */
+class BitrateGovernor(
+    private val maxAudioBitrateKbps: Int,
+    private val maxVideoBitrateKbps: Int,
+    private val config: Config = Config()
+) {
+
+    data class Config(
+        val unlimitedVideoBitrateKbps: Int = 2000,
+        val minVideoBitrateKbps: Int = 150,
+        val congestedPacketLossPercentage: Float = 5f,
+        val congestedRoundTripTimeMillis: Long = 500,
+        val utilizedFraction: Double = 0.8,
+        val maxIncreaseFraction: Double = 0.1,
+        val maxDecreaseFraction: Double = 0.25,
+        val minIncreaseIntervalMillis: Long = 5000,
+        val minDecreaseIntervalMillis: Long = 2000,
+        val minChangeKbps: Int = 25
+    )
+
+    /*
+     * Uplink measurements of the local video tracks. The thermal status is one of the
+     * PowerManager THERMAL_STATUS constants.
+     */
+    data class Sample(
+        val timestampMillis: Long,
+        val sentVideoBitrate: Long,
+        val packetLossPercentage: Float,
+        val roundTripTimeMillis: Long,
+        val remoteParticipantCount: Int,
+        val thermalStatus: Int
+    )
+
+    private val ceilingKbps =
+            if (maxVideoBitrateKbps > 0) maxVideoBitrateKbps else config.unlimitedVideoBitrateKbps
+    private var lastChangeMillis: Long? = null
+    private var lastCongestionMillis: Long? = null
+
+    var videoBitrateKbps = ceilingKbps
+        private set
+
+    val limits get() = EncodingLimits(maxAudioBitrateKbps,
+            if (maxVideoBitrateKbps == 0 && videoBitrateKbps >= ceilingKbps) 0 else videoBitrateKbps)
+
+    /*
+     * Returns the new limits if the sample changed them.
+     */
+    fun onSample(sample: Sample): EncodingLimits? {
+        val current = videoBitrateKbps
+        val budget = (ceilingKbps * participantFactor(sample.remoteParticipantCount) *
+                thermalFactor(sample.thermalStatus)).toInt()
+        val sentKbps = sample.sentVideoBitrate / 1000
+        val isCongested = sample.packetLossPercentage >= config.congestedPacketLossPercentage ||
+                sample.roundTripTimeMillis >= config.congestedRoundTripTimeMillis
+        if (isCongested) lastCongestionMillis = sample.timestampMillis
+        val desired = when {
+            isCongested -> 0
+            sentKbps >= current * config.utilizedFraction -> Int.MAX_VALUE
+            else -> current
+        }.coerceAtMost(budget)
+        val target = desired.coerceIn(
+                (current * (1 - config.maxDecreaseFraction)).toInt(),
+                (current * (1 + config.maxIncreaseFraction)).toInt())
+                .coerceIn(config.minVideoBitrateKbps, ceilingKbps)
+
+        val delta = target - current
+        if (delta == 0) return null
+        if (abs(delta) < config.minChangeKbps && target != budget &&
+                target != config.minVideoBitrateKbps) {
+            return null
+        }
+        if (delta < 0) {
+            if (isWithin(lastChangeMillis, sample, config.minDecreaseIntervalMillis)) return null
+        } else if (isWithin(lastChangeMillis, sample, config.minIncreaseIntervalMillis) ||
+                isWithin(lastCongestionMillis, sample, config.minIncreaseIntervalMillis)) {
+            return null
+        }
+        this.lastChangeMillis = sample.timestampMillis
+        videoBitrateKbps = target
+        return limits
+    }
+
+    private fun isWithin(timestampMillis: Long?, sample: Sample, intervalMillis: Long) =
+            timestampMillis != null && sample.timestampMillis - timestampMillis < intervalMillis
+
+    /*
+     * In larger rooms the local video is mostly rendered as a thumbnail by the other participants.
+     */
+    private fun participantFactor(remoteParticipantCount: Int) = when {
+        remoteParticipantCount <= 2 -> 1.0
+        remoteParticipantCount <= 4 -> 0.75
+        remoteParticipantCount <= 8 -> 0.5
+        else -> 0.35
+    }
+
+    private fun thermalFactor(thermalStatus: Int) = when {
+        thermalStatus <= THERMAL_STATUS_LIGHT -> 1.0
+        thermalStatus == THERMAL_STATUS_MODERATE -> 0.7
+        thermalStatus == THERMAL_STATUS_SEVERE -> 0.5
+        else -> 0.3
+    }
+}
@@ -0,0 +1,241 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.AudioDropout
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.JitterExcursion
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.PacketLossSpike
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.Recovered
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.RoundTripTimeExcursion
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.VideoFreeze
+
+const val CALL_QUALITY_STATS_INTERVAL_MILLIS = STATS_UI_INTERVAL_MILLIS
+
+enum class CallQualityAnomaly {
+    PACKET_LOSS_SPIKE,
+    ROUND_TRIP_TIME_EXCURSION,
+    JITTER_EXCURSION,
+    VIDEO_FREEZE,
+    AUDIO_DROPOUT
+}
+
+/*
+ * Online detector of call quality anomalies fed with every set of stats reports and the track
+ * summaries TrackStatsHistory derived from them. Packet loss, round trip time and jitter of each
+ * track are compared to their exponentially weighted baseline
+ * and flagged when they exceed it by deviationFactor standard deviations as well as an absolute
+ * floor. Video freezes are flagged after a number of consecutive samples without frames while
+ * media is expected. Audio dropouts are flagged after a number of consecutive samples in which no
+ * audio bytes were transported while media is expected. The audio level is not considered since a
+ * participant who does not speak is silent on a healthy track, and silence is still sent as
+ * comfort noise. Every anomaly is reported once when it starts and once when it is recovered from.
+ */
+class CallQualityDetector(private val thresholds: Thresholds = Thresholds()) {
+
+    data class Thresholds(
+        val alpha: Double = 0.1,
+        val deviationFactor: Double = 3.0,
+        val warmUpSamples: Int = 5,
+        val minPacketLossPercentage: Double = 5.0,
+        val minRoundTripTimeMillis: Double = 300.0,
+        val minJitterMillis: Double = 30.0,
+        val freezeSamples: Int = 2,
+        val dropoutSamples: Int = 3
+    )
+
+    private val tracks = HashMap<String, TrackQuality>()
+    private val switchedOffTracks = HashSet<String>()
+    private val disabledTracks = HashSet<String>()
+    private val screenTracks = HashSet<String>()
+    private var pass = 0L
+
+    /*
+     * Screen tracks stop producing frames while the shared content is static, so they are never
+     * considered frozen.
+     */
+    @Synchronized
+    fun onTrackSubscribed(trackSid: String, isEnabled: Boolean, isScreenTrack: Boolean = false) {
+        onTrackEnabled(trackSid, isEnabled)
+        if (isScreenTrack) screenTracks.add(trackSid) else screenTracks.remove(trackSid)
+    }
+
+    @Synchronized
+    fun onTrackSwitchedOff(trackSid: String, isSwitchedOff: Boolean) {
+        if (isSwitchedOff) switchedOffTracks.add(trackSid) else switchedOffTracks.remove(trackSid)
+    }
+
+    /*
+     * Remote tracks whose publication is disabled, i.e. muted audio or a paused camera, are not
+     * expected to carry media.
+     */
+    @Synchronized
+    fun onTrackEnabled(trackSid: String, isEnabled: Boolean) {
+        if (isEnabled) disabledTracks.remove(trackSid) else disabledTracks.add(trackSid)
+    }
+
+    /*
+     * Forgets the state of a track that is no longer subscribed, or whose participant left.
+     */
+    @Synchronized
+    fun onTrackUnsubscribed(trackSid: String) {
+        tracks.remove(trackSid)
+        switchedOffTracks.remove(trackSid)
+        disabledTracks.remove(trackSid)
+        screenTracks.remove(trackSid)
+    }
+
+    @Synchronized
+    fun detect(
+        statsReports: List<StatsReport>,
+        trackStats: Map<String, TrackStatsSummary>,
+        isLocalAudioEnabled: Boolean,
+        isLocalVideoEnabled: Boolean
+    ): List<CallQualityEvent> {
+        pass++
+        val events = ArrayList<CallQualityEvent>(0)
+        statsReports.firstOrNull()?.let { report ->
+            // Local tracks are reported for every peer connection, only inspect them once
+            report.localAudioTrackStats.forEach {
+                trackOf(it.trackSid).apply {
+                    onPacketLoss(trackStats[it.trackSid], events)
+                    onRoundTripTime(it.roundTripTime, events)
+                    onJitter(it.jitter, events)
+                    onAudioTransport(trackStats[it.trackSid], isLocalAudioEnabled, events)
+                }
+            }
+            report.localVideoTrackStats.forEach {
+                trackOf(it.trackSid).apply {
+                    onPacketLoss(trackStats[it.trackSid], events)
+                    onRoundTripTime(it.roundTripTime, events)
+                    onFrameRate(it.frameRate, isLocalVideoEnabled, events)
+                }
+            }
+        }
+        statsReports.forEach { report ->
+            report.remoteAudioTrackStats.forEach {
+                trackOf(it.trackSid).apply {
+                    onPacketLoss(trackStats[it.trackSid], events)
+                    onJitter(it.jitter, events)
+                    onAudioTransport(trackStats[it.trackSid], isExpected(it.trackSid), events)
+                }
+            }
+            report.remoteVideoTrackStats.forEach {
+                trackOf(it.trackSid).apply {
+                    onPacketLoss(trackStats[it.trackSid], events)
+                    onFrameRate(it.frameRate,
+                            isExpected(it.trackSid) && it.trackSid !in screenTracks, events)
+                }
+            }
+        }
+        tracks.values.removeAll { it.pass != pass }
+        return events
+    }
+
+    @Synchronized
+    fun clear() {
+        tracks.clear()
+        switchedOffTracks.clear()
+        disabledTracks.clear()
+        screenTracks.clear()
+    }
+
+    private fun isExpected(trackSid: String) =
+            trackSid !in switchedOffTracks && trackSid !in disabledTracks
+
+    private fun trackOf(trackSid: String) =
+            tracks.getOrPut(trackSid) { TrackQuality(trackSid) }.also { it.pass = pass }
+
+    private inner class TrackQuality(val trackSid: String) {
+        var pass = 0L
+        private val packetLoss = Excursion(thresholds.minPacketLossPercentage)
+        private val roundTripTime = Excursion(thresholds.minRoundTripTimeMillis)
+        private val jitter = Excursion(thresholds.minJitterMillis)
+        private var framelessSamples = 0
+        private var isFrozen = false
+        private var idleSamples = 0
+        private var isDroppedOut = false
+
+        /*
+         * The first sample of a series has no packet loss of its own yet.
+         */
+        fun onPacketLoss(summary: TrackStatsSummary?, events: MutableList<CallQualityEvent>) {
+            if (summary == null || summary.sampleCount < 2) return
+            val percentage = summary.packetLossPercentage
+            packetLoss.onSample(percentage.toDouble(),
+                    { PacketLossSpike(trackSid, percentage, it.toFloat()) },
+                    CallQualityAnomaly.PACKET_LOSS_SPIKE, events)
+        }
+
+        fun onRoundTripTime(roundTripTimeMillis: Long, events: MutableList<CallQualityEvent>) {
+            if (roundTripTimeMillis <= 0) return
+            roundTripTime.onSample(roundTripTimeMillis.toDouble(),
+                    { RoundTripTimeExcursion(trackSid, roundTripTimeMillis, it.toFloat()) },
+                    CallQualityAnomaly.ROUND_TRIP_TIME_EXCURSION, events)
+        }
+
+        fun onJitter(jitterMillis: Int, events: MutableList<CallQualityEvent>) {
+            jitter.onSample(jitterMillis.toDouble(),
+                    { JitterExcursion(trackSid, jitterMillis, it.toFloat()) },
+                    CallQualityAnomaly.JITTER_EXCURSION, events)
+        }
+
+        fun onFrameRate(frameRate: Int, isExpected: Boolean, events: MutableList<CallQualityEvent>) {
+            framelessSamples = if (frameRate == 0 && isExpected) framelessSamples + 1 else 0
+            if (!isFrozen && framelessSamples >= thresholds.freezeSamples) {
+                isFrozen = true
+                events.add(VideoFreeze(trackSid))
+            } else if (isFrozen && framelessSamples == 0) {
+                isFrozen = false
+                events.add(Recovered(trackSid, CallQualityAnomaly.VIDEO_FREEZE))
+            }
+        }
+
+        /*
+         * The bitrate of a summary is that of the interval since the previous sample, so a zero
+         * bitrate means no audio bytes were sent or received in between. The first sample of a
+         * series has no interval yet.
+         */
+        fun onAudioTransport(
+            summary: TrackStatsSummary?,
+            isExpected: Boolean,
+            events: MutableList<CallQualityEvent>
+        ) {
+            val isIdle = summary != null && summary.sampleCount >= 2 && summary.bitrate == 0L
+            idleSamples = if (isIdle && isExpected) idleSamples + 1 else 0
+            if (!isDroppedOut && idleSamples >= thresholds.dropoutSamples) {
+                isDroppedOut = true
+                events.add(AudioDropout(trackSid))
+            } else if (isDroppedOut && idleSamples == 0) {
+                isDroppedOut = false
+                events.add(Recovered(trackSid, CallQualityAnomaly.AUDIO_DROPOUT))
+            }
+        }
+
+        private inner class Excursion(private val floor: Double) {
+            private val stats = EwmaStats(thresholds.alpha)
+            private var isActive = false
+
+            inline fun onSample(
+                sample: Double,
+                onset: (baseline: Double) -> CallQualityEvent,
+                anomaly: CallQualityAnomaly,
+                events: MutableList<CallQualityEvent>
+            ) {
+                if (stats.count >= thresholds.warmUpSamples) {
+                    val baseline = stats.mean
+                    val deviation = stats.standardDeviation
+                    if (!isActive &&
+                            sample > maxOf(floor, baseline + thresholds.deviationFactor * deviation)) {
+                        isActive = true
+                        events.add(onset(baseline))
+                    } else if (isActive && sample <= maxOf(floor, baseline + deviation)) {
+                        isActive = false
+                        events.add(Recovered(trackSid, anomaly))
+                    }
+                }
+                // Excursions are kept out of the baseline so it keeps describing the normal state
+                if (!isActive) stats.update(sample)
+            }
+        }
+    }
+}
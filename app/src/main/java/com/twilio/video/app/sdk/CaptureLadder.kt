@@ -0,0 +1,144 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoFormat
+
+const val CAPTURE_FRAMERATE = 30
+const val MIN_CAPTURE_FRAMERATE = 15
+const val CAPTURE_ADAPTATION_STATS_INTERVAL_MILLIS = STATS_UI_INTERVAL_MILLIS
+
+data class CaptureFormat(val width: Int, val height: Int, val framerate: Int) {
+
+    fun toVideoFormat() = VideoFormat(VideoDimensions(width, height), framerate)
+
+    override fun toString() = "${width}x$height@$framerate"
+}
+
+enum class CaptureStepReason {
+    PACKET_LOSS,
+    ROUND_TRIP_TIME,
+    NETWORK_QUALITY,
+    RECOVERED
+}
+
+data class CaptureStep(val from: CaptureFormat, val to: CaptureFormat, val reason: CaptureStepReason)
+
+/*
+ * Current rung of the capture ladder of a camera track, shown in the stats panel.
+ */
+data class CaptureState(
+    val trackSid: String?,
+    val format: CaptureFormat,
+    val rung: Int,
+    val rungCount: Int,
+    val lastStep: CaptureStep?
+)
+
+/*
+ * Capture formats of the camera from the preferred dimensions down to the smallest ones, all at
+ * CAPTURE_FRAMERATE, followed by the smallest dimensions at MIN_CAPTURE_FRAMERATE. The ladder
+ * steps down after stepDownSamples consecutive congested stats samples and back up after
+ * stepUpSamples consecutive good ones. Samples in between reset both streaks, and no step is taken
+ * for holdSamples samples after a step so the encoder can settle on the new format.
+ */
+class CaptureLadder(
+    dimensions: Array<VideoDimensions>,
+    preferredIndex: Int,
+    private val thresholds: Thresholds = Thresholds()
+) {
+
+    data class Thresholds(
+        val congestedPacketLossPercentage: Float = 5f,
+        val congestedRoundTripTimeMillis: Long = 500,
+        val goodPacketLossPercentage: Float = 1f,
+        val goodRoundTripTimeMillis: Long = 250,
+        val stepDownSamples: Int = 2,
+        val stepUpSamples: Int = 10,
+        val holdSamples: Int = 5
+    )
+
+    val rungs: List<CaptureFormat> = ArrayList<CaptureFormat>().apply {
+        for (index in preferredIndex.coerceIn(dimensions.indices) downTo 0) {
+            add(CaptureFormat(dimensions[index].width, dimensions[index].height, CAPTURE_FRAMERATE))
+        }
+        add(last().copy(framerate = MIN_CAPTURE_FRAMERATE))
+    }
+
+    var rung = 0
+        private set
+    var lastStep: CaptureStep? = null
+        private set
+    val format get() = rungs[rung]
+
+    @Volatile
+    private var networkQualityLevel = NETWORK_QUALITY_LEVEL_UNKNOWN
+    private var congestedSamples = 0
+    private var goodSamples = 0
+    private var remainingHoldSamples = 0
+
+    fun onNetworkQualityLevel(networkQualityLevel: NetworkQualityLevel) {
+        this.networkQualityLevel = networkQualityLevel
+    }
+
+    /*
+     * Feeds a stats sample of the camera track and returns the step taken, if any. Samples without
+     * sent bytes carry no information about the uplink and are ignored.
+     */
+    fun onStats(packetLossPercentage: Float, roundTripTimeMillis: Long, bitrate: Long): CaptureStep? {
+        if (bitrate <= 0) return null
+        if (remainingHoldSamples > 0) {
+            remainingHoldSamples--
+            return null
+        }
+        val congestion = congestionOf(packetLossPercentage, roundTripTimeMillis)
+        if (congestion != null) {
+            goodSamples = 0
+            if (++congestedSamples >= thresholds.stepDownSamples && rung < rungs.size - 1) {
+                return step(rung + 1, congestion)
+            }
+        } else {
+            congestedSamples = 0
+            if (isGood(packetLossPercentage, roundTripTimeMillis)) {
+                if (++goodSamples >= thresholds.stepUpSamples && rung > 0) {
+                    return step(rung - 1, CaptureStepReason.RECOVERED)
+                }
+            } else {
+                goodSamples = 0
+            }
+        }
+        return null
+    }
+
+    fun state(trackSid: String?) = CaptureState(trackSid, format, rung, rungs.size, lastStep)
+
+    private fun congestionOf(packetLossPercentage: Float, roundTripTimeMillis: Long) = when {
+        packetLossPercentage >= thresholds.congestedPacketLossPercentage ->
+            CaptureStepReason.PACKET_LOSS
+        roundTripTimeMillis >= thresholds.congestedRoundTripTimeMillis ->
+            CaptureStepReason.ROUND_TRIP_TIME
+        networkQualityLevel != NETWORK_QUALITY_LEVEL_UNKNOWN &&
+                networkQualityLevel <= NETWORK_QUALITY_LEVEL_TWO ->
+            CaptureStepReason.NETWORK_QUALITY
+        else -> null
+    }
+
+    private fun isGood(packetLossPercentage: Float, roundTripTimeMillis: Long) =
+            packetLossPercentage < thresholds.goodPacketLossPercentage &&
+                    roundTripTimeMillis < thresholds.goodRoundTripTimeMillis &&
+                    (networkQualityLevel == NETWORK_QUALITY_LEVEL_UNKNOWN ||
+                            networkQualityLevel >= NETWORK_QUALITY_LEVEL_FOUR)
+
+    private fun step(newRung: Int, reason: CaptureStepReason): CaptureStep {
+        val step = CaptureStep(rungs[rung], rungs[newRung], reason)
+        rung = newRung
+        lastStep = step
+        congestedSamples = 0
+        goodSamples = 0
+        remainingHoldSamples = thresholds.holdSamples
+        return step
+    }
+}
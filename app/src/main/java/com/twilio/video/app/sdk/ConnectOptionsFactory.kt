@@ -2,6 +2,7 @@ package com.twilio.video.app.sdk
 
 import android.content.Context
 import android.content.SharedPreferences
+import android.os.SystemClock
 import com.twilio.androidenv.Env
 import com.twilio.video.AudioCodec
 import com.twilio.video.BandwidthProfileMode
@@ -27,13 +28,15 @@ import com.twilio.video.app.util.EnvUtil
 import com.twilio.video.app.util.get
 import com.twilio.video.ktx.createBandwidthProfileOptions
 import com.twilio.video.ktx.createConnectOptions
+import timber.log.Timber
 import tvi.webrtc.voiceengine.WebRtcAudioManager
 import tvi.webrtc.voiceengine.WebRtcAudioUtils
 
 class ConnectOptionsFactory(
     private val context: Context,
     private val sharedPreferences: SharedPreferences,
-    private val tokenService: TokenService
+    private val tokenService: TokenService,
+    private val bandwidthEstimator: BandwidthEstimator
 ) {
 
     suspend fun newInstance(identity: String, roomName: String): ConnectOptions {
@@ -65,7 +68,9 @@ class ConnectOptionsFactory(
             getBandwidthProfileMode(it)
         }
         val maxSubscriptionBitrate = sharedPreferences.get(Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE,
-                Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE_DEFAULT).toLong()
+                Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE_DEFAULT).toLong().let {
+            limitSubscriptionBitrate(it)
+        }
 
         val maxVideoTracks = sharedPreferences.get(Preferences.BANDWIDTH_PROFILE_MAX_VIDEO_TRACKS,
                 Preferences.BANDWIDTH_PROFILE_MAX_VIDEO_TRACKS_DEFAULT).toLong()
@@ -142,6 +147,24 @@ class ConnectOptionsFactory(
         }
     }
 
+    /*
+     * When the user opted in, lowers the preferred maximum subscription bitrate to what the last
+     * call measured plus headroom, so the first seconds of the next call do not overshoot a link
+     * that is known to be slower. Zero means no limit and is always kept.
+     */
+    private fun limitSubscriptionBitrate(maxSubscriptionBitrate: Long): Long {
+        if (maxSubscriptionBitrate == 0L ||
+                !sharedPreferences.get(Preferences.BANDWIDTH_PROFILE_LIMIT_TO_MEASURED_BANDWIDTH,
+                        Preferences.BANDWIDTH_PROFILE_LIMIT_TO_MEASURED_BANDWIDTH_DEFAULT)) {
+            return maxSubscriptionBitrate
+        }
+        val hintKbps = bandwidthEstimator.subscriptionBitrateHintKbps(SystemClock.elapsedRealtime())
+                ?.toLong() ?: return maxSubscriptionBitrate
+        if (maxSubscriptionBitrate <= hintKbps) return maxSubscriptionBitrate
+        Timber.d("Limiting the max subscription bitrate to the measured %d kbps", hintKbps)
+        return hintKbps
+    }
+
     /*
      * Utility method that extracts the VideoDimensions from a preference string in the format
      * NxN. The resolution will be extracted and set to the render dimensions of the specified
@@ -0,0 +1,42 @@
+package com.twilio.video.app.sdk
+
+import kotlin.math.sqrt
+
+/*
+ * Exponentially weighted moving mean and variance of a stream of samples. Uses constant memory
+ * regardless of the number of samples; alpha is the weight of the latest sample.
+ */
+class EwmaStats(private val alpha: Double) {
+
+    init {
+        require(alpha > 0 && alpha <= 1) { "alpha must be in (0, 1] but was $alpha" }
+    }
+
+    var count = 0L
+        private set
+    var mean = 0.0
+        private set
+    var variance = 0.0
+        private set
+
+    val standardDeviation get() = sqrt(variance)
+
+    fun update(sample: Double) {
+        if (count == 0L) {
+            mean = sample
+            variance = 0.0
+        } else {
+            val delta = sample - mean
+            val increment = alpha * delta
+            mean += increment
+            variance = (1 - alpha) * (variance + delta * increment)
+        }
+        count++
+    }
+
+    fun reset() {
+        count = 0
+        mean = 0.0
+        variance = 0.0
+    }
+}
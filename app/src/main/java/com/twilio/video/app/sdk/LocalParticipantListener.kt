@@ -18,6 +18,7 @@ class LocalParticipantListener(private val roomManager: RoomManager) : LocalPart
         Timber.i("LocalParticipant NetworkQualityLevel changed for LocalParticipant sid: %s, NetworkQualityLevel: %s",
                 localParticipant.sid, networkQualityLevel)
 
+        roomManager.localParticipantManager.onNetworkQualityLevelChanged(networkQualityLevel)
         roomManager.sendRoomEvent(NetworkQualityLevelChange(localParticipant.sid, networkQualityLevel))
     }
 
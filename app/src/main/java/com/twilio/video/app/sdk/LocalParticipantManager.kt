@@ -7,10 +7,15 @@ import com.twilio.video.LocalAudioTrack
 import com.twilio.video.LocalParticipant
 import com.twilio.video.LocalTrackPublicationOptions
 import com.twilio.video.LocalVideoTrack
+import com.twilio.video.NetworkQualityLevel
 import com.twilio.video.ScreenCapturer
+import com.twilio.video.StatsReport
 import com.twilio.video.TrackPriority
-import com.twilio.video.VideoFormat
 import com.twilio.video.app.R
+import com.twilio.video.app.data.Preferences.MAX_AUDIO_BITRATE
+import com.twilio.video.app.data.Preferences.MAX_AUDIO_BITRATE_DEFAULT
+import com.twilio.video.app.data.Preferences.MAX_VIDEO_BITRATE
+import com.twilio.video.app.data.Preferences.MAX_VIDEO_BITRATE_DEFAULT
 import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION
 import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION_DEFAULT
 import com.twilio.video.app.data.Preferences.VIDEO_DIMENSIONS
@@ -41,6 +46,20 @@ class LocalParticipantManager(
             roomManager.sendRoomEvent(if (value == null) AudioOff else AudioOn)
         }
     internal var localParticipant: LocalParticipant? = null
+        set(value) {
+            field = value
+            if (value != null) {
+                bitrateGovernor = BitrateGovernor(
+                        sharedPreferences.get(MAX_AUDIO_BITRATE, MAX_AUDIO_BITRATE_DEFAULT),
+                        sharedPreferences.get(MAX_VIDEO_BITRATE, MAX_VIDEO_BITRATE_DEFAULT))
+                thermalStatusMonitor.start()
+            } else {
+                bitrateGovernor = null
+                thermalStatusMonitor.stop()
+            }
+        }
+    private val thermalStatusMonitor = ThermalStatusMonitor(context)
+    private var bitrateGovernor: BitrateGovernor? = null
     private var cameraVideoTrack: LocalVideoTrack? = null
         set(value) {
             field = value
@@ -64,6 +83,18 @@ class LocalParticipantManager(
     private var isAudioMuted = false
     private var isVideoMuted = false
     internal val localVideoTrackNames: MutableMap<String, String> = HashMap()
+    internal val isLocalAudioEnabled get() = localAudioTrack?.isEnabled ?: false
+    internal val isLocalVideoEnabled get() = cameraVideoTrack?.isEnabled ?: false
+    private var captureLadder: CaptureLadder? = null
+    private var networkQualityLevel = NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+    private val cameraTrackSid: String?
+        get() = cameraVideoTrack?.let { cameraVideoTrack ->
+            localParticipant?.localVideoTracks?.find {
+                it.localVideoTrack === cameraVideoTrack
+            }?.trackSid
+        }
+    internal val captureState: CaptureState?
+        get() = captureLadder?.state(cameraTrackSid)
 
     fun onResume() {
         if (!isAudioMuted) setupLocalAudioTrack()
@@ -145,6 +176,60 @@ class LocalParticipantManager(
 
     fun switchCamera() = cameraCapturer?.switchCamera()
 
+    fun onNetworkQualityLevelChanged(networkQualityLevel: NetworkQualityLevel) {
+        this.networkQualityLevel = networkQualityLevel
+        captureLadder?.onNetworkQualityLevel(networkQualityLevel)
+    }
+
+    /*
+     * Feeds the uplink stats of the local video tracks to the bitrate governor and applies the
+     * encoding limits it settles on to the local participant.
+     */
+    fun adaptEncoding(
+        timestampMillis: Long,
+        statsReports: List<StatsReport>,
+        trackStats: Map<String, TrackStatsSummary>,
+        bandwidthEstimate: BandwidthEstimate,
+        remoteParticipantCount: Int
+    ) {
+        val bitrateGovernor = bitrateGovernor ?: return
+        var packetLossPercentage = 0f
+        var roundTripTimeMillis = 0L
+        statsReports.firstOrNull()?.localVideoTrackStats?.forEach { localVideoTrackStats ->
+            trackStats[localVideoTrackStats.trackSid]?.let { summary ->
+                packetLossPercentage = maxOf(packetLossPercentage, summary.packetLossPercentage)
+            }
+            roundTripTimeMillis = maxOf(roundTripTimeMillis, localVideoTrackStats.roundTripTime)
+        }
+        // The smoothed bitrate keeps single bursty samples from counting as a utilized limit
+        val sentVideoBitrate = bandwidthEstimate.outboundVideoBitrate
+        bitrateGovernor.onSample(BitrateGovernor.Sample(timestampMillis, sentVideoBitrate,
+                packetLossPercentage, roundTripTimeMillis, remoteParticipantCount,
+                thermalStatusMonitor.thermalStatus))?.let { limits ->
+            Timber.i("Changing encoding limits to %s", limits)
+            localParticipant?.setEncodingParameters(limits.toEncodingParameters())
+        }
+    }
+
+    /*
+     * Steps the camera capture format along the capture ladder according to the uplink stats of
+     * the camera track. The capturer changes its format in place, so the published track is kept.
+     */
+    fun adaptCapture(statsReports: List<StatsReport>, trackStats: Map<String, TrackStatsSummary>) {
+        val captureLadder = captureLadder ?: return
+        val trackSid = cameraTrackSid ?: return
+        val summary = trackStats[trackSid] ?: return
+        val cameraStats = statsReports.firstOrNull()?.localVideoTrackStats?.find {
+            it.trackSid == trackSid
+        } ?: return
+        captureLadder.onStats(summary.packetLossPercentage, cameraStats.roundTripTime,
+                summary.bitrate)?.let { step ->
+            Timber.i("Changing camera capture format from %s to %s, reason: %s",
+                    step.from, step.to, step.reason)
+            cameraCapturer?.changeCaptureFormat(step.to.width, step.to.height, step.to.framerate)
+        }
+    }
+
     private fun setupLocalAudioTrack() {
         if (localAudioTrack == null && !isAudioMuted) {
             localAudioTrack = createLocalAudioTrack(context, true, MICROPHONE_TRACK_NAME)
@@ -177,7 +262,11 @@ class LocalParticipantManager(
     private fun setupLocalVideoTrack() {
         val dimensionsIndex = sharedPreferences.get(VIDEO_CAPTURE_RESOLUTION,
                 VIDEO_CAPTURE_RESOLUTION_DEFAULT).toInt()
-        val videoFormat = VideoFormat(VIDEO_DIMENSIONS[dimensionsIndex], 30)
+        val captureLadder = CaptureLadder(VIDEO_DIMENSIONS, dimensionsIndex).apply {
+            onNetworkQualityLevel(networkQualityLevel)
+        }
+        this.captureLadder = captureLadder
+        val videoFormat = captureLadder.format.toVideoFormat()
 
         cameraCapturer = CameraCapturerCompat.newInstance(context)
         cameraVideoTrack = cameraCapturer?.let { cameraCapturer ->
@@ -202,6 +291,7 @@ class LocalParticipantManager(
             localVideoTrackNames.remove(cameraVideoTrack.name)
             cameraVideoTrack.release()
             this.cameraVideoTrack = null
+            captureLadder = null
         }
     }
 
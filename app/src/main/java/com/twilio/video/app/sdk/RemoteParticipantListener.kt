@@ -22,6 +22,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack switched off for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.callQualityDetector.onTrackSwitchedOff(remoteVideoTrack.sid, true)
         roomManager.sendRoomEvent(TrackSwitchOff(remoteParticipant.sid, remoteVideoTrack,
                 true))
     }
@@ -30,6 +31,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack switched on for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.callQualityDetector.onTrackSwitchedOff(remoteVideoTrack.sid, false)
         roomManager.sendRoomEvent(TrackSwitchOff(remoteParticipant.sid, remoteVideoTrack,
                 false))
     }
@@ -38,6 +40,11 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack subscribed for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.remoteTrackIndex.onTrackSubscribed(remoteParticipant.sid,
+                remoteParticipant.identity, remoteVideoTrackPublication.trackSid)
+        roomManager.callQualityDetector.onTrackSubscribed(remoteVideoTrackPublication.trackSid,
+                remoteVideoTrackPublication.isTrackEnabled,
+                remoteVideoTrack.name.contains(SCREEN_TRACK_NAME))
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME))
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, remoteVideoTrack))
         else
@@ -48,6 +55,9 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack unsubscribed for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.remoteTrackIndex.onTrackUnsubscribed(remoteParticipant.sid,
+                remoteVideoTrackPublication.trackSid)
+        roomManager.callQualityDetector.onTrackUnsubscribed(remoteVideoTrackPublication.trackSid)
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME))
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, null))
         else
@@ -66,6 +76,10 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack subscribed for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteAudioTrack.sid)
 
+        roomManager.remoteTrackIndex.onTrackSubscribed(remoteParticipant.sid,
+                remoteParticipant.identity, remoteAudioTrackPublication.trackSid)
+        roomManager.callQualityDetector.onTrackSubscribed(remoteAudioTrackPublication.trackSid,
+                remoteAudioTrackPublication.isTrackEnabled)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, false))
     }
 
@@ -73,6 +87,9 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack unsubscribed for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteAudioTrack.sid)
 
+        roomManager.remoteTrackIndex.onTrackUnsubscribed(remoteParticipant.sid,
+                remoteAudioTrackPublication.trackSid)
+        roomManager.callQualityDetector.onTrackUnsubscribed(remoteAudioTrackPublication.trackSid)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, true))
     }
 
@@ -94,6 +111,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack enabled for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteParticipant.sid)
 
+        roomManager.callQualityDetector.onTrackEnabled(remoteAudioTrackPublication.trackSid, true)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, false))
     }
 
@@ -101,6 +119,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack disabled for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteParticipant.sid)
 
+        roomManager.callQualityDetector.onTrackEnabled(remoteAudioTrackPublication.trackSid, false)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, true))
     }
 
@@ -108,9 +127,13 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
 
     override fun onVideoTrackPublished(remoteParticipant: RemoteParticipant, remoteVideoTrackPublication: RemoteVideoTrackPublication) {}
 
-    override fun onVideoTrackEnabled(remoteParticipant: RemoteParticipant, remoteVideoTrackPublication: RemoteVideoTrackPublication) {}
+    override fun onVideoTrackEnabled(remoteParticipant: RemoteParticipant, remoteVideoTrackPublication: RemoteVideoTrackPublication) {
+        roomManager.callQualityDetector.onTrackEnabled(remoteVideoTrackPublication.trackSid, true)
+    }
 
-    override fun onVideoTrackDisabled(remoteParticipant: RemoteParticipant, remoteVideoTrackPublication: RemoteVideoTrackPublication) {}
+    override fun onVideoTrackDisabled(remoteParticipant: RemoteParticipant, remoteVideoTrackPublication: RemoteVideoTrackPublication) {
+        roomManager.callQualityDetector.onTrackEnabled(remoteVideoTrackPublication.trackSid, false)
+    }
 
     override fun onDataTrackSubscriptionFailed(remoteParticipant: RemoteParticipant, remoteDataTrackPublication: RemoteDataTrackPublication, twilioException: TwilioException) {}
 
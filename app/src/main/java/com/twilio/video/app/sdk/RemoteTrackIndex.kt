@@ -0,0 +1,63 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteParticipant
+import java.util.concurrent.ConcurrentHashMap
+
+/*
+ * Maps the sids of subscribed remote tracks to the identity of the participant that published
+ * them. It is maintained incrementally from the RemoteParticipant.Listener subscription callbacks
+ * so resolving the participant of a track is a single lookup. Lookups may happen on any thread.
+ */
+class RemoteTrackIndex {
+
+    private val identities = ConcurrentHashMap<String, String>()
+    private val participantTracks = HashMap<String, MutableSet<String>>()
+
+    val size get() = identities.size
+
+    fun identityOf(trackSid: String): String? = identities[trackSid]
+
+    /*
+     * Indexes the tracks the participant is already subscribed to, e.g. when joining a room.
+     */
+    fun addParticipant(remoteParticipant: RemoteParticipant) {
+        remoteParticipant.remoteAudioTracks.forEach { publication ->
+            if (publication.isTrackSubscribed) {
+                onTrackSubscribed(remoteParticipant.sid, remoteParticipant.identity,
+                        publication.trackSid)
+            }
+        }
+        remoteParticipant.remoteVideoTracks.forEach { publication ->
+            if (publication.isTrackSubscribed) {
+                onTrackSubscribed(remoteParticipant.sid, remoteParticipant.identity,
+                        publication.trackSid)
+            }
+        }
+    }
+
+    @Synchronized
+    fun onTrackSubscribed(participantSid: String, identity: String, trackSid: String) {
+        identities[trackSid] = identity
+        participantTracks.getOrPut(participantSid) { HashSet() }.add(trackSid)
+    }
+
+    @Synchronized
+    fun onTrackUnsubscribed(participantSid: String, trackSid: String) {
+        identities.remove(trackSid)
+        participantTracks[participantSid]?.let { trackSids ->
+            trackSids.remove(trackSid)
+            if (trackSids.isEmpty()) participantTracks.remove(participantSid)
+        }
+    }
+
+    @Synchronized
+    fun removeParticipant(participantSid: String) {
+        participantTracks.remove(participantSid)?.forEach { identities.remove(it) }
+    }
+
+    @Synchronized
+    fun clear() {
+        identities.clear()
+        participantTracks.clear()
+    }
+}
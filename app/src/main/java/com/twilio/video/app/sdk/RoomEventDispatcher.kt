@@ -0,0 +1,159 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ClosedReceiveChannelException
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.selects.select
+import timber.log.Timber
+
+const val DEFAULT_ROOM_EVENT_CAPACITY = 512
+
+/*
+ * Queue between the Video SDK listeners and the RoomEvent consumer. Events are enqueued from any
+ * thread without launching a coroutine per event and are delivered one at a time by a single
+ * consumer coroutine.
+ *
+ * Only sampled events, stats and network quality levels, are bounded by the capacity, and the
+ * overflow policy decides which of them is discarded when the queue is full. They are superseded by
+ * the next sample anyway. All other events are never dropped: connection state and participant
+ * joins, leaves, tracks and mutes describe the structure of the room, and losing one would leave
+ * the participants out of sync for the rest of the call. Call quality events are reported once
+ * when an anomaly starts and once when it is recovered from, so losing one would lose the warning
+ * or never clear it. Events that are never dropped are delivered in dispatch order and ahead of
+ * queued sampled events, so a sample is never observed before the participant it refers to.
+ */
+class RoomEventDispatcher(
+    scope: CoroutineScope,
+    private val capacity: Int = DEFAULT_ROOM_EVENT_CAPACITY,
+    private val overflowPolicy: OverflowPolicy = OverflowPolicy.DROP_OLDEST,
+    private val consumer: suspend (RoomEvent) -> Unit
+) {
+
+    enum class OverflowPolicy(val bufferOverflow: BufferOverflow) {
+        /** Discard the oldest queued sampled event to make room for the new one. */
+        DROP_OLDEST(BufferOverflow.DROP_OLDEST),
+        /** Discard the new sampled event and keep the queued ones. */
+        DROP_LATEST(BufferOverflow.DROP_LATEST)
+    }
+
+    data class Metrics(
+        val queueDepth: Int,
+        val maxQueueDepth: Int,
+        val dispatchedEvents: Long,
+        val droppedEvents: Long
+    )
+
+    private val structuralEvents = Channel<RoomEvent>(Channel.UNLIMITED)
+    private val sampledEvents: Channel<RoomEvent>
+    private val structuralDepth = AtomicInteger()
+    private val sampledDepth = AtomicInteger()
+    private val maxQueueDepth = AtomicInteger()
+    private val dispatchedEvents = AtomicLong()
+    private val droppedEvents = AtomicLong()
+
+    val metrics: Metrics
+        get() = Metrics(structuralDepth.get() + sampledDepth.get(), maxQueueDepth.get(),
+                dispatchedEvents.get(), droppedEvents.get())
+
+    init {
+        require(capacity > 0) { "capacity must be greater than 0 but was $capacity" }
+        sampledEvents = Channel(capacity, overflowPolicy.bufferOverflow)
+        scope.launch {
+            try {
+                while (true) {
+                    /*
+                     * select is biased towards its first clause, which keeps structural events
+                     * ahead of the sampled ones.
+                     */
+                    val roomEvent = select<RoomEvent> {
+                        structuralEvents.onReceive { roomEvent ->
+                            structuralDepth.decrementAndGet()
+                            roomEvent
+                        }
+                        sampledEvents.onReceive { roomEvent ->
+                            sampledDepth.decrementAndGet()
+                            roomEvent
+                        }
+                    }
+                    consumer(roomEvent)
+                }
+            } catch (e: ClosedReceiveChannelException) {
+                Timber.d("RoomEvent dispatcher closed")
+            }
+        }
+    }
+
+    fun dispatch(roomEvent: RoomEvent) {
+        if (isSampled(roomEvent)) dispatchSampled(roomEvent) else dispatchStructural(roomEvent)
+    }
+
+    fun close() {
+        structuralEvents.close()
+        sampledEvents.close()
+    }
+
+    private fun dispatchStructural(roomEvent: RoomEvent) {
+        if (structuralEvents.isClosedForSend) {
+            onDropped(roomEvent)
+            return
+        }
+        val depth = structuralDepth.incrementAndGet()
+        if (structuralEvents.offer(roomEvent)) {
+            dispatchedEvents.incrementAndGet()
+            updateMaxQueueDepth(depth + sampledDepth.get())
+        } else {
+            structuralDepth.decrementAndGet()
+            onDropped(roomEvent)
+        }
+    }
+
+    /*
+     * The channel enforces the capacity on its own. The depth counter only mirrors it for the
+     * metrics, a send past the capacity means the channel discarded one event.
+     */
+    private fun dispatchSampled(roomEvent: RoomEvent) {
+        if (sampledEvents.isClosedForSend) {
+            onDropped(roomEvent)
+            return
+        }
+        val depth = sampledDepth.incrementAndGet()
+        if (!sampledEvents.offer(roomEvent)) {
+            sampledDepth.decrementAndGet()
+            onDropped(roomEvent)
+            return
+        }
+        if (depth > capacity) {
+            sampledDepth.decrementAndGet()
+            if (overflowPolicy == OverflowPolicy.DROP_LATEST) {
+                onDropped(roomEvent)
+                return
+            }
+            droppedEvents.incrementAndGet()
+            Timber.w("Dropped the oldest sampled RoomEvent (capacity %d)", capacity)
+        }
+        dispatchedEvents.incrementAndGet()
+        updateMaxQueueDepth(minOf(depth, capacity) + structuralDepth.get())
+    }
+
+    private fun isSampled(roomEvent: RoomEvent) =
+            roomEvent is StatsUpdate || roomEvent is NetworkQualityLevelChange
+
+    private fun onDropped(roomEvent: RoomEvent) {
+        droppedEvents.incrementAndGet()
+        Timber.w("Dropped RoomEvent (capacity %d): %s", capacity, roomEvent)
+    }
+
+    private fun updateMaxQueueDepth(depth: Int) {
+        var currentMax = maxQueueDepth.get()
+        while (depth > currentMax && !maxQueueDepth.compareAndSet(currentMax, depth)) {
+            currentMax = maxQueueDepth.get()
+        }
+    }
+}
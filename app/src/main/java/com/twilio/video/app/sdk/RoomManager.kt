@@ -3,6 +3,7 @@ package com.twilio.video.app.sdk
 import android.content.Context
 import android.content.Intent
 import android.content.SharedPreferences
+import android.os.SystemClock
 import androidx.annotation.VisibleForTesting
 import androidx.annotation.VisibleForTesting.PRIVATE
 import com.twilio.video.Participant
@@ -11,8 +12,11 @@ import com.twilio.video.Room
 import com.twilio.video.StatsReport
 import com.twilio.video.TwilioException
 import com.twilio.video.TwilioException.ROOM_MAX_PARTICIPANTS_EXCEEDED_EXCEPTION
+import com.twilio.video.app.data.Preferences.RECORD_STATS
+import com.twilio.video.app.data.Preferences.RECORD_STATS_DEFAULT
 import com.twilio.video.app.data.api.AuthServiceError
 import com.twilio.video.app.data.api.AuthServiceException
+import com.twilio.video.app.sdk.RoomEventDispatcher.OverflowPolicy
 import com.twilio.video.app.ui.room.RoomEvent
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -27,9 +31,13 @@ import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParti
 import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.VideoService.Companion.startService
 import com.twilio.video.app.ui.room.VideoService.Companion.stopService
+import com.twilio.video.app.util.Ticker
+import com.twilio.video.app.util.get
+import java.io.File
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.launch
@@ -42,8 +50,12 @@ const val SCREEN_TRACK_NAME = "screen"
 class RoomManager(
     private val context: Context,
     private val videoClient: VideoClient,
-    sharedPreferences: SharedPreferences,
-    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val sharedPreferences: SharedPreferences,
+    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    roomEventCapacity: Int = DEFAULT_ROOM_EVENT_CAPACITY,
+    roomEventOverflowPolicy: OverflowPolicy = OverflowPolicy.DROP_OLDEST,
+    private val ticker: Ticker = Ticker(CoroutineScope(SupervisorJob() + coroutineDispatcher)),
+    val bandwidthEstimator: BandwidthEstimator = BandwidthEstimator()
 ) {
 
     private var statsScheduler: StatsScheduler? = null
@@ -52,10 +64,20 @@ class RoomManager(
     internal var roomScope = CoroutineScope(coroutineDispatcher)
     private val mutableRoomEvents: MutableSharedFlow<RoomEvent> = MutableSharedFlow()
     val roomEvents: SharedFlow<RoomEvent> = mutableRoomEvents
+    private val roomEventDispatcher = RoomEventDispatcher(roomScope, roomEventCapacity,
+            roomEventOverflowPolicy) { mutableRoomEvents.emit(it) }
+    val roomEventMetrics: RoomEventDispatcher.Metrics get() = roomEventDispatcher.metrics
     @VisibleForTesting(otherwise = PRIVATE)
     internal var localParticipantManager: LocalParticipantManager =
             LocalParticipantManager(context, this, sharedPreferences)
     var room: Room? = null
+    val remoteTrackIndex = RemoteTrackIndex()
+    val trackStatsHistory = TrackStatsHistory()
+    val callQualityDetector = CallQualityDetector()
+    private val statsDemands = StatsDemands { statsScheduler?.reschedule() }
+    private var statsRecorder: StatsRecorder? = null
+    private var statsRecordDemand: StatsDemand? = null
+    private val connectedStatsDemands = ArrayList<StatsDemand>()
 
     fun disconnect() {
         room?.disconnect()
@@ -79,8 +101,8 @@ class RoomManager(
     }
 
     fun sendRoomEvent(roomEvent: RoomEvent) {
-        Timber.d("sendRoomEvent: $roomEvent")
-        roomScope.launch { mutableRoomEvents.emit(roomEvent) }
+        Timber.d("sendRoomEvent: %s", roomEvent)
+        roomEventDispatcher.dispatch(roomEvent)
     }
 
     private fun handleTokenException(e: Exception, error: AuthServiceError? = null): Room? {
@@ -115,17 +137,79 @@ class RoomManager(
 
     fun switchCamera() = localParticipantManager.switchCamera()
 
+    /*
+     * Room stats are only gathered while at least one consumer demands them. The returned demand
+     * must be cancelled once the consumer no longer needs stats.
+     */
+    fun requestStats(intervalMillis: Long, isVisible: Boolean = true): StatsDemand =
+            statsDemands.request(intervalMillis, isVisible)
+
     fun sendStatsUpdate(statsReports: List<StatsReport>) {
         room?.let { room ->
+            val timestampMillis = SystemClock.elapsedRealtime()
+            val trackStats = trackStatsHistory.record(timestampMillis, statsReports)
+            callQualityDetector.detect(statsReports, trackStats,
+                    localParticipantManager.isLocalAudioEnabled,
+                    localParticipantManager.isLocalVideoEnabled).forEach { sendRoomEvent(it) }
+            val bandwidthEstimate = bandwidthEstimator.update(timestampMillis, statsReports,
+                    trackStats)
+            localParticipantManager.adaptCapture(statsReports, trackStats)
+            localParticipantManager.adaptEncoding(timestampMillis, statsReports, trackStats,
+                    bandwidthEstimate, room.remoteParticipants.size)
             val roomStats = RoomStats(
-                    room.remoteParticipants,
+                    remoteTrackIndex,
                     localParticipantManager.localVideoTrackNames,
-                    statsReports
+                    statsReports,
+                    trackStats,
+                    localParticipantManager.captureState,
+                    bandwidthEstimate
             )
+            statsRecorder?.record(System.currentTimeMillis(), statsReports)
             sendRoomEvent(StatsUpdate(roomStats))
         }
     }
 
+    /*
+     * The in-call consumers of the stats demand them at their own rate for as long as the room is
+     * connected, so they keep adapting when the stats UI is disabled or hidden. The capture ladder
+     * counts its streaks in samples, the bitrate governor backs off thermal and bandwidth
+     * pressure per sample and the call quality detector flags freezes and dropouts after a number
+     * of samples, so all of them need samples at the visible rate.
+     */
+    private fun requestConnectedStats() {
+        cancelConnectedStats()
+        connectedStatsDemands += requestStats(CAPTURE_ADAPTATION_STATS_INTERVAL_MILLIS)
+        connectedStatsDemands += requestStats(ENCODING_ADAPTATION_STATS_INTERVAL_MILLIS)
+        connectedStatsDemands += requestStats(CALL_QUALITY_STATS_INTERVAL_MILLIS)
+    }
+
+    private fun cancelConnectedStats() {
+        connectedStatsDemands.forEach { it.cancel() }
+        connectedStatsDemands.clear()
+    }
+
+    /*
+     * Records the stats of the call to app storage. Recording demands stats at
+     * STATS_RECORD_INTERVAL_MILLIS regardless of whether the stats panel is shown.
+     */
+    private fun startStatsRecorder() {
+        stopStatsRecorder()
+        val writer = StatsRecordWriter(File(context.filesDir, STATS_RECORD_DIRECTORY))
+        statsRecorder = StatsRecorder(roomScope, writer)
+        statsRecordDemand = requestStats(STATS_RECORD_INTERVAL_MILLIS)
+    }
+
+    private fun stopStatsRecorder() {
+        statsRecordDemand?.cancel()
+        statsRecordDemand = null
+        statsRecorder?.let { statsRecorder ->
+            Timber.d("Stopped recording stats, %d records dropped",
+                    statsRecorder.droppedRecordCount)
+            statsRecorder.close()
+        }
+        statsRecorder = null
+    }
+
     fun enableLocalAudio() = localParticipantManager.enableLocalAudio()
 
     fun disableLocalAudio() = localParticipantManager.disableLocalAudio()
@@ -143,7 +227,12 @@ class RoomManager(
 
             setupParticipants(room)
 
-            statsScheduler = StatsScheduler(this@RoomManager, room).apply { start() }
+            statsScheduler = StatsScheduler(this@RoomManager, room, statsDemands, ticker).apply {
+                isRoomIdle = room.remoteParticipants.isEmpty()
+                start()
+            }
+            requestConnectedStats()
+            if (sharedPreferences.get(RECORD_STATS, RECORD_STATS_DEFAULT)) startStatsRecorder()
             this@RoomManager.room = room
         }
 
@@ -156,9 +245,15 @@ class RoomManager(
             sendRoomEvent(Disconnected)
 
             localParticipantManager.localParticipant = null
+            remoteTrackIndex.clear()
+            trackStatsHistory.clear()
+            callQualityDetector.clear()
+            bandwidthEstimator.reset()
 
             statsScheduler?.stop()
             statsScheduler = null
+            cancelConnectedStats()
+            stopStatsRecorder()
         }
 
         override fun onConnectFailure(room: Room, twilioException: TwilioException) {
@@ -181,6 +276,8 @@ class RoomManager(
                     room.sid, remoteParticipant.sid)
 
             remoteParticipant.setListener(RemoteParticipantListener(this@RoomManager))
+            remoteTrackIndex.addParticipant(remoteParticipant)
+            statsScheduler?.isRoomIdle = false
             sendRoomEvent(RemoteParticipantConnected(remoteParticipant))
         }
 
@@ -188,6 +285,15 @@ class RoomManager(
             Timber.i("RemoteParticipant disconnected -> room sid: %s, remoteParticipant: %s",
                     room.sid, remoteParticipant.sid)
 
+            remoteTrackIndex.removeParticipant(remoteParticipant.sid)
+            remoteParticipant.remoteAudioTracks.forEach {
+                callQualityDetector.onTrackUnsubscribed(it.trackSid)
+            }
+            remoteParticipant.remoteVideoTracks.forEach {
+                callQualityDetector.onTrackUnsubscribed(it.trackSid)
+            }
+            // No media is exchanged while the local participant is alone in the room
+            statsScheduler?.isRoomIdle = room.remoteParticipants.isEmpty()
             sendRoomEvent(RemoteParticipantDisconnected(remoteParticipant.sid))
         }
 
@@ -219,6 +325,7 @@ class RoomManager(
 
                 room.remoteParticipants.forEach {
                     it.setListener(RemoteParticipantListener(this@RoomManager))
+                    remoteTrackIndex.addParticipant(it)
                     participants.add(it)
                 }
 
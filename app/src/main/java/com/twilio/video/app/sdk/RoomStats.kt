@@ -1,10 +1,12 @@
 package com.twilio.video.app.sdk
 
-import com.twilio.video.RemoteParticipant
 import com.twilio.video.StatsReport
 
 data class RoomStats(
-    val remoteParticipants: List<RemoteParticipant>,
+    val remoteTrackIndex: RemoteTrackIndex,
     val localVideoTrackNames: Map<String, String>,
-    val statsReports: List<StatsReport>? = null
+    val statsReports: List<StatsReport>? = null,
+    val trackStats: Map<String, TrackStatsSummary> = emptyMap(),
+    val captureState: CaptureState? = null,
+    val bandwidthEstimate: BandwidthEstimate? = null
 )
@@ -0,0 +1,70 @@
+package com.twilio.video.app.sdk
+
+import java.util.concurrent.CopyOnWriteArraySet
+
+const val STATS_UI_INTERVAL_MILLIS = 1000L
+const val HIDDEN_STATS_INTERVAL_MILLIS = 5000L
+
+/*
+ * Requirement of one consumer, such as the stats UI, a recorder or an adaptation controller, to
+ * receive stats at least every intervalMillis. A consumer whose output is not visible to the user
+ * is served at most every HIDDEN_STATS_INTERVAL_MILLIS. The demand must be cancelled once the
+ * consumer no longer needs stats.
+ */
+class StatsDemand internal constructor(
+    private val statsDemands: StatsDemands,
+    intervalMillis: Long,
+    isVisible: Boolean
+) {
+
+    @Volatile
+    var intervalMillis = intervalMillis
+        set(value) {
+            require(value > 0) { "intervalMillis must be greater than 0 but was $value" }
+            field = value
+            statsDemands.onDemandChanged()
+        }
+
+    @Volatile
+    var isVisible = isVisible
+        set(value) {
+            if (field != value) {
+                field = value
+                statsDemands.onDemandChanged()
+            }
+        }
+
+    internal val effectiveIntervalMillis: Long
+        get() = if (isVisible) intervalMillis else maxOf(intervalMillis, HIDDEN_STATS_INTERVAL_MILLIS)
+
+    fun cancel() = statsDemands.remove(this)
+}
+
+/*
+ * The active stats demands of all consumers. The stats interval is the shortest interval required
+ * by any consumer, or null if there is no demand at all. The change listener is invoked on the
+ * thread that changed a demand.
+ */
+class StatsDemands(private val onChanged: () -> Unit = {}) {
+
+    private val demands = CopyOnWriteArraySet<StatsDemand>()
+
+    val isEmpty get() = demands.isEmpty()
+
+    val intervalMillis: Long?
+        get() = demands.minOfOrNull { it.effectiveIntervalMillis }
+
+    fun request(intervalMillis: Long, isVisible: Boolean = true): StatsDemand {
+        require(intervalMillis > 0) { "intervalMillis must be greater than 0 but was $intervalMillis" }
+        return StatsDemand(this, intervalMillis, isVisible).also {
+            demands.add(it)
+            onChanged()
+        }
+    }
+
+    internal fun remove(statsDemand: StatsDemand) {
+        if (demands.remove(statsDemand)) onChanged()
+    }
+
+    internal fun onDemandChanged() = onChanged()
+}
@@ -0,0 +1,141 @@
+package com.twilio.video.app.sdk
+
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.io.OutputStreamWriter
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+data class TrackRecord(
+    val kind: Byte,
+    val trackSid: String,
+    val codec: String,
+    val bytes: Long,
+    val packets: Int,
+    val packetsLost: Int,
+    val roundTripTime: Long,
+    val jitter: Int,
+    val audioLevel: Int,
+    val frameRate: Int,
+    val width: Int,
+    val height: Int
+)
+
+data class StatsRecord(val timestampMillis: Long, val tracks: List<TrackRecord>)
+
+/*
+ * Reads the files written by StatsRecordWriter. It only depends on the JVM so recordings pulled
+ * from a device can be converted on a workstation, e.g. with
+ *
+ *   java -cp <classes> com.twilio.video.app.sdk.StatsRecordReader <directory> > stats.csv
+ *
+ * A record truncated by the app being killed mid-write ends the file without an error.
+ */
+object StatsRecordReader {
+
+    const val CSV_HEADER = "timestamp_millis,kind,track_sid,codec,bytes,packets,packets_lost," +
+            "round_trip_time,jitter,audio_level,frame_rate,width,height"
+
+    fun read(file: File): List<StatsRecord> {
+        val records = ArrayList<StatsRecord>()
+        forEachRecord(file) { records.add(it) }
+        return records
+    }
+
+    fun forEachRecord(file: File, action: (StatsRecord) -> Unit) {
+        FileInputStream(file).use { inputStream ->
+            val channel = inputStream.channel
+            val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+            if (buffer.remaining() < STATS_RECORD_FILE_HEADER_BYTES) return
+            if (buffer.int != STATS_RECORD_MAGIC) throw IOException("$file is not a stats record")
+            val version = buffer.short
+            if (version != STATS_RECORD_VERSION) {
+                throw IOException("Unsupported stats record version $version in $file")
+            }
+            while (buffer.remaining() >= 4) {
+                val length = buffer.int
+                if (length < 0 || length > buffer.remaining()) return
+                val record = buffer.slice()
+                record.limit(length)
+                buffer.position(buffer.position() + length)
+                action(readRecord(record) ?: return)
+            }
+        }
+    }
+
+    fun writeCsv(files: List<File>, output: Appendable) {
+        output.append(CSV_HEADER).append('\n')
+        files.forEach { file ->
+            forEachRecord(file) { record ->
+                record.tracks.forEach { track ->
+                    output.append(record.timestampMillis.toString()).append(',')
+                            .append(kindName(track.kind)).append(',')
+                            .append(track.trackSid).append(',')
+                            .append(track.codec).append(',')
+                            .append(track.bytes.toString()).append(',')
+                            .append(track.packets.toString()).append(',')
+                            .append(track.packetsLost.toString()).append(',')
+                            .append(track.roundTripTime.toString()).append(',')
+                            .append(track.jitter.toString()).append(',')
+                            .append(track.audioLevel.toString()).append(',')
+                            .append(track.frameRate.toString()).append(',')
+                            .append(track.width.toString()).append(',')
+                            .append(track.height.toString()).append('\n')
+                }
+            }
+        }
+    }
+
+    /*
+     * Converts the stats record files of a directory, or the given files, to CSV on stdout.
+     */
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val files = args.map { File(it) }.flatMap { file ->
+            if (file.isDirectory) statsRecordFiles(file) else listOf(file)
+        }
+        val output = OutputStreamWriter(System.out, Charsets.UTF_8).buffered()
+        writeCsv(files, output)
+        output.flush()
+    }
+
+    fun kindName(kind: Byte) = when (kind) {
+        TRACK_KIND_LOCAL_AUDIO -> "local_audio"
+        TRACK_KIND_LOCAL_VIDEO -> "local_video"
+        TRACK_KIND_REMOTE_AUDIO -> "remote_audio"
+        TRACK_KIND_REMOTE_VIDEO -> "remote_video"
+        else -> "unknown"
+    }
+
+    private fun readRecord(buffer: ByteBuffer): StatsRecord? = try {
+        val timestampMillis = buffer.long
+        val trackCount = buffer.int
+        val tracks = ArrayList<TrackRecord>(trackCount.coerceIn(0, buffer.remaining()))
+        repeat(trackCount) {
+            tracks.add(TrackRecord(
+                    kind = buffer.get(),
+                    trackSid = readString(buffer),
+                    codec = readString(buffer),
+                    bytes = buffer.long,
+                    packets = buffer.int,
+                    packetsLost = buffer.int,
+                    roundTripTime = buffer.long,
+                    jitter = buffer.int,
+                    audioLevel = buffer.int,
+                    frameRate = buffer.int,
+                    width = buffer.int,
+                    height = buffer.int))
+        }
+        StatsRecord(timestampMillis, tracks)
+    } catch (e: BufferUnderflowException) {
+        null
+    }
+
+    private fun readString(buffer: ByteBuffer): String {
+        val bytes = ByteArray(buffer.short.toInt())
+        buffer.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+}
@@ -0,0 +1,276 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.BaseTrackStats
+import com.twilio.video.StatsReport
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Locale
+
+const val STATS_RECORD_MAGIC = 0x54565352 // "TVSR"
+const val STATS_RECORD_VERSION: Short = 1
+const val STATS_RECORD_FILE_PREFIX = "stats-"
+const val STATS_RECORD_FILE_SUFFIX = ".tvsr"
+const val STATS_RECORD_FILE_HEADER_BYTES = 6
+
+const val TRACK_KIND_LOCAL_AUDIO: Byte = 0
+const val TRACK_KIND_LOCAL_VIDEO: Byte = 1
+const val TRACK_KIND_REMOTE_AUDIO: Byte = 2
+const val TRACK_KIND_REMOTE_VIDEO: Byte = 3
+
+const val DEFAULT_STATS_RECORD_MAX_FILE_BYTES = 4L * 1024 * 1024
+const val DEFAULT_STATS_RECORD_MAX_FILES = 4
+const val DEFAULT_STATS_RECORD_BUFFER_BYTES = 64 * 1024
+const val DEFAULT_STATS_RECORD_FLUSH_INTERVAL_MILLIS = 5000L
+
+/*
+ * Writes stats reports to a bounded set of rotating files in a compact binary format. Records are
+ * encoded into a reusable buffer and written to the file channel through a direct buffer, which is
+ * flushed when it is full, when flushIntervalMillis passed since the last flush, on rotation and
+ * on close. A file is rotated before a record would make it exceed maxFileBytes, and the oldest
+ * files are deleted so the directory never holds more than maxFiles of them.
+ *
+ * Every file starts with the magic number and the format version. It is followed by records of:
+ *   int     length of the record after this field
+ *   long    timestamp in milliseconds since the epoch
+ *   int     track count
+ * and per track, with the local tracks taken from the first report only since every peer
+ * connection reports them:
+ *   byte    track kind, one of the TRACK_KIND constants
+ *   short   length and UTF-8 bytes of the track sid
+ *   short   length and UTF-8 bytes of the codec
+ *   long    bytes sent or received
+ *   int     packets sent or received
+ *   int     packets lost
+ *   long    round trip time, zero for remote tracks
+ *   int     jitter, zero for video tracks
+ *   int     audio level, zero for video tracks
+ *   int     frame rate, zero for audio tracks
+ *   int     width, zero for audio tracks
+ *   int     height, zero for audio tracks
+ *
+ * Not thread safe, writes are blocking and must not happen on the main thread.
+ */
+class StatsRecordWriter(
+    private val directory: File,
+    private val maxFileBytes: Long = DEFAULT_STATS_RECORD_MAX_FILE_BYTES,
+    private val maxFiles: Int = DEFAULT_STATS_RECORD_MAX_FILES,
+    bufferBytes: Int = DEFAULT_STATS_RECORD_BUFFER_BYTES,
+    private val flushIntervalMillis: Long = DEFAULT_STATS_RECORD_FLUSH_INTERVAL_MILLIS
+) {
+
+    private val writeBuffer = ByteBuffer.allocateDirect(bufferBytes)
+    private var recordBuffer = ByteBuffer.allocate(bufferBytes)
+    private val encodedStrings = HashMap<String, ByteArray>()
+    private var fileChannel: FileChannel? = null
+    private var fileBytes = 0L
+    private var nextSequence = -1
+    private var lastFlushMillis = 0L
+
+    var writtenRecords = 0L
+        private set
+    var writtenBytes = 0L
+        private set
+
+    init {
+        require(maxFileBytes > STATS_RECORD_FILE_HEADER_BYTES) {
+            "maxFileBytes must be greater than the file header but was $maxFileBytes"
+        }
+        require(maxFiles > 0) { "maxFiles must be greater than 0 but was $maxFiles" }
+    }
+
+    fun write(timestampMillis: Long, statsReports: List<StatsReport>) {
+        val record = encode(timestampMillis, statsReports)
+        val recordBytes = record.remaining()
+        // A record larger than maxFileBytes still goes to a file of its own
+        val isFileFull = fileBytes + recordBytes > maxFileBytes &&
+                fileBytes > STATS_RECORD_FILE_HEADER_BYTES
+        val channel = fileChannel?.takeUnless { isFileFull } ?: rotate()
+        if (writeBuffer.remaining() < recordBytes) flush()
+        if (recordBytes > writeBuffer.capacity()) {
+            while (record.hasRemaining()) channel.write(record)
+        } else {
+            writeBuffer.put(record)
+        }
+        fileBytes += recordBytes
+        writtenBytes += recordBytes
+        writtenRecords++
+        if (timestampMillis - lastFlushMillis >= flushIntervalMillis) {
+            flush()
+            lastFlushMillis = timestampMillis
+        }
+    }
+
+    fun flush() {
+        val channel = fileChannel ?: return
+        writeBuffer.flip()
+        while (writeBuffer.hasRemaining()) channel.write(writeBuffer)
+        writeBuffer.clear()
+    }
+
+    fun close() {
+        flush()
+        fileChannel?.close()
+        fileChannel = null
+    }
+
+    /*
+     * Encodes the record into the record buffer, growing it if the record does not fit.
+     */
+    private fun encode(timestampMillis: Long, statsReports: List<StatsReport>): ByteBuffer {
+        while (true) {
+            val buffer = recordBuffer
+            buffer.clear()
+            if (tryEncode(buffer, timestampMillis, statsReports)) {
+                buffer.flip()
+                return buffer
+            }
+            recordBuffer = ByteBuffer.allocate(buffer.capacity() * 2)
+        }
+    }
+
+    private fun tryEncode(
+        buffer: ByteBuffer,
+        timestampMillis: Long,
+        statsReports: List<StatsReport>
+    ): Boolean {
+        if (buffer.remaining() < 16) return false
+        buffer.position(4)
+        buffer.putLong(timestampMillis)
+        val trackCountPosition = buffer.position()
+        buffer.putInt(0)
+        var trackCount = 0
+        statsReports.firstOrNull()?.let { report ->
+            // Local tracks are reported for every peer connection, only record them once
+            val localAudioTrackStats = report.localAudioTrackStats
+            for (i in 0 until localAudioTrackStats.size) {
+                val stats = localAudioTrackStats[i]
+                if (!putTrack(buffer, TRACK_KIND_LOCAL_AUDIO, stats, stats.bytesSent,
+                                stats.packetsSent, stats.roundTripTime, stats.jitter,
+                                stats.audioLevel, 0, 0, 0)) {
+                    return false
+                }
+                trackCount++
+            }
+            val localVideoTrackStats = report.localVideoTrackStats
+            for (i in 0 until localVideoTrackStats.size) {
+                val stats = localVideoTrackStats[i]
+                if (!putTrack(buffer, TRACK_KIND_LOCAL_VIDEO, stats, stats.bytesSent,
+                                stats.packetsSent, stats.roundTripTime, 0, 0, stats.frameRate,
+                                stats.dimensions.width, stats.dimensions.height)) {
+                    return false
+                }
+                trackCount++
+            }
+        }
+        for (reportIndex in 0 until statsReports.size) {
+            val report = statsReports[reportIndex]
+            val remoteAudioTrackStats = report.remoteAudioTrackStats
+            for (i in 0 until remoteAudioTrackStats.size) {
+                val stats = remoteAudioTrackStats[i]
+                if (!putTrack(buffer, TRACK_KIND_REMOTE_AUDIO, stats, stats.bytesReceived,
+                                stats.packetsReceived, 0, stats.jitter, stats.audioLevel, 0, 0,
+                                0)) {
+                    return false
+                }
+                trackCount++
+            }
+            val remoteVideoTrackStats = report.remoteVideoTrackStats
+            for (i in 0 until remoteVideoTrackStats.size) {
+                val stats = remoteVideoTrackStats[i]
+                if (!putTrack(buffer, TRACK_KIND_REMOTE_VIDEO, stats, stats.bytesReceived,
+                                stats.packetsReceived, 0, 0, 0, stats.frameRate,
+                                stats.dimensions.width, stats.dimensions.height)) {
+                    return false
+                }
+                trackCount++
+            }
+        }
+        buffer.putInt(0, buffer.position() - 4)
+        buffer.putInt(trackCountPosition, trackCount)
+        return true
+    }
+
+    private fun putTrack(
+        buffer: ByteBuffer,
+        kind: Byte,
+        stats: BaseTrackStats,
+        bytes: Long,
+        packets: Int,
+        roundTripTime: Long,
+        jitter: Int,
+        audioLevel: Int,
+        frameRate: Int,
+        width: Int,
+        height: Int
+    ): Boolean {
+        val trackSid = encodedString(stats.trackSid)
+        val codec = encodedString(stats.codec)
+        if (buffer.remaining() < 1 + 2 + trackSid.size + 2 + codec.size + 44) return false
+        buffer.put(kind)
+        buffer.putShort(trackSid.size.toShort())
+        buffer.put(trackSid)
+        buffer.putShort(codec.size.toShort())
+        buffer.put(codec)
+        buffer.putLong(bytes)
+        buffer.putInt(packets)
+        buffer.putInt(stats.packetsLost)
+        buffer.putLong(roundTripTime)
+        buffer.putInt(jitter)
+        buffer.putInt(audioLevel)
+        buffer.putInt(frameRate)
+        buffer.putInt(width)
+        buffer.putInt(height)
+        return true
+    }
+
+    /*
+     * Track sids and codecs repeat in every record, so their encoding is cached.
+     */
+    private fun encodedString(value: String?): ByteArray {
+        if (value == null) return EMPTY_BYTES
+        return encodedStrings.getOrPut(value) { value.toByteArray(Charsets.UTF_8) }
+    }
+
+    private fun rotate(): FileChannel {
+        close()
+        directory.mkdirs()
+        val files = statsRecordFiles(directory)
+        if (nextSequence < 0) {
+            nextSequence = files.lastOrNull()?.let { statsRecordSequence(it) + 1 } ?: 0
+        }
+        // Keep maxFiles - 1 existing files next to the new one
+        files.take((files.size - maxFiles + 1).coerceAtLeast(0)).forEach { it.delete() }
+        val file = File(directory, statsRecordFileName(nextSequence++))
+        val channel = FileOutputStream(file).channel
+        writeBuffer.putInt(STATS_RECORD_MAGIC)
+        writeBuffer.putShort(STATS_RECORD_VERSION)
+        fileBytes = STATS_RECORD_FILE_HEADER_BYTES.toLong()
+        fileChannel = channel
+        return channel
+    }
+
+    private companion object {
+        val EMPTY_BYTES = ByteArray(0)
+    }
+}
+
+fun statsRecordFileName(sequence: Int): String =
+        String.format(Locale.US, "%s%08d%s", STATS_RECORD_FILE_PREFIX, sequence,
+                STATS_RECORD_FILE_SUFFIX)
+
+fun statsRecordSequence(file: File): Int = file.name
+        .removePrefix(STATS_RECORD_FILE_PREFIX)
+        .removeSuffix(STATS_RECORD_FILE_SUFFIX)
+        .toIntOrNull() ?: -1
+
+/*
+ * The stats record files of the directory from the oldest to the latest.
+ */
+fun statsRecordFiles(directory: File): List<File> =
+        directory.listFiles { file ->
+            file.name.startsWith(STATS_RECORD_FILE_PREFIX) &&
+                    file.name.endsWith(STATS_RECORD_FILE_SUFFIX) &&
+                    statsRecordSequence(file) >= 0
+        }?.sortedBy { statsRecordSequence(it) } ?: emptyList()
@@ -0,0 +1,75 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicLong
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ClosedSendChannelException
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+const val STATS_RECORD_DIRECTORY = "stats"
+const val STATS_RECORD_INTERVAL_MILLIS = 1000L
+const val DEFAULT_STATS_RECORD_QUEUE_CAPACITY = 16
+
+/*
+ * Opt-in recorder of the stats reports of a call for offline analysis. Reports are queued from the
+ * stats listener without blocking and written by a single consumer coroutine of the given scope,
+ * which must not run on the main thread. Reports that arrive while the queue is full are dropped,
+ * and recording stops at the first error. Errors are not propagated, so a failing recording never
+ * cancels the scope it shares with the room events.
+ */
+class StatsRecorder(
+    scope: CoroutineScope,
+    private val writer: StatsRecordWriter,
+    queueCapacity: Int = DEFAULT_STATS_RECORD_QUEUE_CAPACITY
+) {
+
+    private class Entry(val timestampMillis: Long, val statsReports: List<StatsReport>)
+
+    private val channel = Channel<Entry>(queueCapacity)
+    private val droppedRecords = AtomicLong()
+    private val job: Job
+
+    val droppedRecordCount get() = droppedRecords.get()
+
+    init {
+        job = scope.launch {
+            try {
+                for (entry in channel) writer.write(entry.timestampMillis, entry.statsReports)
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Timber.e(e, "Failed to record stats")
+                channel.close()
+            } finally {
+                try {
+                    writer.close()
+                } catch (e: IOException) {
+                    Timber.e(e, "Failed to close the stats record")
+                }
+            }
+        }
+    }
+
+    fun record(timestampMillis: Long, statsReports: List<StatsReport>) {
+        val isQueued = try {
+            channel.offer(Entry(timestampMillis, statsReports))
+        } catch (e: ClosedSendChannelException) {
+            false
+        }
+        if (!isQueued) droppedRecords.incrementAndGet()
+    }
+
+    /*
+     * Stops accepting reports. The queued ones are still written before the file is closed.
+     */
+    fun close() {
+        channel.close()
+    }
+
+    suspend fun join() = job.join()
+}
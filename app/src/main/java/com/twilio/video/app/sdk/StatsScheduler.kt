@@ -15,48 +15,64 @@
  */
 package com.twilio.video.app.sdk
 
-import android.os.Handler
-import android.os.HandlerThread
 import com.twilio.video.Room
 import com.twilio.video.StatsListener
+import com.twilio.video.app.util.Ticker
+import com.twilio.video.app.util.TickerTask
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 import timber.log.Timber
 
-class StatsScheduler(private val roomManager: RoomManager, private val room: Room) {
-    private var handlerThread: HandlerThread? = null
-    private var handler: Handler? = null
+/*
+ * Polls the room stats on the shared ticker only while there is a stats demand and the room is
+ * not idle. The polling interval is the shortest one currently demanded and is re-evaluated
+ * whenever a demand or the idle state changes, so a demand for a shorter interval takes effect
+ * without waiting for the pending poll. Stats are requested on the main thread, which the stats
+ * listener is called back on.
+ */
+class StatsScheduler(
+    private val roomManager: RoomManager,
+    private val room: Room,
+    private val statsDemands: StatsDemands,
+    private val ticker: Ticker,
+    private val statsDispatcher: CoroutineDispatcher = Dispatchers.Main
+) {
+    private var tickerTask: TickerTask? = null
     private val statsListener: StatsListener = StatsListener { statsReports ->
         roomManager.sendStatsUpdate(statsReports)
     }
-    private val isRunning: Boolean
-        get() = handlerThread?.isAlive ?: false
+    val isRunning: Boolean
+        get() = tickerTask?.isActive ?: false
 
-    fun start() {
-        if (isRunning) {
-            stop()
-        }
-        val handlerThread = HandlerThread("StatsSchedulerThread")
-        this.handlerThread = handlerThread
-        handlerThread.start()
-        val handler = Handler(handlerThread.looper)
-        this.handler = handler
-        val statsRunner: Runnable = object : Runnable {
-            override fun run() {
-                room.getStats(statsListener)
-                handler.postDelayed(this, 1000)
+    @Volatile
+    var isRoomIdle = false
+        set(value) {
+            if (field != value) {
+                field = value
+                reschedule()
             }
         }
-        handler.post(statsRunner)
-        Timber.d("Stats scheduler thread started")
+
+    @Synchronized
+    fun start() {
+        stop()
+        tickerTask = ticker.schedule({ if (isRoomIdle) null else statsDemands.intervalMillis }) {
+            withContext(statsDispatcher) { room.getStats(statsListener) }
+        }
+        Timber.d("Stats scheduler started")
     }
 
+    fun reschedule() {
+        tickerTask?.reschedule()
+    }
+
+    @Synchronized
     fun stop() {
-        if (isRunning) {
-            handlerThread?.let { handlerThread ->
-                handlerThread.quit()
-                this.handlerThread = null
-                handler = null
-                Timber.d("Stats scheduler thread closed")
-            }
+        tickerTask?.let { tickerTask ->
+            tickerTask.cancel()
+            this.tickerTask = null
+            Timber.d("Stats scheduler stopped")
         }
     }
 }
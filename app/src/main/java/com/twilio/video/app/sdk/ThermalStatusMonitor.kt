@@ -0,0 +1,54 @@
+package com.twilio.video.app.sdk
+
+import android.content.Context
+import android.os.Build
+import android.os.PowerManager
+import androidx.annotation.RequiresApi
+import timber.log.Timber
+
+/*
+ * Tracks the thermal status of the device while started. Devices below API 29 do not report a
+ * thermal status and always read THERMAL_STATUS_NONE.
+ */
+class ThermalStatusMonitor(context: Context) {
+
+    private val powerManager = context.getSystemService(Context.POWER_SERVICE) as PowerManager?
+    private var listener: Any? = null
+
+    @Volatile
+    var thermalStatus = THERMAL_STATUS_NONE
+        private set
+
+    fun start() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && listener == null) {
+            listener = powerManager?.let { Api29.addListener(it) { status -> onStatus(status) } }
+        }
+    }
+
+    fun stop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            listener?.let { listener -> powerManager?.let { Api29.removeListener(it, listener) } }
+        }
+        listener = null
+        thermalStatus = THERMAL_STATUS_NONE
+    }
+
+    private fun onStatus(status: Int) {
+        Timber.d("Thermal status changed to %d", status)
+        thermalStatus = status
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private object Api29 {
+        fun addListener(powerManager: PowerManager, onStatus: (Int) -> Unit): Any {
+            // The listener is called back immediately with the current status
+            val listener = PowerManager.OnThermalStatusChangedListener { onStatus(it) }
+            powerManager.addThermalStatusListener(listener)
+            return listener
+        }
+
+        fun removeListener(powerManager: PowerManager, listener: Any) =
+                powerManager.removeThermalStatusListener(
+                        listener as PowerManager.OnThermalStatusChangedListener)
+    }
+}
@@ -0,0 +1,66 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+
+/*
+ * Per track TrackStatsSeries keyed by track sid, fed with every StatsReport the room produces.
+ * A track's history is dropped as soon as it is missing from a recorded set of reports.
+ */
+class TrackStatsHistory(private val capacity: Int = DEFAULT_TRACK_STATS_CAPACITY) {
+
+    private val series = HashMap<String, TrackStatsSeries>()
+
+    @Synchronized
+    fun record(timestampMillis: Long, statsReports: List<StatsReport>): Map<String, TrackStatsSummary> {
+        statsReports.firstOrNull()?.let { report ->
+            // Local tracks are reported for every peer connection, only record them once
+            report.localAudioTrackStats.forEach {
+                seriesOf(it.trackSid).record(timestampMillis, it.bytesSent, it.packetsSent,
+                        it.packetsLost, it.roundTripTime, it.jitter, it.audioLevel)
+            }
+            report.localVideoTrackStats.forEach {
+                seriesOf(it.trackSid).record(timestampMillis, it.bytesSent, it.packetsSent,
+                        it.packetsLost, it.roundTripTime, frameRate = it.frameRate,
+                        width = it.dimensions.width, height = it.dimensions.height)
+            }
+        }
+        statsReports.forEach { report ->
+            report.remoteAudioTrackStats.forEach {
+                seriesOf(it.trackSid).record(timestampMillis, it.bytesReceived,
+                        it.packetsReceived, it.packetsLost, jitter = it.jitter,
+                        audioLevel = it.audioLevel)
+            }
+            report.remoteVideoTrackStats.forEach {
+                seriesOf(it.trackSid).record(timestampMillis, it.bytesReceived,
+                        it.packetsReceived, it.packetsLost, frameRate = it.frameRate,
+                        width = it.dimensions.width, height = it.dimensions.height)
+            }
+        }
+
+        val summaries = HashMap<String, TrackStatsSummary>(series.size)
+        val iterator = series.entries.iterator()
+        while (iterator.hasNext()) {
+            val (trackSid, trackSeries) = iterator.next()
+            if (trackSeries.timestampAt(trackSeries.count - 1) == timestampMillis) {
+                summaries[trackSid] = trackSeries.summary(trackSid)
+            } else {
+                iterator.remove()
+            }
+        }
+        return summaries
+    }
+
+    /*
+     * Runs the block with the series of the track while holding the history lock, or returns
+     * null if the track has no history.
+     */
+    @Synchronized
+    fun <T> withSeries(trackSid: String, block: (TrackStatsSeries) -> T): T? =
+            series[trackSid]?.let(block)
+
+    @Synchronized
+    fun clear() = series.clear()
+
+    private fun seriesOf(trackSid: String) =
+            series.getOrPut(trackSid) { TrackStatsSeries(capacity) }
+}
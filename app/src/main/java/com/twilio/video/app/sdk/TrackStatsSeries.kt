@@ -0,0 +1,175 @@
+package com.twilio.video.app.sdk
+
+const val DEFAULT_TRACK_STATS_CAPACITY = 60
+
+/*
+ * Fixed size time series of the stats samples of a single track. Every metric is kept in its own
+ * primitive ring buffer so recording a sample does not allocate. Bitrate and packet loss are
+ * derived from the deltas to the previous sample when it is recorded. Counter resets, e.g. after a
+ * track is re-published, yield zero instead of a negative delta.
+ *
+ * Index 0 is the oldest sample and count - 1 the latest. Not thread safe.
+ */
+class TrackStatsSeries(val capacity: Int = DEFAULT_TRACK_STATS_CAPACITY) {
+
+    private val timestamps = LongArray(capacity)
+    private val bytes = LongArray(capacity)
+    private val packets = IntArray(capacity)
+    private val packetsLost = IntArray(capacity)
+    private val roundTripTimes = LongArray(capacity)
+    private val jitters = IntArray(capacity)
+    private val audioLevels = IntArray(capacity)
+    private val frameRates = IntArray(capacity)
+    private val widths = IntArray(capacity)
+    private val heights = IntArray(capacity)
+    private val bitrates = LongArray(capacity)
+    private val packetLossPercentages = FloatArray(capacity)
+    private val longScratch = LongArray(capacity)
+    private val floatScratch = FloatArray(capacity)
+    private var head = 0
+    private var recordedSamples = 0L
+
+    var count = 0
+        private set
+
+    init {
+        require(capacity > 1) { "capacity must be greater than 1 but was $capacity" }
+    }
+
+    fun record(
+        timestampMillis: Long,
+        bytes: Long,
+        packets: Int,
+        packetsLost: Int,
+        roundTripTime: Long = 0,
+        jitter: Int = 0,
+        audioLevel: Int = 0,
+        frameRate: Int = 0,
+        width: Int = 0,
+        height: Int = 0
+    ) {
+        val previous = if (count > 0) physicalIndex(count - 1) else -1
+        val index = head
+        timestamps[index] = timestampMillis
+        this.bytes[index] = bytes
+        this.packets[index] = packets
+        this.packetsLost[index] = packetsLost
+        roundTripTimes[index] = roundTripTime
+        jitters[index] = jitter
+        audioLevels[index] = audioLevel
+        frameRates[index] = frameRate
+        widths[index] = width
+        heights[index] = height
+        if (previous >= 0) {
+            val elapsedMillis = timestampMillis - timestamps[previous]
+            val bytesDelta = bytes - this.bytes[previous]
+            bitrates[index] = if (elapsedMillis > 0 && bytesDelta > 0) {
+                bytesDelta * 8 * 1000 / elapsedMillis
+            } else {
+                0
+            }
+            val packetsDelta = (packets - this.packets[previous]).coerceAtLeast(0)
+            val lostDelta = (packetsLost - this.packetsLost[previous]).coerceAtLeast(0)
+            packetLossPercentages[index] = if (packetsDelta + lostDelta > 0) {
+                lostDelta * 100f / (packetsDelta + lostDelta)
+            } else {
+                0f
+            }
+        } else {
+            bitrates[index] = 0
+            packetLossPercentages[index] = 0f
+        }
+        head = (head + 1) % capacity
+        if (count < capacity) count++
+        recordedSamples++
+    }
+
+    fun clear() {
+        head = 0
+        count = 0
+        recordedSamples = 0
+    }
+
+    fun timestampAt(index: Int) = timestamps[physicalIndex(index)]
+    fun bytesAt(index: Int) = bytes[physicalIndex(index)]
+    fun packetsAt(index: Int) = packets[physicalIndex(index)]
+    fun packetsLostAt(index: Int) = packetsLost[physicalIndex(index)]
+    fun roundTripTimeAt(index: Int) = roundTripTimes[physicalIndex(index)]
+    fun jitterAt(index: Int) = jitters[physicalIndex(index)]
+    fun audioLevelAt(index: Int) = audioLevels[physicalIndex(index)]
+    fun frameRateAt(index: Int) = frameRates[physicalIndex(index)]
+    fun widthAt(index: Int) = widths[physicalIndex(index)]
+    fun heightAt(index: Int) = heights[physicalIndex(index)]
+
+    /*
+     * Bitrate in bits per second between the sample and the one before it. Zero for the first
+     * recorded sample.
+     */
+    fun bitrateAt(index: Int) = bitrates[physicalIndex(index)]
+
+    fun packetLossPercentageAt(index: Int) = packetLossPercentages[physicalIndex(index)]
+
+    /*
+     * Percentile (0-100) of the bitrates over the recorded window, excluding the first sample of
+     * the series which has no predecessor.
+     */
+    fun bitratePercentile(percentile: Int): Long {
+        val size = copyDerived { i, j -> longScratch[j] = bitrates[i] }
+        if (size == 0) return 0
+        longScratch.sort(0, size)
+        return longScratch[rank(percentile, size)]
+    }
+
+    fun packetLossPercentile(percentile: Int): Float {
+        val size = copyDerived { i, j -> floatScratch[j] = packetLossPercentages[i] }
+        if (size == 0) return 0f
+        floatScratch.sort(0, size)
+        return floatScratch[rank(percentile, size)]
+    }
+
+    fun summary(trackSid: String): TrackStatsSummary {
+        val latest = count - 1
+        return TrackStatsSummary(
+                trackSid,
+                count,
+                if (latest >= 0) bitrateAt(latest) else 0,
+                bitratePercentile(50),
+                bitratePercentile(95),
+                if (latest >= 0) packetLossPercentageAt(latest) else 0f,
+                packetLossPercentile(50),
+                packetLossPercentile(95))
+    }
+
+    private inline fun copyDerived(copy: (physicalIndex: Int, scratchIndex: Int) -> Unit): Int {
+        // The very first sample has no predecessor and therefore no derived value
+        val first = if (recordedSamples > count) 0 else 1
+        var size = 0
+        for (i in first until count) copy(physicalIndex(i), size++)
+        return size
+    }
+
+    private fun rank(percentile: Int, size: Int) =
+            ((percentile.coerceIn(0, 100) * (size - 1) + 50) / 100)
+
+    private fun physicalIndex(index: Int): Int {
+        if (index < 0 || index >= count) {
+            throw IndexOutOfBoundsException("Index: $index, Count: $count")
+        }
+        return (head - count + index + capacity) % capacity
+    }
+}
+
+/*
+ * Values derived from the TrackStatsSeries of a track when the latest sample was recorded.
+ * Bitrates are in bits per second and packet loss in percent.
+ */
+data class TrackStatsSummary(
+    val trackSid: String,
+    val sampleCount: Int,
+    val bitrate: Long,
+    val bitrateP50: Long,
+    val bitrateP95: Long,
+    val packetLossPercentage: Float,
+    val packetLossP50: Float,
+    val packetLossP95: Float
+)
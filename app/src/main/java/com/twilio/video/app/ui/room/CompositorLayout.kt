@@ -0,0 +1,68 @@
+package com.twilio.video.app.ui.room
+
+import kotlin.math.roundToInt
+
+/*
+ * A tile of a compositor surface in view coordinates, with the origin at the top left.
+ */
+data class Viewport(val x: Int, val y: Int, val width: Int, val height: Int) {
+
+    fun contains(pointX: Int, pointY: Int) =
+            pointX >= x && pointX < x + width && pointY >= y && pointY < y + height
+
+    /*
+     * The largest viewport of the given aspect ratio centered inside this one.
+     */
+    fun fit(contentWidth: Int, contentHeight: Int): Viewport {
+        if (contentWidth <= 0 || contentHeight <= 0) return this
+        val fitWidth: Int
+        val fitHeight: Int
+        if (width.toLong() * contentHeight > height.toLong() * contentWidth) {
+            fitHeight = height
+            fitWidth = (height.toLong() * contentWidth / contentHeight).toInt()
+        } else {
+            fitWidth = width
+            fitHeight = (width.toLong() * contentHeight / contentWidth).toInt()
+        }
+        return Viewport(x + (width - fitWidth) / 2, y + (height - fitHeight) / 2, fitWidth,
+                fitHeight)
+    }
+}
+
+/*
+ * Arranges tiles of the given aspect ratio in rows from the top left of a surface. The number of
+ * rows is the one giving the largest tiles, so a strip of few tiles stays a single row and tiles
+ * wrap into more rows as they get too narrow. The rows are centered horizontally and the gaps
+ * separate the tiles.
+ */
+fun compositorLayout(
+    tileCount: Int,
+    width: Int,
+    height: Int,
+    tileAspectRatio: Float,
+    gap: Int = 0
+): List<Viewport> {
+    if (tileCount <= 0 || width <= 0 || height <= 0) return emptyList()
+    var bestRows = 1
+    var bestTileWidth = 0
+    var bestRowHeight = 0
+    for (rows in 1..tileCount) {
+        val columns = (tileCount + rows - 1) / rows
+        val rowHeight = (height - gap * (rows - 1)) / rows
+        val tileWidth = minOf((width - gap * (columns - 1)) / columns,
+                (rowHeight * tileAspectRatio).roundToInt())
+        if (tileWidth > bestTileWidth) {
+            bestTileWidth = tileWidth
+            bestRows = rows
+            bestRowHeight = rowHeight
+        }
+    }
+    if (bestTileWidth <= 0) return emptyList()
+    val columns = (tileCount + bestRows - 1) / bestRows
+    val tileHeight = minOf(bestRowHeight, (bestTileWidth / tileAspectRatio).roundToInt())
+    val rowStart = (width - (bestTileWidth * columns + gap * (columns - 1))) / 2
+    return List(tileCount) { index ->
+        Viewport(rowStart + index % columns * (bestTileWidth + gap),
+                index / columns * (tileHeight + gap), bestTileWidth, tileHeight)
+    }
+}
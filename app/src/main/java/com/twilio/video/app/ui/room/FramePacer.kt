@@ -0,0 +1,57 @@
+package com.twilio.video.app.ui.room
+
+import java.util.concurrent.TimeUnit
+
+/*
+ * Decides from their timestamps which frames of a video track to render so they do not exceed
+ * maxFrameRate, zero meaning every frame. Render times are scheduled at a fixed interval and a
+ * frame up to a quarter of the interval early is still rendered, so capture jitter does not halve
+ * the rate of a source that runs at a multiple of the cap. The schedule restarts after a stall or
+ * when the timestamps go backwards, e.g. because the sink moved to another track.
+ *
+ * Frames are delivered on a single renderer thread; only maxFrameRate may be changed from another
+ * thread.
+ */
+class FramePacer(maxFrameRate: Int = 0) {
+
+    @Volatile
+    var maxFrameRate = maxFrameRate
+        set(value) {
+            require(value >= 0) { "maxFrameRate must not be negative but was $value" }
+            field = value
+        }
+
+    private var nextTimestampNs = 0L
+    private var lastTimestampNs = 0L
+    private var hasFrame = false
+
+    var droppedFrames = 0L
+        private set
+
+    init {
+        this.maxFrameRate = maxFrameRate
+    }
+
+    fun shouldRender(timestampNs: Long): Boolean {
+        val maxFrameRate = maxFrameRate
+        if (maxFrameRate == 0) {
+            hasFrame = false
+            return true
+        }
+        val intervalNs = TimeUnit.SECONDS.toNanos(1) / maxFrameRate
+        val isRestart = !hasFrame || timestampNs < lastTimestampNs ||
+                timestampNs - nextTimestampNs > intervalNs
+        lastTimestampNs = timestampNs
+        hasFrame = true
+        if (isRestart) {
+            nextTimestampNs = timestampNs + intervalNs
+            return true
+        }
+        if (timestampNs < nextTimestampNs - intervalNs / 4) {
+            droppedFrames++
+            return false
+        }
+        nextTimestampNs += intervalNs
+        return true
+    }
+}
@@ -0,0 +1,28 @@
+package com.twilio.video.app.ui.room
+
+import android.os.Handler
+import android.os.Looper
+import android.view.Choreographer
+import android.view.Choreographer.FrameCallback
+
+interface FrameScheduler {
+
+    /*
+     * Runs the callback once on the main thread at the start of the next display frame. May be
+     * called from any thread.
+     */
+    fun postFrameCallback(callback: FrameCallback)
+}
+
+class ChoreographerFrameScheduler : FrameScheduler {
+
+    private val mainHandler by lazy { Handler(Looper.getMainLooper()) }
+
+    override fun postFrameCallback(callback: FrameCallback) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Choreographer.getInstance().postFrameCallback(callback)
+        } else {
+            mainHandler.post { Choreographer.getInstance().postFrameCallback(callback) }
+        }
+    }
+}
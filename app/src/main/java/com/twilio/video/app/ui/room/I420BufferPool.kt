@@ -0,0 +1,72 @@
+package com.twilio.video.app.ui.room
+
+import java.nio.ByteBuffer
+import tvi.webrtc.JavaI420Buffer
+import tvi.webrtc.VideoFrame
+
+const val DEFAULT_I420_BUFFER_POOL_SIZE = 3
+
+/*
+ * Pool of direct I420 buffers of a single size. A buffer returns to the pool when the last
+ * reference to it is released, which may happen on the renderer thread. Changing the size drops
+ * the pooled buffers, and at most maxBuffers released buffers are kept.
+ */
+class I420BufferPool(private val maxBuffers: Int = DEFAULT_I420_BUFFER_POOL_SIZE) {
+
+    private inner class PooledBuffer(val width: Int, val height: Int) : Runnable {
+        val chromaWidth = (width + 1) / 2
+        val chromaHeight = (height + 1) / 2
+        private val data =
+                ByteBuffer.allocateDirect(width * height + chromaWidth * chromaHeight * 2)
+        val dataY: ByteBuffer = slice(0, width * height)
+        val dataU: ByteBuffer = slice(width * height, chromaWidth * chromaHeight)
+        val dataV: ByteBuffer = slice(width * height + chromaWidth * chromaHeight,
+                chromaWidth * chromaHeight)
+
+        override fun run() = recycle(this)
+
+        private fun slice(offset: Int, length: Int): ByteBuffer {
+            data.position(offset)
+            data.limit(offset + length)
+            return data.slice().also { data.clear() }
+        }
+    }
+
+    private val freeBuffers = ArrayList<PooledBuffer>(maxBuffers)
+    private var width = 0
+    private var height = 0
+
+    var allocatedBuffers = 0
+        private set
+
+    init {
+        require(maxBuffers > 0) { "maxBuffers must be greater than 0 but was $maxBuffers" }
+    }
+
+    @Synchronized
+    fun obtain(width: Int, height: Int): VideoFrame.I420Buffer {
+        if (width != this.width || height != this.height) {
+            freeBuffers.clear()
+            this.width = width
+            this.height = height
+        }
+        val buffer = if (freeBuffers.isEmpty()) {
+            allocatedBuffers++
+            PooledBuffer(width, height)
+        } else {
+            freeBuffers.removeAt(freeBuffers.lastIndex)
+        }
+        return JavaI420Buffer.wrap(width, height,
+                buffer.dataY, width,
+                buffer.dataU, buffer.chromaWidth,
+                buffer.dataV, buffer.chromaWidth,
+                buffer)
+    }
+
+    @Synchronized
+    private fun recycle(buffer: PooledBuffer) {
+        if (buffer.width == width && buffer.height == height && freeBuffers.size < maxBuffers) {
+            freeBuffers.add(buffer)
+        }
+    }
+}
@@ -7,17 +7,71 @@ import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.ListAdapter
 import com.twilio.video.app.participant.ParticipantViewState
 
-internal class ParticipantAdapter : ListAdapter<ParticipantViewState, ParticipantViewHolder>(
-        ParticipantDiffCallback()) {
+/*
+ * Thumbnails of the participants. Video sinks follow the window attachment of the view holders
+ * and the track on stage of the render fan-out, see ParticipantViewHolder, so only thumbnails on
+ * screen and not duplicating the primary view receive frames. The thumbnails render at most
+ * maxFrameRate frames per second, zero meaning every frame.
+ */
+internal class ParticipantAdapter(
+    private val renderFanOut: VideoRenderFanOut = VideoRenderFanOut()
+) : ListAdapter<ParticipantViewState, ParticipantViewHolder>(ParticipantDiffCallback()) {
+
+    data class Metrics(val activeSinks: Int, val participants: Int)
 
     private val mutableViewHolderEvents = MutableLiveData<RoomViewEvent>()
     val viewHolderEvents: LiveData<RoomViewEvent> = mutableViewHolderEvents
+    private val mutableMetrics = MutableLiveData(Metrics(0, 0))
+    val metrics: LiveData<Metrics> = mutableMetrics
+    private var activeSinks = 0
+    private val attachedHolders = ArrayList<ParticipantViewHolder>()
+
+    var maxFrameRate = 0
+        set(value) {
+            if (field == value) return
+            field = value
+            notifyItemRangeChanged(0, itemCount)
+        }
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder =
-            ParticipantViewHolder(ParticipantThumbView(parent.context))
+            ParticipantViewHolder(ParticipantThumbView(parent.context), renderFanOut) { delta ->
+                activeSinks += delta
+                updateMetrics()
+            }
+
+    init {
+        // Detached holders catch up when they are bound or attached again
+        renderFanOut.addListener {
+            for (i in attachedHolders.indices) attachedHolders[i].onStageChanged()
+        }
+    }
+
+    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) {
+        holder.setMaxFrameRate(maxFrameRate)
+        holder.bind(getItem(position)) { mutableViewHolderEvents.value = it }
+    }
 
-    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) =
-            holder.bind(getItem(position)) { mutableViewHolderEvents.value = it }
+    override fun onViewAttachedToWindow(holder: ParticipantViewHolder) {
+        attachedHolders.add(holder)
+        holder.onAttached()
+    }
+
+    override fun onViewDetachedFromWindow(holder: ParticipantViewHolder) {
+        attachedHolders.remove(holder)
+        holder.onDetached()
+    }
+
+    override fun onViewRecycled(holder: ParticipantViewHolder) = holder.onRecycled()
+
+    override fun onCurrentListChanged(
+        previousList: List<ParticipantViewState>,
+        currentList: List<ParticipantViewState>
+    ) = updateMetrics()
+
+    private fun updateMetrics() {
+        val metrics = Metrics(activeSinks, itemCount)
+        if (mutableMetrics.value != metrics) mutableMetrics.value = metrics
+    }
 
     class ParticipantDiffCallback : DiffUtil.ItemCallback<ParticipantViewState>() {
         override fun areItemsTheSame(
@@ -52,6 +52,8 @@ public class ParticipantThumbView extends ParticipantView {
     }
 
     private void init(Context context) {
+        // Thumbnails render frames scaled down to their size rather than the decoded resolution
+        frameScaler = new ThumbnailFrameScaler(new I420BufferPool());
         binding = ParticipantViewBinding.inflate(LayoutInflater.from(context), this, true);
         videoLayout = binding.videoLayout;
         videoIdentity = binding.videoIdentity;
@@ -74,6 +76,7 @@ public class ParticipantThumbView extends ParticipantView {
 
         binding.participantTrackSwitchOffBackground.setVisibility(isSwitchOffViewVisible(state));
         binding.participantTrackSwitchOffIcon.setVisibility(isSwitchOffViewVisible(state));
+        binding.onStage.setVisibility(state == State.ON_STAGE ? View.VISIBLE : View.GONE);
 
         int resId = R.drawable.participant_background;
         if (state == State.SELECTED) {
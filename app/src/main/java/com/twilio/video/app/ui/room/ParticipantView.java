@@ -59,6 +59,8 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
     TextView selectedIdentity;
     @Nullable ImageView audioToggle;
     @Nullable ImageView pinImage;
+    final FramePacer framePacer = new FramePacer(0);
+    @Nullable ThumbnailFrameScaler frameScaler;
 
     public ParticipantView(@NonNull Context context) {
         super(context);
@@ -101,6 +103,7 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
                 break;
             case State.NO_VIDEO:
             case State.SELECTED:
+            case State.ON_STAGE:
                 videoLayout.setVisibility(GONE);
                 videoIdentity.setVisibility(GONE);
                 videoView.setVisibility(GONE);
@@ -132,6 +135,9 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
     void setScaleType(int scaleType) {
         this.scaleType = scaleType;
         videoView.setVideoScaleType(VideoScaleType.values()[this.scaleType]);
+        if (frameScaler != null) {
+            frameScaler.setAspectFill(scaleType == VideoScaleType.ASPECT_FILL.ordinal());
+        }
     }
 
     public void setMuted(boolean muted) {
@@ -142,9 +148,30 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
         if (pinImage != null) pinImage.setVisibility(pinned ? VISIBLE : GONE);
     }
 
+    /**
+     * Limits the rate of the frames handed to the renderer, zero rendering every frame. Frames
+     * above the rate are dropped on the thread that delivers them.
+     */
+    void setMaxFrameRate(int maxFrameRate) {
+        framePacer.setMaxFrameRate(maxFrameRate);
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        if (frameScaler != null) frameScaler.setTargetSize(width, height);
+    }
+
     @Override
     public void onFrame(VideoFrame videoFrame) {
-        videoView.onFrame(videoFrame);
+        if (!framePacer.shouldRender(videoFrame.getTimestampNs())) return;
+        if (frameScaler == null) {
+            videoView.onFrame(videoFrame);
+            return;
+        }
+        VideoFrame scaledFrame = frameScaler.scale(videoFrame);
+        videoView.onFrame(scaledFrame);
+        if (scaledFrame != videoFrame) scaledFrame.release();
     }
 
     void initParams(Context context, AttributeSet attrs) {
@@ -178,7 +205,8 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
         ParticipantView.State.VIDEO,
         ParticipantView.State.NO_VIDEO,
         ParticipantView.State.SELECTED,
-        ParticipantView.State.SWITCHED_OFF
+        ParticipantView.State.SWITCHED_OFF,
+        ParticipantView.State.ON_STAGE
     })
     @Retention(RetentionPolicy.SOURCE)
     @interface State {
@@ -186,5 +214,7 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
         int NO_VIDEO = 1;
         int SELECTED = 2;
         int SWITCHED_OFF = 3;
+        /** The video track is rendered by the primary view instead. */
+        int ON_STAGE = 4;
     }
 }
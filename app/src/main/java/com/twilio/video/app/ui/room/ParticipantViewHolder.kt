@@ -17,10 +17,23 @@ import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
 import timber.log.Timber
 
-internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
-        RecyclerView.ViewHolder(thumb) {
+/*
+ * The thumbnail is only a sink of its video track while the holder is attached to the window, so
+ * thumbnails scrolled off screen or waiting in the recycled view pool do not render frames. While
+ * the track is on stage in the primary view the thumbnail shows a placeholder instead.
+ * onSinkCountChanged is called with +1 or -1 whenever the thumbnail is added to or removed from a
+ * track.
+ */
+internal class ParticipantViewHolder(
+    private val thumb: ParticipantThumbView,
+    private val renderFanOut: VideoRenderFanOut = VideoRenderFanOut(),
+    private val onSinkCountChanged: (Int) -> Unit = {}
+) : RecyclerView.ViewHolder(thumb) {
 
     private val localParticipantIdentity = thumb.context.getString(R.string.you)
+    private var isAttached = false
+    private var sinkTrack: VideoTrack? = null
+    private var videoTrackViewState: VideoTrackViewState? = null
 
     fun bind(participantViewState: ParticipantViewState, viewEventAction: (RoomViewEvent) -> Unit) {
         Timber.d("bind ParticipantViewHolder with data item: %s", participantViewState)
@@ -47,20 +60,59 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
     }
 
     private fun updateVideoTrack(participantViewState: ParticipantViewState) {
-        thumb.run {
-            val videoTrackViewState = participantViewState.videoTrack
-            val newVideoTrack = videoTrackViewState?.let { it.videoTrack }
-            if (videoTrack !== newVideoTrack) {
-                removeRender(videoTrack, this)
-                videoTrack = newVideoTrack
-                videoTrack?.let { videoTrack ->
-                    setVideoState(videoTrackViewState)
-                    if (videoTrack.isEnabled) videoTrack.addSink(this)
-                } ?: setState(ParticipantView.State.NO_VIDEO)
-            } else {
-                setVideoState(videoTrackViewState)
-            }
+        videoTrackViewState = participantViewState.videoTrack
+        thumb.videoTrack = videoTrackViewState?.videoTrack
+        updateRendering()
+    }
+
+    fun onStageChanged() = updateRendering()
+
+    private fun updateRendering() {
+        if (renderFanOut.isOnStage(thumb.videoTrack)) {
+            thumb.setState(ParticipantView.State.ON_STAGE)
+        } else {
+            thumb.setVideoState(videoTrackViewState)
+        }
+        updateSink()
+    }
+
+    fun setMaxFrameRate(maxFrameRate: Int) = thumb.setMaxFrameRate(maxFrameRate)
+
+    fun onAttached() {
+        isAttached = true
+        updateRendering()
+    }
+
+    fun onDetached() {
+        isAttached = false
+        updateSink()
+    }
+
+    fun onRecycled() {
+        thumb.videoTrack = null
+        videoTrackViewState = null
+        updateSink()
+    }
+
+    /*
+     * Adds the thumbnail to its enabled video track while attached and not on stage, and removes
+     * it from any other track it still renders.
+     */
+    private fun updateSink() {
+        val videoTrack = thumb.videoTrack?.takeIf {
+            isAttached && it.isEnabled && !renderFanOut.isOnStage(it)
+        }
+        val sinkTrack = sinkTrack
+        if (sinkTrack === videoTrack) return
+        if (sinkTrack != null) {
+            removeRender(sinkTrack, thumb)
+            onSinkCountChanged(-1)
         }
+        if (videoTrack != null) {
+            videoTrack.addSink(thumb)
+            onSinkCountChanged(1)
+        }
+        this.sinkTrack = videoTrack
     }
 
     private fun ParticipantThumbView.setVideoState(videoTrackViewState: VideoTrackViewState?) {
@@ -81,6 +133,17 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
         networkQualityImage: ImageView,
         networkQualityLevel: NetworkQualityLevel?
     ) {
+        networkQualityLevelImage(networkQualityLevel)?.let { image ->
+            networkQualityImage.visibility = View.VISIBLE
+            networkQualityImage.setImageResource(image)
+        } ?: run { networkQualityImage.visibility = View.GONE }
+    }
+}
+
+/*
+ * The drawable shown for a network quality level, or null if the level is unknown.
+ */
+internal fun networkQualityLevelImage(networkQualityLevel: NetworkQualityLevel?) =
         when (networkQualityLevel) {
             NETWORK_QUALITY_LEVEL_ZERO -> R.drawable.network_quality_level_0
             NETWORK_QUALITY_LEVEL_ONE -> R.drawable.network_quality_level_1
@@ -89,9 +152,4 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
             NETWORK_QUALITY_LEVEL_FOUR -> R.drawable.network_quality_level_4
             NETWORK_QUALITY_LEVEL_FIVE -> R.drawable.network_quality_level_5
             else -> null
-        }?.let { image ->
-            networkQualityImage.visibility = View.VISIBLE
-            networkQualityImage.setImageResource(image)
-        } ?: run { networkQualityImage.visibility = View.GONE }
-    }
-}
+        }
@@ -18,8 +18,15 @@ package com.twilio.video.app.ui.room
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.sdk.VideoTrackViewState
 
+/*
+ * Renders the primary participant and puts the rendered track on stage of the render fan-out, so
+ * thumbnails of the same track do not render it a second time. Only enabled remote tracks go on
+ * stage: a disabled track is not rendered by the primary view either, and the local preview keeps
+ * rendering in its thumbnail.
+ */
 internal class PrimaryParticipantController(
-    private val primaryView: ParticipantPrimaryView
+    private val primaryView: ParticipantPrimaryView,
+    private val renderFanOut: VideoRenderFanOut = VideoRenderFanOut()
 ) {
     private var primaryItem: Item? = null
 
@@ -28,7 +35,8 @@ internal class PrimaryParticipantController(
         screenTrack: VideoTrackViewState?,
         videoTrack: VideoTrackViewState?,
         muted: Boolean,
-        mirror: Boolean
+        mirror: Boolean,
+        isLocalParticipant: Boolean = false
     ) {
 
         val old = primaryItem
@@ -47,6 +55,7 @@ internal class PrimaryParticipantController(
             if (newVideoTrack.isEnabled) newVideoTrack.addSink(primaryView)
             primaryView.setState(ParticipantView.State.VIDEO)
         } ?: primaryView.setState(ParticipantView.State.NO_VIDEO)
+        renderFanOut.stageTrack = newItem.videoTrack?.takeIf { it.isEnabled && !isLocalParticipant }
     }
 
     private fun removeRender(videoTrack: VideoTrack?, view: ParticipantView) {
@@ -0,0 +1,35 @@
+package com.twilio.video.app.ui.room
+
+import android.os.SystemClock
+import timber.log.Timber
+
+private const val REPORT_INTERVAL_MILLIS = 1000L
+
+/*
+ * Debug aid that counts how often each RoomViewSection is re-bound and logs the counts once per
+ * second.
+ */
+class RebindCounter(private val clock: () -> Long = SystemClock::elapsedRealtime) {
+
+    private val counts = IntArray(RoomViewSection.values().size)
+    private var windowStart = -1L
+
+    var lastReport: Map<RoomViewSection, Int> = emptyMap()
+        private set
+
+    fun onRebind(sections: Set<RoomViewSection>) {
+        val now = clock()
+        if (windowStart < 0) windowStart = now
+        if (now - windowStart >= REPORT_INTERVAL_MILLIS) {
+            report(now - windowStart)
+            windowStart = now
+        }
+        sections.forEach { counts[it.ordinal]++ }
+    }
+
+    private fun report(elapsedMillis: Long) {
+        lastReport = RoomViewSection.values().associateWith { counts[it.ordinal] }
+        counts.fill(0)
+        Timber.d("Re-binds in the last %d ms: %s", elapsedMillis, lastReport)
+    }
+}
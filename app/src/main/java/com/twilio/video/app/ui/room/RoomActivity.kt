@@ -39,6 +39,7 @@ import android.view.View
 import android.view.WindowManager
 import androidx.core.content.ContextCompat
 import androidx.core.widget.doOnTextChanged
+import androidx.drawerlayout.widget.DrawerLayout
 import androidx.lifecycle.ViewModelProvider
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.google.android.material.snackbar.BaseTransientBottomBar
@@ -48,8 +49,8 @@ import com.twilio.audioswitch.AudioDevice.BluetoothHeadset
 import com.twilio.audioswitch.AudioDevice.Speakerphone
 import com.twilio.audioswitch.AudioDevice.WiredHeadset
 import com.twilio.audioswitch.AudioSwitch
+import com.twilio.video.app.BuildConfig
 import com.twilio.video.app.R
-import com.twilio.video.app.adapter.StatsListAdapter
 import com.twilio.video.app.base.BaseActivity
 import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.data.api.AuthServiceError
@@ -62,6 +63,7 @@ import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.Connected
 import com.twilio.video.app.ui.room.RoomViewEffect.Disconnected
 import com.twilio.video.app.ui.room.RoomViewEffect.PermissionsDenied
+import com.twilio.video.app.ui.room.RoomViewEffect.ShowCallQualityWarning
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowConnectFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowMaxParticipantFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowTokenErrorDialog
@@ -75,12 +77,14 @@ import com.twilio.video.app.ui.room.RoomViewEvent.EnableLocalAudio
 import com.twilio.video.app.ui.room.RoomViewEvent.EnableLocalVideo
 import com.twilio.video.app.ui.room.RoomViewEvent.OnPause
 import com.twilio.video.app.ui.room.RoomViewEvent.OnResume
+import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
 import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalVideo
+import com.twilio.video.app.ui.room.RoomViewEvent.UpdateStatsDemand
 import com.twilio.video.app.ui.room.RoomViewModel.RoomViewModelFactory
 import com.twilio.video.app.ui.settings.SettingsActivity
 import com.twilio.video.app.util.InputUtils
@@ -101,7 +105,12 @@ class RoomActivity : BaseActivity() {
     private var savedVolumeControlStream = 0
     private var displayName: String? = null
     private var localParticipantSid = LOCAL_PARTICIPANT_STUB_SID
-    private lateinit var statsListAdapter: StatsListAdapter
+    private lateinit var statsPanel: StatsPanel
+    private var boundRoomViewState: RoomViewState? = null
+    private var isThumbnailCompositorEnabled = Preferences.THUMBNAIL_COMPOSITOR_DEFAULT
+    private val rebindCounter = if (BuildConfig.DEBUG) RebindCounter() else null
+    private val renderFanOut = VideoRenderFanOut()
+    private var compositorThumbnails: List<ParticipantViewState>? = null
 
     @Inject
     lateinit var tokenService: TokenService
@@ -142,6 +151,7 @@ class RoomActivity : BaseActivity() {
 
         // Grab views
         setupThumbnailRecyclerView()
+        setupStatsPanel()
 
         // Setup toolbar
         setSupportActionBar(binding.toolbar)
@@ -150,7 +160,8 @@ class RoomActivity : BaseActivity() {
         savedVolumeControlStream = volumeControlStream
 
         // Setup participant controller
-        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo)
+        primaryParticipantController =
+                PrimaryParticipantController(binding.room.primaryVideo, renderFanOut)
 
         setupRecordingAnimation()
     }
@@ -169,12 +180,23 @@ class RoomActivity : BaseActivity() {
         super.onResume()
         displayName = sharedPreferences.getString(Preferences.DISPLAY_NAME, null)
         setTitle(displayName)
+        val thumbnailMaxFrameRate = sharedPreferences.getInt(
+                Preferences.THUMBNAIL_MAX_FRAME_RATE, Preferences.THUMBNAIL_MAX_FRAME_RATE_DEFAULT)
+                .coerceAtLeast(0)
+        participantAdapter.maxFrameRate = thumbnailMaxFrameRate
+        binding.room.thumbnailCompositor.maxFrameRate = thumbnailMaxFrameRate
+        isThumbnailCompositorEnabled = sharedPreferences.getBoolean(
+                Preferences.THUMBNAIL_COMPOSITOR, Preferences.THUMBNAIL_COMPOSITOR_DEFAULT)
+        // The display name and stats preference may have changed so re-bind every section
+        boundRoomViewState = null
         roomViewModel.processInput(OnResume)
+        updateStatsDemand(binding.root.isDrawerVisible(binding.statsDrawer))
     }
 
     override fun onPause() {
         super.onPause()
         roomViewModel.processInput(OnPause)
+        updateStatsDemand(false)
     }
 
     public override fun onSaveInstanceState(outState: Bundle) {
@@ -207,6 +229,7 @@ class RoomActivity : BaseActivity() {
         screenCaptureMenuItem = menu.findItem(R.id.share_screen_menu_item)
         deviceMenuItem = menu.findItem(R.id.device_menu_item)
 
+        boundRoomViewState = null
         onStates(roomViewModel) { state ->
             if (state is RoomViewState) bindRoomViewState(state)
         }
@@ -307,11 +330,44 @@ class RoomActivity : BaseActivity() {
     private fun setupThumbnailRecyclerView() {
         val layoutManager = LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false)
         binding.room.remoteVideoThumbnails.layoutManager = layoutManager
-        participantAdapter = ParticipantAdapter()
+        participantAdapter = ParticipantAdapter(renderFanOut)
         participantAdapter
                 .viewHolderEvents
                 .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
+        if (BuildConfig.DEBUG) {
+            participantAdapter.metrics.observe(this, { metrics ->
+                Timber.d("Thumbnail sinks: %d active for %d participants",
+                        metrics.activeSinks, metrics.participants)
+            })
+        }
         binding.room.remoteVideoThumbnails.adapter = participantAdapter
+        binding.room.thumbnailCompositor.onTileClickListener = { sid ->
+            if (sid.isNotEmpty()) roomViewModel.processInput(PinParticipant(sid))
+        }
+        renderFanOut.addListener { updateCompositorTiles() }
+    }
+
+    private fun setupStatsPanel() {
+        statsPanel = StatsPanel(
+                binding.statsRecyclerView,
+                binding.statsDisabled,
+                binding.statsDisabledTitle,
+                binding.statsDisabledDescription) {
+            binding.root.isDrawerVisible(binding.statsDrawer)
+        }
+        binding.root.addDrawerListener(object : DrawerLayout.SimpleDrawerListener() {
+            override fun onDrawerSlide(drawerView: View, slideOffset: Float) {
+                if (drawerView === binding.statsDrawer) statsPanel.onPanelShown()
+            }
+
+            override fun onDrawerOpened(drawerView: View) {
+                if (drawerView === binding.statsDrawer) updateStatsDemand(true)
+            }
+
+            override fun onDrawerClosed(drawerView: View) {
+                if (drawerView === binding.statsDrawer) updateStatsDemand(false)
+            }
+        })
     }
 
     private fun roomNameTextChanged(text: CharSequence?) {
@@ -407,9 +463,6 @@ class RoomActivity : BaseActivity() {
         val videoDrawable = if (roomViewState.isVideoOff || !isLocalMediaEnabled) R.drawable.ic_videocam_off_gray_24px else R.drawable.ic_videocam_white_24px
         binding.localAudio.setImageResource(micDrawable)
         binding.localVideo.setImageResource(videoDrawable)
-        statsListAdapter = StatsListAdapter(this)
-        binding.statsRecyclerView.adapter = statsListAdapter
-        binding.statsRecyclerView.layoutManager = LinearLayoutManager(this)
         binding.disconnect.visibility = disconnectButtonState
         binding.joinRoom.joinRoomLayout.visibility = joinRoomLayoutState
         binding.joinStatusLayout.visibility = joinStatusLayoutState
@@ -469,37 +522,13 @@ class RoomActivity : BaseActivity() {
     private fun updateStatsUI(roomViewState: RoomViewState) {
         val enableStats = sharedPreferences.getBoolean(
                 Preferences.ENABLE_STATS, Preferences.ENABLE_STATS_DEFAULT)
-        if (enableStats) {
-            when (roomViewState.configuration) {
-                RoomViewConfiguration.Connected -> {
-                    statsListAdapter.updateStatsData(roomViewState.roomStats)
-                    binding.statsRecyclerView.visibility = View.VISIBLE
-                    binding.statsDisabled.visibility = View.GONE
-
-                    // disable stats if there is room but no participants (no media)
-                    val isStreamingMedia = roomViewState.participantThumbnails?.let { thumbnails ->
-                        thumbnails.size > 1
-                    } ?: false
-                    if (!isStreamingMedia) {
-                        binding.statsDisabledTitle.text = getString(R.string.stats_unavailable)
-                        binding.statsDisabledDescription.text = getString(R.string.stats_description_media_not_shared)
-                        binding.statsRecyclerView.visibility = View.GONE
-                        binding.statsDisabled.visibility = View.VISIBLE
-                    }
-                }
-                else -> {
-                    binding.statsDisabledTitle.text = getString(R.string.stats_unavailable)
-                    binding.statsDisabledDescription.text = getString(R.string.stats_description_join_room)
-                    binding.statsRecyclerView.visibility = View.GONE
-                    binding.statsDisabled.visibility = View.VISIBLE
-                }
-            }
-        } else {
-            binding.statsDisabledTitle.text = getString(R.string.stats_gathering_disabled)
-            binding.statsDisabledDescription.text = getString(R.string.stats_enable_in_settings)
-            binding.statsRecyclerView.visibility = View.GONE
-            binding.statsDisabled.visibility = View.VISIBLE
-        }
+        statsPanel.update(roomViewState, enableStats)
+    }
+
+    private fun updateStatsDemand(isStatsPanelVisible: Boolean) {
+        val enableStats = sharedPreferences.getBoolean(
+                Preferences.ENABLE_STATS, Preferences.ENABLE_STATS_DEFAULT)
+        roomViewModel.processInput(UpdateStatsDemand(enableStats, isStatsPanelVisible))
     }
 
     private fun toggleAudioDevice(enableAudioDevice: Boolean) {
@@ -509,12 +538,21 @@ class RoomActivity : BaseActivity() {
     }
 
     private fun bindRoomViewState(roomViewState: RoomViewState) {
-        deviceMenuItem.isVisible = roomViewState.availableAudioDevices?.isNotEmpty() ?: false
-        renderPrimaryView(roomViewState.primaryParticipant)
-        renderThumbnails(roomViewState)
-        updateLayout(roomViewState)
-        updateAudioDeviceIcon(roomViewState.selectedDevice)
-        updateStatsUI(roomViewState)
+        val changedSections = roomViewState.changedSections(boundRoomViewState)
+        boundRoomViewState = roomViewState
+        if (RoomViewSection.AUDIO_DEVICES in changedSections) {
+            deviceMenuItem.isVisible = roomViewState.availableAudioDevices?.isNotEmpty() ?: false
+        }
+        if (RoomViewSection.PRIMARY_PARTICIPANT in changedSections) {
+            renderPrimaryView(roomViewState.primaryParticipant)
+        }
+        if (RoomViewSection.THUMBNAILS in changedSections) renderThumbnails(roomViewState)
+        if (RoomViewSection.LAYOUT in changedSections) updateLayout(roomViewState)
+        if (RoomViewSection.AUDIO_DEVICES in changedSections) {
+            updateAudioDeviceIcon(roomViewState.selectedDevice)
+        }
+        if (RoomViewSection.STATS in changedSections) updateStatsUI(roomViewState)
+        rebindCounter?.onRebind(changedSections)
     }
 
     private fun bindRoomViewEffects(roomViewEffect: RoomViewEffect) {
@@ -540,6 +578,13 @@ class RoomActivity : BaseActivity() {
                 handleTokenError(error)
             }
             PermissionsDenied -> requestPermissions()
+            is ShowCallQualityWarning -> {
+                val message = roomViewEffect.identity?.let { identity ->
+                    getString(R.string.room_screen_remote_call_quality_warning, identity)
+                } ?: getString(R.string.room_screen_local_call_quality_warning)
+                Snackbar.make(binding.room.primaryVideo, message,
+                        BaseTransientBottomBar.LENGTH_LONG).show()
+            }
         }
     }
 
@@ -568,7 +613,8 @@ class RoomActivity : BaseActivity() {
                     screenTrack,
                     videoTrack,
                     isMuted,
-                    isMirrored)
+                    isMirrored,
+                    isLocalParticipant)
             binding.room.primaryVideo.showIdentityBadge(!primaryParticipant.isLocalParticipant)
         }
     }
@@ -576,7 +622,34 @@ class RoomActivity : BaseActivity() {
     private fun renderThumbnails(roomViewState: RoomViewState) {
         val newThumbnails = if (roomViewState.configuration is RoomViewConfiguration.Connected)
             roomViewState.participantThumbnails else null
-        participantAdapter.submitList(newThumbnails)
+        /*
+         * Large rooms render the thumbnails into a single surface when the compositor is enabled.
+         * The compositor trades one surface per thumbnail for a GPU readback of every texture
+         * frame, at the size of its tile, so it is only used when the user opted in.
+         */
+        val useCompositor = isThumbnailCompositorEnabled && newThumbnails != null &&
+                newThumbnails.size >= THUMBNAIL_COMPOSITOR_MIN_PARTICIPANTS
+        binding.room.remoteVideoThumbnails.visibility = if (useCompositor) View.GONE else View.VISIBLE
+        binding.room.thumbnailCompositor.visibility = if (useCompositor) View.VISIBLE else View.GONE
+        participantAdapter.submitList(if (useCompositor) null else newThumbnails)
+        compositorThumbnails = if (useCompositor) newThumbnails else null
+        updateCompositorTiles()
+    }
+
+    /*
+     * The tile of the participant on stage stays empty, like its thumbnail would, and every tile
+     * keeps the overlays of a thumbnail.
+     */
+    private fun updateCompositorTiles() {
+        binding.room.thumbnailCompositor.setTiles(compositorThumbnails.orEmpty().map { thumbnail ->
+            val videoTrack = thumbnail.videoTrack?.videoTrack
+            VideoCompositorView.Tile(thumbnail.sid ?: "",
+                    videoTrack?.takeUnless { renderFanOut.isOnStage(it) },
+                    thumbnail.isMirrored,
+                    if (thumbnail.isLocalParticipant) getString(R.string.you) else thumbnail.identity,
+                    thumbnail.isMuted,
+                    thumbnail.networkQualityLevel)
+        })
     }
 
     private fun displayAudioDeviceList() {
@@ -630,6 +703,7 @@ class RoomActivity : BaseActivity() {
     companion object {
         private const val PERMISSIONS_REQUEST_CODE = 100
         private const val MEDIA_PROJECTION_REQUEST_CODE = 101
+        private const val THUMBNAIL_COMPOSITOR_MIN_PARTICIPANTS = 6
 
         // This will be used instead of real local participant sid,
         // because that information is unknown until room connection is fully established
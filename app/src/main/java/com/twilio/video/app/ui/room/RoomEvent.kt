@@ -5,6 +5,7 @@ import com.twilio.video.Participant
 import com.twilio.video.Room
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.data.api.AuthServiceError
+import com.twilio.video.app.sdk.CallQualityAnomaly
 import com.twilio.video.app.sdk.RoomStats
 
 sealed class RoomEvent {
@@ -24,6 +25,32 @@ sealed class RoomEvent {
     data class DominantSpeakerChanged(val newDominantSpeakerSid: String?) : RoomEvent()
     data class StatsUpdate(val roomStats: RoomStats) : RoomEvent()
 
+    sealed class CallQualityEvent : RoomEvent() {
+        abstract val trackSid: String
+
+        data class PacketLossSpike(
+            override val trackSid: String,
+            val packetLossPercentage: Float,
+            val baselinePercentage: Float
+        ) : CallQualityEvent()
+        data class RoundTripTimeExcursion(
+            override val trackSid: String,
+            val roundTripTimeMillis: Long,
+            val baselineMillis: Float
+        ) : CallQualityEvent()
+        data class JitterExcursion(
+            override val trackSid: String,
+            val jitterMillis: Int,
+            val baselineMillis: Float
+        ) : CallQualityEvent()
+        data class VideoFreeze(override val trackSid: String) : CallQualityEvent()
+        data class AudioDropout(override val trackSid: String) : CallQualityEvent()
+        data class Recovered(
+            override val trackSid: String,
+            val anomaly: CallQualityAnomaly
+        ) : CallQualityEvent()
+    }
+
     sealed class RemoteParticipantEvent : RoomEvent() {
 
         data class RemoteParticipantConnected(val participant: Participant) : RemoteParticipantEvent()
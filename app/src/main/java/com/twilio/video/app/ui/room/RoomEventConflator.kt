@@ -0,0 +1,64 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
+import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
+
+const val ROOM_EVENT_WINDOW_MILLIS = 16L
+
+/*
+ * Collects RoomEvents for one window and keeps only the latest high frequency event per
+ * participant sid and event kind. A superseded event is removed from its position and the newer
+ * event keeps its own arrival position, so every remaining event is applied in the order it was
+ * received and nothing is reordered around participant joins and leaves. All other events are
+ * never conflated.
+ *
+ * Not thread safe, the conflator is expected to be confined to a single thread.
+ */
+class RoomEventConflator {
+
+    private data class ConflationKey(val sid: String?, val kind: Class<out RoomEvent>)
+
+    private val pendingEvents = ArrayList<RoomEvent?>()
+    private val pendingIndexes = HashMap<ConflationKey, Int>()
+    private var pendingCount = 0
+
+    var droppedEvents = 0L
+        private set
+
+    val isEmpty get() = pendingCount == 0
+
+    fun add(roomEvent: RoomEvent) {
+        conflationKey(roomEvent)?.let { key ->
+            pendingIndexes.put(key, pendingEvents.size)?.let { supersededIndex ->
+                pendingEvents[supersededIndex] = null
+                pendingCount--
+                droppedEvents++
+            }
+        }
+        pendingEvents.add(roomEvent)
+        pendingCount++
+    }
+
+    /*
+     * Returns the pending events in arrival order and starts a new window.
+     */
+    fun drain(): List<RoomEvent> {
+        val roomEvents = ArrayList<RoomEvent>(pendingCount)
+        pendingEvents.forEach { roomEvent -> roomEvent?.let { roomEvents.add(it) } }
+        pendingEvents.clear()
+        pendingIndexes.clear()
+        pendingCount = 0
+        return roomEvents
+    }
+
+    private fun conflationKey(roomEvent: RoomEvent) =
+            when (roomEvent) {
+                is NetworkQualityLevelChange -> ConflationKey(roomEvent.sid, roomEvent.javaClass)
+                is TrackSwitchOff -> ConflationKey(roomEvent.sid, roomEvent.javaClass)
+                is MuteRemoteParticipant -> ConflationKey(roomEvent.sid, roomEvent.javaClass)
+                is StatsUpdate -> ConflationKey(null, roomEvent.javaClass)
+                else -> null
+            }
+}
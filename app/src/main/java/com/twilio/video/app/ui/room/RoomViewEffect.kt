@@ -13,4 +13,9 @@ sealed class RoomViewEffect : UIEvent() {
     object ShowConnectFailureDialog : RoomViewEffect()
     object ShowMaxParticipantFailureDialog : RoomViewEffect()
     data class ShowTokenErrorDialog(val serviceError: AuthServiceError? = null) : RoomViewEffect()
+
+    /*
+     * The identity is the remote participant whose media degraded, or null for local media.
+     */
+    data class ShowCallQualityWarning(val identity: String?) : RoomViewEffect()
 }
@@ -10,9 +10,14 @@ import androidx.lifecycle.viewModelScope
 import com.twilio.audioswitch.AudioSwitch
 import com.twilio.video.Participant
 import com.twilio.video.app.participant.ParticipantManager
+import com.twilio.video.app.participant.ParticipantSnapshot
 import com.twilio.video.app.participant.buildParticipantViewState
 import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.STATS_UI_INTERVAL_MILLIS
+import com.twilio.video.app.sdk.StatsDemand
 import com.twilio.video.app.sdk.VideoTrackViewState
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.Recovered
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
 import com.twilio.video.app.ui.room.RoomEvent.Connecting
@@ -41,6 +46,7 @@ import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.RoomEvent.TokenError
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.PermissionsDenied
+import com.twilio.video.app.ui.room.RoomViewEffect.ShowCallQualityWarning
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowConnectFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowMaxParticipantFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowTokenErrorDialog
@@ -62,12 +68,13 @@ import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalVideo
+import com.twilio.video.app.ui.room.RoomViewEvent.UpdateStatsDemand
 import com.twilio.video.app.ui.room.RoomViewEvent.VideoTrackRemoved
 import com.twilio.video.app.util.PermissionUtil
 import io.uniflow.android.AndroidDataFlow
-import io.uniflow.core.flow.data.UIState
-import io.uniflow.core.flow.onState
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.collect
 import kotlinx.coroutines.launch
 import timber.log.Timber
@@ -77,12 +84,24 @@ class RoomViewModel(
     private val audioSwitch: AudioSwitch,
     private val permissionUtil: PermissionUtil,
     private val participantManager: ParticipantManager = ParticipantManager(),
-    initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant)
+    initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant),
+    private val roomEventWindowMillis: Long = ROOM_EVENT_WINDOW_MILLIS,
+    frameScheduler: FrameScheduler = ChoreographerFrameScheduler()
 ) : AndroidDataFlow(defaultState = initialViewState) {
 
     private var permissionCheckRetry = false
+    private val viewStateStore = RoomViewStateStore(initialViewState, frameScheduler) { newState ->
+        action { setState { newState } }
+    }
+    private val roomEventConflator = RoomEventConflator()
+    private var isObservingRoomEvents = false
+    private var isParticipantViewStateStale = false
+    private val pendingEffects = ArrayList<RoomViewEffect>()
+    private var statsDemand: StatsDemand? = null
     @VisibleForTesting(otherwise = PRIVATE)
     internal var roomManagerJob: Job? = null
+    @VisibleForTesting(otherwise = PRIVATE)
+    internal val conflatedRoomEvents get() = roomEventConflator.droppedEvents
 
     init {
         audioSwitch.start { audioDevices, selectedDevice ->
@@ -101,6 +120,8 @@ class RoomViewModel(
         super.onCleared()
         audioSwitch.stop()
         roomManagerJob?.cancel()
+        statsDemand?.cancel()
+        statsDemand = null
     }
 
     fun processInput(viewEvent: RoomViewEvent) {
@@ -117,9 +138,8 @@ class RoomViewModel(
             is Connect -> {
                 connect(viewEvent.identity, viewEvent.roomName)
             }
-            is PinParticipant -> {
-                participantManager.changePinnedParticipant(viewEvent.sid)
-                updateParticipantViewState()
+            is PinParticipant -> updateParticipants {
+                changePinnedParticipant(viewEvent.sid)
             }
             ToggleLocalVideo -> roomManager.toggleLocalVideo()
             EnableLocalVideo -> roomManager.enableLocalVideo()
@@ -131,23 +151,53 @@ class RoomViewModel(
                     viewEvent.captureResultCode, viewEvent.captureIntent)
             StopScreenCapture -> roomManager.stopScreenCapture()
             SwitchCamera -> roomManager.switchCamera()
-            is VideoTrackRemoved -> {
-                participantManager.updateParticipantVideoTrack(viewEvent.sid, null)
-                updateParticipantViewState()
+            is VideoTrackRemoved -> updateParticipants {
+                updateParticipantVideoTrack(viewEvent.sid, null)
             }
-            is ScreenTrackRemoved -> {
-                participantManager.updateParticipantScreenTrack(viewEvent.sid, null)
-                updateParticipantViewState()
+            is ScreenTrackRemoved -> updateParticipants {
+                updateParticipantScreenTrack(viewEvent.sid, null)
             }
             Disconnect -> roomManager.disconnect()
+            is UpdateStatsDemand -> updateStatsDemand(viewEvent.isEnabled, viewEvent.isVisible)
+        }
+    }
+
+    /*
+     * The stats UI demands stats only while stats are enabled and polls them at a reduced rate
+     * while the stats panel is not visible.
+     */
+    private fun updateStatsDemand(isEnabled: Boolean, isVisible: Boolean) {
+        val statsDemand = statsDemand
+        when {
+            !isEnabled -> {
+                statsDemand?.cancel()
+                this.statsDemand = null
+            }
+            statsDemand == null ->
+                this.statsDemand = roomManager.requestStats(STATS_UI_INTERVAL_MILLIS, isVisible)
+            else -> statsDemand.isVisible = isVisible
         }
     }
 
+    /*
+     * Room events are collected into a conflation window. The first window is observed as soon as
+     * an event arrives and the following windows are observed at most once per
+     * roomEventWindowMillis, so bursts of superseded events only cause a single state update.
+     */
     private fun subscribeToRoomEvents() {
-        roomManager.roomEvents.let { sharedFlow ->
-            roomManagerJob = viewModelScope.launch {
-                Timber.d("Listening for RoomEvents")
-                sharedFlow.collect { observeRoomEvents(it) }
+        roomManagerJob = viewModelScope.launch {
+            Timber.d("Listening for RoomEvents")
+            val pendingWindow = Channel<Unit>(Channel.CONFLATED)
+            launch {
+                roomManager.roomEvents.collect { roomEvent ->
+                    roomEventConflator.add(roomEvent)
+                    pendingWindow.offer(Unit)
+                }
+            }
+            for (window in pendingWindow) {
+                if (roomEventConflator.isEmpty) continue
+                observeRoomEvents(roomEventConflator.drain())
+                delay(roomEventWindowMillis)
             }
         }
     }
@@ -163,18 +213,34 @@ class RoomViewModel(
             roomManager.onResume()
         } else {
             if (!permissionCheckRetry) {
-                action {
-                    sendEvent {
-                        permissionCheckRetry = true
-                        PermissionsDenied
-                    }
-                }
+                permissionCheckRetry = true
+                sendEffect(PermissionsDenied)
             }
         }
     }
 
-    private fun observeRoomEvents(roomEvent: RoomEvent) {
-        Timber.d("observeRoomEvents: %s", roomEvent)
+    private fun observeRoomEvents(roomEvents: List<RoomEvent>) {
+        Timber.d("observeRoomEvents: %d events, %d conflated in total", roomEvents.size,
+                roomEventConflator.droppedEvents)
+        isObservingRoomEvents = true
+        try {
+            participantManager.batch { roomEvents.forEach { observeRoomEvent(it) } }
+        } finally {
+            isObservingRoomEvents = false
+        }
+        if (isParticipantViewStateStale) {
+            isParticipantViewStateStale = false
+            updateParticipantViewState()
+        }
+        if (pendingEffects.isNotEmpty()) {
+            val effects = pendingEffects.toList()
+            pendingEffects.clear()
+            effects.forEach { sendEffect(it) }
+        }
+    }
+
+    private fun observeRoomEvent(roomEvent: RoomEvent) {
+        Timber.d("observeRoomEvent: %s", roomEvent)
         when (roomEvent) {
             is Connecting -> {
                 showConnectingViewState()
@@ -182,79 +248,79 @@ class RoomViewModel(
             is Connected -> {
                 showConnectedViewState(roomEvent.roomName)
                 checkParticipants(roomEvent.participants)
-                action { sendEvent { RoomViewEffect.Connected(roomEvent.room) } }
+                sendEffect(RoomViewEffect.Connected(roomEvent.room))
             }
             is Disconnected -> showLobbyViewState()
-            is DominantSpeakerChanged -> {
-                participantManager.changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
-                updateParticipantViewState()
+            is DominantSpeakerChanged -> updateParticipants {
+                changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
             }
-            is ConnectFailure -> action {
-                sendEvent {
-                    showLobbyViewState()
-                    ShowConnectFailureDialog
-                }
+            is ConnectFailure -> {
+                showLobbyViewState()
+                sendEffect(ShowConnectFailureDialog)
             }
-            is MaxParticipantFailure -> action {
-                sendEvent { ShowMaxParticipantFailureDialog }
+            is MaxParticipantFailure -> {
                 showLobbyViewState()
+                sendEffect(ShowMaxParticipantFailureDialog)
             }
-            is TokenError -> action {
-                sendEvent {
-                    showLobbyViewState()
-                    ShowTokenErrorDialog(roomEvent.serviceError)
-                }
+            is TokenError -> {
+                showLobbyViewState()
+                sendEffect(ShowTokenErrorDialog(roomEvent.serviceError))
             }
             RecordingStarted -> updateState { currentState -> currentState.copy(isRecording = true) }
             RecordingStopped -> updateState { currentState -> currentState.copy(isRecording = false) }
             is RemoteParticipantEvent -> handleRemoteParticipantEvent(roomEvent)
             is LocalParticipantEvent -> handleLocalParticipantEvent(roomEvent)
             is StatsUpdate -> updateState { currentState -> currentState.copy(roomStats = roomEvent.roomStats) }
+            is CallQualityEvent -> showCallQualityWarning(roomEvent)
         }
     }
 
-    private fun handleRemoteParticipantEvent(remoteParticipantEvent: RemoteParticipantEvent) {
+    /*
+     * The detector reports every anomaly once when it starts, which is when the user is warned.
+     * Recoveries are only logged.
+     */
+    private fun showCallQualityWarning(callQualityEvent: CallQualityEvent) {
+        Timber.i("Call quality: %s", callQualityEvent)
+        if (callQualityEvent is Recovered) return
+        sendEffect(ShowCallQualityWarning(
+                roomManager.remoteTrackIndex.identityOf(callQualityEvent.trackSid)))
+    }
+
+    private fun handleRemoteParticipantEvent(remoteParticipantEvent: RemoteParticipantEvent) =
+            updateParticipants { applyRemoteParticipantEvent(remoteParticipantEvent) }
+
+    private fun ParticipantManager.applyRemoteParticipantEvent(
+        remoteParticipantEvent: RemoteParticipantEvent
+    ) {
         when (remoteParticipantEvent) {
-            is RemoteParticipantConnected -> addParticipant(remoteParticipantEvent.participant)
-            is RemoteParticipantEvent.VideoTrackUpdated -> {
-                participantManager.updateParticipantVideoTrack(remoteParticipantEvent.sid,
+            is RemoteParticipantConnected ->
+                addParticipant(buildParticipantViewState(remoteParticipantEvent.participant))
+            is RemoteParticipantEvent.VideoTrackUpdated ->
+                updateParticipantVideoTrack(remoteParticipantEvent.sid,
                         remoteParticipantEvent.videoTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
-            }
-            is TrackSwitchOff -> {
-                participantManager.updateParticipantVideoTrack(remoteParticipantEvent.sid,
+            is TrackSwitchOff ->
+                updateParticipantVideoTrack(remoteParticipantEvent.sid,
                         VideoTrackViewState(remoteParticipantEvent.videoTrack,
                                 remoteParticipantEvent.switchOff))
-                updateParticipantViewState()
-            }
-            is ScreenTrackUpdated -> {
-                participantManager.updateParticipantScreenTrack(remoteParticipantEvent.sid,
+            is ScreenTrackUpdated ->
+                updateParticipantScreenTrack(remoteParticipantEvent.sid,
                         remoteParticipantEvent.screenTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
-            }
-            is MuteRemoteParticipant -> {
-                participantManager.muteParticipant(remoteParticipantEvent.sid,
-                        remoteParticipantEvent.mute)
-                updateParticipantViewState()
-            }
-            is NetworkQualityLevelChange -> {
-                participantManager.updateNetworkQuality(remoteParticipantEvent.sid,
+            is MuteRemoteParticipant ->
+                muteParticipant(remoteParticipantEvent.sid, remoteParticipantEvent.mute)
+            is NetworkQualityLevelChange ->
+                updateNetworkQuality(remoteParticipantEvent.sid,
                         remoteParticipantEvent.networkQualityLevel)
-                updateParticipantViewState()
-            }
-            is RemoteParticipantDisconnected -> {
-                participantManager.removeParticipant(remoteParticipantEvent.sid)
-                updateParticipantViewState()
-            }
+            is RemoteParticipantDisconnected -> removeParticipant(remoteParticipantEvent.sid)
         }
     }
 
     private fun handleLocalParticipantEvent(localParticipantEvent: LocalParticipantEvent) {
         when (localParticipantEvent) {
             is LocalParticipantEvent.VideoTrackUpdated -> {
-                participantManager.updateLocalParticipantVideoTrack(
-                        localParticipantEvent.videoTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
+                updateParticipants {
+                    updateLocalParticipantVideoTrack(
+                            localParticipantEvent.videoTrack?.let { VideoTrackViewState(it) })
+                }
                 updateState { currentState -> currentState.copy(isVideoOff = localParticipantEvent.videoTrack == null) }
             }
             AudioOn -> updateState { currentState -> currentState.copy(isAudioMuted = false) }
@@ -268,19 +334,12 @@ class RoomViewModel(
         }
     }
 
-    private fun addParticipant(participant: Participant) {
-        val participantViewState = buildParticipantViewState(participant)
-        participantManager.addParticipant(participantViewState)
-        updateParticipantViewState()
-    }
-
     private fun showLobbyViewState() {
-        action { sendEvent { RoomViewEffect.Disconnected } }
         updateState { currentState ->
             currentState.copy(configuration = Lobby)
         }
-        participantManager.clearRemoteParticipants()
-        updateParticipantViewState()
+        updateParticipants { clearRemoteParticipants() }
+        sendEffect(RoomViewEffect.Disconnected)
     }
 
     private fun showConnectingViewState() {
@@ -296,22 +355,47 @@ class RoomViewModel(
     }
 
     private fun checkParticipants(participants: List<Participant>) {
-        for ((index, participant) in participants.withIndex()) {
-            if (index == 0) { // local participant
-                participantManager.updateLocalParticipantSid(participant.sid)
-            } else {
-                participantManager.addParticipant(buildParticipantViewState(participant))
+        updateParticipants {
+            for ((index, participant) in participants.withIndex()) {
+                if (index == 0) { // local participant
+                    updateLocalParticipantSid(participant.sid)
+                } else {
+                    addParticipant(buildParticipantViewState(participant))
+                }
             }
         }
-        updateParticipantViewState()
+    }
+
+    /*
+     * Applies the participant mutations as a single batch so the primary participant is computed
+     * once and exactly one participant snapshot is published for all of them. While a window of
+     * room events is observed the snapshot is only published once the whole window is applied.
+     */
+    private inline fun updateParticipants(mutations: ParticipantManager.() -> Unit) {
+        participantManager.batch(mutations)
+        if (isObservingRoomEvents) {
+            isParticipantViewStateStale = true
+        } else {
+            updateParticipantViewState()
+        }
     }
 
     private fun updateParticipantViewState() {
+        val participantThumbnails = participantManager.participantThumbnails
+        val primaryParticipant = participantManager.primaryParticipant
         updateState { currentState ->
-            currentState.copy(
-                    participantThumbnails = participantManager.participantThumbnails,
-                    primaryParticipant = participantManager.primaryParticipant
-            )
+            // Keep the current state if the snapshot version and primary participant are unchanged
+            val currentVersion =
+                    (currentState.participantThumbnails as? ParticipantSnapshot)?.version
+            if (currentVersion != participantThumbnails.version ||
+                    currentState.primaryParticipant != primaryParticipant) {
+                currentState.copy(
+                        participantThumbnails = participantThumbnails,
+                        primaryParticipant = primaryParticipant
+                )
+            } else {
+                currentState
+            }
         }
     }
 
@@ -322,8 +406,26 @@ class RoomViewModel(
                         roomName)
             }
 
-    private fun updateState(action: (currentState: RoomViewState) -> UIState) =
-            action { onState<RoomViewState> { currentState -> setState { action(currentState) } } }
+    /*
+     * Queues the reducer on the view state store. All reducers dispatched within a display frame
+     * are applied together and result in a single view state emission.
+     */
+    private fun updateState(reducer: (currentState: RoomViewState) -> RoomViewState) =
+            viewStateStore.dispatch(reducer)
+
+    /*
+     * Effects are sent behind the state they depend on. The queued reducers are applied before
+     * the effect is sent, and effects of a window of room events wait until the participant
+     * snapshot of the whole window has been published.
+     */
+    private fun sendEffect(effect: RoomViewEffect) {
+        if (isObservingRoomEvents) {
+            pendingEffects.add(effect)
+            return
+        }
+        viewStateStore.flush()
+        action { sendEvent { effect } }
+    }
 
     @Suppress("UNCHECKED_CAST")
     class RoomViewModelFactory(
@@ -6,6 +6,7 @@ import com.twilio.video.app.sdk.RoomStats
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import io.uniflow.core.flow.data.UIState
+import java.util.EnumSet
 
 data class RoomViewState(
     val primaryParticipant: ParticipantViewState,
@@ -26,6 +27,56 @@ data class RoomViewState(
     val roomStats: RoomStats? = null
 ) : UIState()
 
+/*
+ * The parts of the room UI that are bound independently from the RoomViewState.
+ */
+enum class RoomViewSection {
+    PRIMARY_PARTICIPANT,
+    THUMBNAILS,
+    LAYOUT,
+    AUDIO_DEVICES,
+    STATS
+}
+
+/*
+ * Returns the sections that depend on at least one field that differs from the previous state.
+ * Every section is returned if there is no previous state. Participant thumbnails and room stats
+ * are replaced whenever they change so they are compared by reference.
+ */
+fun RoomViewState.changedSections(previous: RoomViewState?): EnumSet<RoomViewSection> {
+    if (previous == null) return EnumSet.allOf(RoomViewSection::class.java)
+    val changedSections = EnumSet.noneOf(RoomViewSection::class.java)
+    if (primaryParticipant != previous.primaryParticipant) {
+        changedSections.add(RoomViewSection.PRIMARY_PARTICIPANT)
+    }
+    if (configuration != previous.configuration ||
+            participantThumbnails !== previous.participantThumbnails) {
+        changedSections.add(RoomViewSection.THUMBNAILS)
+    }
+    if (configuration != previous.configuration ||
+            title != previous.title ||
+            isRecording != previous.isRecording ||
+            isMicEnabled != previous.isMicEnabled ||
+            isCameraEnabled != previous.isCameraEnabled ||
+            isAudioMuted != previous.isAudioMuted ||
+            isVideoOff != previous.isVideoOff ||
+            isAudioEnabled != previous.isAudioEnabled ||
+            isVideoEnabled != previous.isVideoEnabled ||
+            isScreenCaptureOn != previous.isScreenCaptureOn) {
+        changedSections.add(RoomViewSection.LAYOUT)
+    }
+    if (selectedDevice != previous.selectedDevice ||
+            availableAudioDevices != previous.availableAudioDevices) {
+        changedSections.add(RoomViewSection.AUDIO_DEVICES)
+    }
+    if (configuration != previous.configuration ||
+            roomStats !== previous.roomStats ||
+            participantThumbnails?.size != previous.participantThumbnails?.size) {
+        changedSections.add(RoomViewSection.STATS)
+    }
+    return changedSections
+}
+
 sealed class RoomViewConfiguration {
     object Connecting : RoomViewConfiguration()
     object Connected : RoomViewConfiguration()
@@ -0,0 +1,74 @@
+package com.twilio.video.app.ui.room
+
+import android.view.Choreographer.FrameCallback
+
+/*
+ * Reducer based holder of the RoomViewState. Reducers may be dispatched from any thread and are
+ * queued until the next display frame, where all of them are applied in dispatch order and the
+ * resulting state is emitted once. A frame that leaves the state instance unchanged emits nothing.
+ * Frame callbacks and flushes run on the main thread.
+ */
+class RoomViewStateStore(
+    initialState: RoomViewState,
+    private val frameScheduler: FrameScheduler,
+    private val emitState: (RoomViewState) -> Unit
+) {
+
+    data class Metrics(val dispatchedReducers: Long, val emittedStates: Long)
+
+    private val lock = Any()
+    private var pendingReducers = ArrayList<(RoomViewState) -> RoomViewState>()
+    private var reducersToApply = ArrayList<(RoomViewState) -> RoomViewState>()
+    private var isFrameScheduled = false
+    private var dispatchedReducers = 0L
+    private var emittedStates = 0L
+    private val frameCallback = FrameCallback { onFrame() }
+
+    @Volatile
+    var state: RoomViewState = initialState
+        private set
+
+    val metrics: Metrics get() = synchronized(lock) { Metrics(dispatchedReducers, emittedStates) }
+
+    fun dispatch(reducer: (currentState: RoomViewState) -> RoomViewState) {
+        synchronized(lock) {
+            pendingReducers.add(reducer)
+            dispatchedReducers++
+            if (isFrameScheduled) return
+            isFrameScheduled = true
+        }
+        frameScheduler.postFrameCallback(frameCallback)
+    }
+
+    /*
+     * Applies the pending reducers now instead of at the next frame, so anything the caller emits
+     * afterwards, like a one-off view effect, is observed after the state it depends on. The frame
+     * that is already scheduled still runs and applies whatever is dispatched until then.
+     */
+    fun flush() {
+        applyPendingReducers()
+    }
+
+    private fun onFrame() {
+        synchronized(lock) { isFrameScheduled = false }
+        applyPendingReducers()
+    }
+
+    private fun applyPendingReducers() {
+        synchronized(lock) {
+            // Swap the queues so reducers dispatched while these are applied go to the next frame
+            val reducers = pendingReducers
+            pendingReducers = reducersToApply
+            reducersToApply = reducers
+        }
+        val previousState = state
+        var newState = previousState
+        reducersToApply.forEach { reducer -> newState = reducer(newState) }
+        reducersToApply.clear()
+        if (newState !== previousState) {
+            state = newState
+            synchronized(lock) { emittedStates++ }
+            emitState(newState)
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import android.widget.TextView
+import androidx.annotation.StringRes
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.twilio.video.app.R
+import com.twilio.video.app.adapter.StatsListAdapter
+import com.twilio.video.app.sdk.RoomStats
+
+/*
+ * Content of the statistics drawer. A single StatsListAdapter and layout manager are kept for the
+ * lifetime of the panel so the stats rows are rebound in place on every update. Stats received
+ * while the panel is hidden are not bound; the latest of them is bound once the panel is shown.
+ */
+class StatsPanel(
+    private val statsRecyclerView: RecyclerView,
+    private val statsDisabled: View,
+    private val statsDisabledTitle: TextView,
+    private val statsDisabledDescription: TextView,
+    private val statsListAdapter: StatsListAdapter = StatsListAdapter(statsRecyclerView.context),
+    private val isPanelVisible: () -> Boolean
+) {
+
+    private var pendingRoomStats: RoomStats? = null
+    private var hasPendingRoomStats = false
+
+    init {
+        statsRecyclerView.layoutManager = LinearLayoutManager(statsRecyclerView.context)
+        statsRecyclerView.adapter = statsListAdapter
+    }
+
+    fun update(roomViewState: RoomViewState, isStatsEnabled: Boolean) {
+        if (!isStatsEnabled) {
+            showMessage(R.string.stats_gathering_disabled, R.string.stats_enable_in_settings)
+            return
+        }
+        when (roomViewState.configuration) {
+            RoomViewConfiguration.Connected -> {
+                // disable stats if there is room but no participants (no media)
+                val isStreamingMedia = roomViewState.participantThumbnails?.let { thumbnails ->
+                    thumbnails.size > 1
+                } ?: false
+                if (isStreamingMedia) {
+                    bindRoomStats(roomViewState.roomStats)
+                    statsRecyclerView.visibility = View.VISIBLE
+                    statsDisabled.visibility = View.GONE
+                } else {
+                    showMessage(R.string.stats_unavailable,
+                            R.string.stats_description_media_not_shared)
+                }
+            }
+            else -> showMessage(R.string.stats_unavailable, R.string.stats_description_join_room)
+        }
+    }
+
+    fun onPanelShown() {
+        if (hasPendingRoomStats) {
+            hasPendingRoomStats = false
+            statsListAdapter.updateStatsData(pendingRoomStats)
+            pendingRoomStats = null
+        }
+    }
+
+    private fun bindRoomStats(roomStats: RoomStats?) {
+        if (isPanelVisible()) {
+            hasPendingRoomStats = false
+            pendingRoomStats = null
+            statsListAdapter.updateStatsData(roomStats)
+        } else {
+            hasPendingRoomStats = true
+            pendingRoomStats = roomStats
+        }
+    }
+
+    private fun showMessage(@StringRes title: Int, @StringRes description: Int) {
+        statsDisabledTitle.setText(title)
+        statsDisabledDescription.setText(description)
+        statsRecyclerView.visibility = View.GONE
+        statsDisabled.visibility = View.VISIBLE
+    }
+}
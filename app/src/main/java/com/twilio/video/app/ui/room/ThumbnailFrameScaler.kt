@@ -0,0 +1,183 @@
+package com.twilio.video.app.ui.room
+
+import java.nio.ByteBuffer
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.roundToInt
+import tvi.webrtc.VideoFrame
+
+/*
+ * Crops and scales the frames rendered by a thumbnail down to the size of its view, so the
+ * renderer uploads and stores textures of the thumbnail size rather than of the decoded
+ * resolution. With isAspectFill the frame is center cropped to the aspect ratio of the view,
+ * otherwise it is scaled to fit inside the view. Frames that are already small enough are passed
+ * through.
+ *
+ * I420 frames are scaled into buffers of an I420BufferPool, so a steady stream of frames does not
+ * allocate pixel memory. Each output pixel averages a 2x2 block of the source around its sample
+ * point, and the planes are read and written a row at a time. Texture frames are scaled with
+ * VideoFrame.Buffer.cropAndScale, which only records the crop and scale in their transform matrix
+ * so the renderer samples the texture at the thumbnail size on the GPU. Frames are scaled on the
+ * thread that delivers them; the target size may be set from another thread.
+ */
+class ThumbnailFrameScaler(private val bufferPool: I420BufferPool = I420BufferPool()) {
+
+    @Volatile
+    private var targetWidth = 0
+    @Volatile
+    private var targetHeight = 0
+    @Volatile
+    var isAspectFill = false
+
+    private var geometryKey = 0L
+    private var cropX = 0
+    private var cropY = 0
+    private var cropWidth = 0
+    private var cropHeight = 0
+    private var scaledWidth = 0
+    private var scaledHeight = 0
+    private var lumaColumns = IntArray(0)
+    private var lumaRows = IntArray(0)
+    private var chromaColumns = IntArray(0)
+    private var chromaRows = IntArray(0)
+    private var sourceRow = ByteArray(0)
+    private var nextSourceRow = ByteArray(0)
+    private var scaledRow = ByteArray(0)
+
+    fun setTargetSize(width: Int, height: Int) {
+        targetWidth = width
+        targetHeight = height
+    }
+
+    /*
+     * Returns the frame to render. A frame other than the given one is a scaled copy that the
+     * caller has to release once it was handed to the renderer.
+     */
+    fun scale(frame: VideoFrame): VideoFrame {
+        val buffer = frame.buffer
+        val isRotated = frame.rotation % 180 != 0
+        val targetWidth = if (isRotated) targetHeight else targetWidth
+        val targetHeight = if (isRotated) this.targetWidth else this.targetHeight
+        if (targetWidth <= 0 || targetHeight <= 0 || buffer.width < 4 || buffer.height < 4 ||
+                !updateGeometry(buffer.width, buffer.height, targetWidth, targetHeight)) {
+            return frame
+        }
+        val scaledBuffer = if (buffer is VideoFrame.I420Buffer) {
+            scaleI420(buffer)
+        } else {
+            buffer.cropAndScale(cropX, cropY, cropWidth, cropHeight, scaledWidth, scaledHeight)
+        }
+        return VideoFrame(scaledBuffer, frame.rotation, frame.timestampNs)
+    }
+
+    private fun scaleI420(buffer: VideoFrame.I420Buffer): VideoFrame.I420Buffer {
+        val scaledBuffer = bufferPool.obtain(scaledWidth, scaledHeight)
+        scalePlane(buffer.dataY, buffer.strideY, scaledBuffer.dataY, scaledBuffer.strideY,
+                lumaColumns, lumaRows)
+        scalePlane(buffer.dataU, buffer.strideU, scaledBuffer.dataU, scaledBuffer.strideU,
+                chromaColumns, chromaRows)
+        scalePlane(buffer.dataV, buffer.strideV, scaledBuffer.dataV, scaledBuffer.strideV,
+                chromaColumns, chromaRows)
+        return scaledBuffer
+    }
+
+    /*
+     * Computes the crop and the scaled size for a frame, reusing the previous result when neither
+     * the frame nor the target size changed. Returns false if the frame does not need scaling.
+     */
+    private fun updateGeometry(
+        width: Int,
+        height: Int,
+        targetWidth: Int,
+        targetHeight: Int
+    ): Boolean {
+        val key = width.toLong() shl 48 or (height.toLong() shl 32) or
+                (targetWidth.toLong() shl 16) or targetHeight.toLong() or
+                (if (isAspectFill) 1L shl 63 else 0L)
+        if (key == geometryKey) return scaledWidth > 0
+        geometryKey = key
+        scaledWidth = 0
+
+        val widthScale = targetWidth.toDouble() / width
+        val heightScale = targetHeight.toDouble() / height
+        val scale = if (isAspectFill) max(widthScale, heightScale) else min(widthScale, heightScale)
+        if (scale >= 1) return false
+        cropWidth = if (isAspectFill) min(width, (targetWidth / scale).roundToInt()) else width
+        cropHeight = if (isAspectFill) min(height, (targetHeight / scale).roundToInt()) else height
+        // Even offsets and sizes keep the chroma planes aligned with the luma plane
+        cropX = (width - cropWidth) / 2 and 1.inv()
+        cropY = (height - cropHeight) / 2 and 1.inv()
+        scaledWidth = evenSize(cropWidth * scale)
+        scaledHeight = evenSize(cropHeight * scale)
+
+        lumaColumns = samplePositions(lumaColumns, cropX, cropWidth, width, scaledWidth)
+        lumaRows = samplePositions(lumaRows, cropY, cropHeight, height, scaledHeight)
+        chromaColumns = samplePositions(chromaColumns, cropX / 2, (cropWidth + 1) / 2,
+                (width + 1) / 2, scaledWidth / 2)
+        chromaRows = samplePositions(chromaRows, cropY / 2, (cropHeight + 1) / 2,
+                (height + 1) / 2, scaledHeight / 2)
+        if (sourceRow.size < width + 1) {
+            sourceRow = ByteArray(width + 1)
+            nextSourceRow = ByteArray(width + 1)
+        }
+        if (scaledRow.size < scaledWidth) scaledRow = ByteArray(scaledWidth)
+        return true
+    }
+
+    private fun evenSize(size: Double) = max(2, size.roundToInt() and 1.inv())
+
+    /*
+     * The first source position of the 2x2 block of every output position, clamped so the block
+     * stays inside the plane. Frames smaller than 4x4 are never scaled, so every plane is at least
+     * two pixels wide and high.
+     */
+    private fun samplePositions(
+        positions: IntArray,
+        cropStart: Int,
+        cropSize: Int,
+        planeSize: Int,
+        scaledSize: Int
+    ): IntArray {
+        val result = if (positions.size == scaledSize) positions else IntArray(scaledSize)
+        val lastPosition = max(0, planeSize - 2)
+        for (i in 0 until scaledSize) {
+            val center = cropStart + ((2 * i + 1) * cropSize) / (2 * scaledSize)
+            result[i] = (center - 1).coerceIn(0, lastPosition)
+        }
+        return result
+    }
+
+    /*
+     * Reads the span of the two source rows the output row samples in bulk, averages the blocks
+     * in the scratch rows and writes the output row in bulk. The plane buffers are slices owned by
+     * this call, so moving their positions does not affect other readers.
+     */
+    private fun scalePlane(
+        source: ByteBuffer,
+        sourceStride: Int,
+        destination: ByteBuffer,
+        destinationStride: Int,
+        columns: IntArray,
+        rows: IntArray
+    ) {
+        val firstColumn = columns[0]
+        val spanLength = columns[columns.size - 1] + 2 - firstColumn
+        for (y in rows.indices) {
+            val rowStart = rows[y] * sourceStride + firstColumn
+            source.position(rowStart)
+            source.get(sourceRow, 0, spanLength)
+            source.position(rowStart + sourceStride)
+            source.get(nextSourceRow, 0, spanLength)
+            for (x in columns.indices) {
+                val column = columns[x] - firstColumn
+                val sum = (sourceRow[column].toInt() and 0xff) +
+                        (sourceRow[column + 1].toInt() and 0xff) +
+                        (nextSourceRow[column].toInt() and 0xff) +
+                        (nextSourceRow[column + 1].toInt() and 0xff)
+                scaledRow[x] = ((sum + 2) shr 2).toByte()
+            }
+            destination.position(y * destinationStride)
+            destination.put(scaledRow, 0, columns.size)
+        }
+    }
+}
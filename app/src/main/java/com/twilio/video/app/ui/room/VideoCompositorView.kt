@@ -0,0 +1,393 @@
+package com.twilio.video.app.ui.room
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Matrix
+import android.graphics.Paint
+import android.graphics.SurfaceTexture
+import android.graphics.drawable.Drawable
+import android.opengl.GLES20
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.Looper
+import android.text.TextPaint
+import android.text.TextUtils
+import android.util.AttributeSet
+import android.view.MotionEvent
+import android.view.TextureView
+import android.view.ViewGroup.LayoutParams.MATCH_PARENT
+import android.widget.FrameLayout
+import androidx.appcompat.content.res.AppCompatResources
+import androidx.core.content.ContextCompat
+import com.twilio.video.NetworkQualityLevel
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.R
+import java.util.concurrent.atomic.AtomicBoolean
+import timber.log.Timber
+import tvi.webrtc.EglBase
+import tvi.webrtc.GlRectDrawer
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoFrameDrawer
+import tvi.webrtc.VideoSink
+
+private const val TILE_ASPECT_RATIO = 96f / 148f
+private const val TILE_GAP_DP = 8
+private const val OVERLAY_PADDING_DP = 4
+private const val OVERLAY_ICON_MARGIN_DP = 6
+private const val OVERLAY_TEXT_SIZE_SP = 14
+private const val NETWORK_QUALITY_ICON_SIZE_DP = 24
+
+/*
+ * Renders the video tracks of several participants into a single surface, one viewport per tile,
+ * instead of a VideoTextureView per participant. Every tile is a VideoSink of its track that keeps
+ * the latest frame, paced and scaled down to the tile like the thumbnails, and any new frame
+ * schedules a render of all tiles on a dedicated GL thread. Renders requested while one is pending
+ * are coalesced. Only enabled tracks get a sink. The identity, mute and network quality overlays of
+ * the thumbnails are drawn over the surface by the view itself.
+ *
+ * The Video SDK keeps the root EGL context shared by its decoders, capturers and renderers
+ * internal, so the GL context of the compositor cannot share it and texture frames are read back
+ * to I420 before they are kept. The frames are scaled to the tile first, which keeps the readback
+ * at the size of the tile, but it still costs a GPU round trip per frame. That is why the
+ * compositor is opt-in through Preferences.THUMBNAIL_COMPOSITOR rather than the default renderer
+ * of the thumbnail strip.
+ */
+class VideoCompositorView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null
+) : FrameLayout(context, attrs), TextureView.SurfaceTextureListener {
+
+    data class Tile(
+        val key: String,
+        val videoTrack: VideoTrack?,
+        val isMirrored: Boolean = false,
+        val identity: String? = null,
+        val isMuted: Boolean = false,
+        val networkQualityLevel: NetworkQualityLevel = NETWORK_QUALITY_LEVEL_UNKNOWN
+    )
+
+    /*
+     * Tiles keep their sink while the track they render stays the same, other changes of the tile
+     * only update what is drawn.
+     */
+    private inner class TileSink(@Volatile var tile: Tile, val sinkTrack: VideoTrack?) : VideoSink {
+        val framePacer = FramePacer(maxFrameRate)
+        val frameScaler = ThumbnailFrameScaler()
+        private var pendingFrame: VideoFrame? = null
+        private var frame: VideoFrame? = null
+        private var isReleased = false
+
+        override fun onFrame(videoFrame: VideoFrame) {
+            if (!framePacer.shouldRender(videoFrame.timestampNs)) return
+            val frame = keptFrame(videoFrame) ?: return
+            synchronized(this) {
+                if (isReleased) {
+                    frame.release()
+                    return
+                }
+                pendingFrame?.release()
+                pendingFrame = frame
+            }
+            requestRender()
+        }
+
+        /*
+         * The latest frame with a reference for the caller, who has to release it.
+         */
+        @Synchronized
+        fun acquireFrame(): VideoFrame? {
+            pendingFrame?.let { pendingFrame ->
+                frame?.release()
+                frame = pendingFrame
+                this.pendingFrame = null
+            }
+            return frame?.also { it.retain() }
+        }
+
+        @Synchronized
+        fun release() {
+            isReleased = true
+            pendingFrame?.release()
+            pendingFrame = null
+            frame?.release()
+            frame = null
+        }
+
+        /*
+         * A frame this sink holds a reference to, scaled to the tile and converted to I420.
+         * Scaling a texture frame only updates its transform, so the readback is of the tile size.
+         */
+        private fun keptFrame(videoFrame: VideoFrame): VideoFrame? {
+            val scaledFrame = frameScaler.scale(videoFrame)
+            val buffer = scaledFrame.buffer
+            if (buffer !is VideoFrame.TextureBuffer) {
+                if (scaledFrame === videoFrame) videoFrame.retain()
+                return scaledFrame
+            }
+            val i420Buffer = buffer.toI420()
+            if (scaledFrame !== videoFrame) scaledFrame.release()
+            return VideoFrame(i420Buffer ?: return null, videoFrame.rotation,
+                    videoFrame.timestampNs)
+        }
+    }
+
+    private class Scene(val tiles: List<TileSink>, val viewports: List<Viewport>)
+
+    private val tileGap = (TILE_GAP_DP * resources.displayMetrics.density).toInt()
+    private val textureView = TextureView(context)
+    private val overlayPadding = OVERLAY_PADDING_DP * resources.displayMetrics.density
+    private val overlayIconMargin =
+            (OVERLAY_ICON_MARGIN_DP * resources.displayMetrics.density).toInt()
+    private val networkQualityIconSize =
+            (NETWORK_QUALITY_ICON_SIZE_DP * resources.displayMetrics.density).toInt()
+    private val identityPaint = TextPaint(Paint.ANTI_ALIAS_FLAG).apply {
+        color = ContextCompat.getColor(context, android.R.color.white)
+        textSize = OVERLAY_TEXT_SIZE_SP * resources.displayMetrics.scaledDensity
+    }
+    private val identityBackgroundPaint = Paint().apply {
+        color = ContextCompat.getColor(context, R.color.participantBackground)
+    }
+    private val overlayDrawables = HashMap<Int, Drawable?>()
+    private val renderRequested = AtomicBoolean()
+    private val renderRunnable = Runnable { render() }
+    @Volatile
+    private var scene = Scene(emptyList(), emptyList())
+    @Volatile
+    private var renderHandler: Handler? = null
+    @Volatile
+    private var surfaceHeight = 0
+
+    // Only accessed on the render thread
+    private var eglBase: EglBase? = null
+    private var drawer: GlRectDrawer? = null
+    private var frameDrawer: VideoFrameDrawer? = null
+    private val renderMatrix = Matrix()
+
+    var onTileClickListener: ((String) -> Unit)? = null
+
+    var maxFrameRate = 0
+        set(value) {
+            field = value
+            scene.tiles.forEach { it.framePacer.maxFrameRate = value }
+        }
+
+    init {
+        textureView.isOpaque = false
+        textureView.surfaceTextureListener = this
+        addView(textureView, MATCH_PARENT, MATCH_PARENT)
+    }
+
+    /*
+     * Shows the given tiles in order. Tiles that did not change keep their sink and latest frame.
+     */
+    fun setTiles(tiles: List<Tile>) {
+        val currentTiles = scene.tiles
+        if (currentTiles.size == tiles.size && currentTiles.indices.all {
+                    currentTiles[it].tile == tiles[it] &&
+                            currentTiles[it].sinkTrack === tiles[it].enabledVideoTrack
+                }) {
+            return
+        }
+        val reusableTiles = currentTiles.associateByTo(HashMap()) { it.tile.key to it.sinkTrack }
+        val newTiles = tiles.map { tile ->
+            val sinkTrack = tile.enabledVideoTrack
+            reusableTiles.remove(tile.key to sinkTrack)?.also { it.tile = tile }
+                    ?: TileSink(tile, sinkTrack).also { sinkTrack?.addSink(it) }
+        }
+        val removedTiles = currentTiles.filter { it !in newTiles }
+        updateScene(newTiles, width, height)
+        removedTiles.forEach { tileSink ->
+            tileSink.sinkTrack?.removeSink(tileSink)
+            tileSink.release()
+        }
+        invalidate()
+    }
+
+    override fun onSizeChanged(width: Int, height: Int, oldWidth: Int, oldHeight: Int) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight)
+        updateScene(scene.tiles, width, height)
+    }
+
+    override fun onTouchEvent(event: MotionEvent): Boolean {
+        val onTileClickListener = onTileClickListener ?: return super.onTouchEvent(event)
+        if (event.actionMasked == MotionEvent.ACTION_UP) {
+            val scene = scene
+            val index = scene.viewports.indexOfFirst {
+                it.contains(event.x.toInt(), event.y.toInt())
+            }
+            if (index >= 0) {
+                performClick()
+                onTileClickListener(scene.tiles[index].tile.key)
+            }
+        }
+        return true
+    }
+
+    override fun performClick() = super.performClick()
+
+    override fun dispatchDraw(canvas: Canvas) {
+        super.dispatchDraw(canvas)
+        val scene = scene
+        for (index in scene.tiles.indices) {
+            val viewport = scene.viewports.getOrNull(index) ?: break
+            drawOverlay(canvas, scene.tiles[index].tile, viewport)
+        }
+    }
+
+    /*
+     * The tiles stop being sinks once the view is detached, the owner sets them again when it is
+     * shown next.
+     */
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        setTiles(emptyList())
+    }
+
+    override fun onSurfaceTextureAvailable(
+        surfaceTexture: SurfaceTexture,
+        width: Int,
+        height: Int
+    ) {
+        val renderThread = HandlerThread("VideoCompositor").apply { start() }
+        val handler = Handler(renderThread.looper)
+        handler.post {
+            try {
+                val eglBase = EglBase.create(null, EglBase.CONFIG_RGBA)
+                this.eglBase = eglBase
+                eglBase.createSurface(surfaceTexture)
+                eglBase.makeCurrent()
+                drawer = GlRectDrawer()
+                frameDrawer = VideoFrameDrawer()
+            } catch (e: RuntimeException) {
+                Timber.e(e, "Failed to set up the video compositor")
+                releaseGl()
+            }
+        }
+        renderHandler = handler
+        requestRender()
+    }
+
+    override fun onSurfaceTextureSizeChanged(
+        surfaceTexture: SurfaceTexture,
+        width: Int,
+        height: Int
+    ) = requestRender()
+
+    /*
+     * The surface texture is released on the render thread once the EGL surface is gone.
+     */
+    override fun onSurfaceTextureDestroyed(surfaceTexture: SurfaceTexture): Boolean {
+        val handler = renderHandler ?: return true
+        renderHandler = null
+        handler.post {
+            releaseGl()
+            surfaceTexture.release()
+            Looper.myLooper()?.quit()
+        }
+        return false
+    }
+
+    override fun onSurfaceTextureUpdated(surfaceTexture: SurfaceTexture) = Unit
+
+    /*
+     * Lays out the overlay of a tile like the thumbnails do: the identity along the top, the
+     * network quality level in the bottom start corner and the muted icon in the bottom end corner.
+     */
+    private fun drawOverlay(canvas: Canvas, tile: Tile, viewport: Viewport) {
+        val left = viewport.x.toFloat()
+        val top = viewport.y.toFloat()
+        val right = left + viewport.width
+        val bottom = top + viewport.height
+        tile.identity?.takeIf { it.isNotEmpty() }?.let { identity ->
+            val textHeight = identityPaint.fontMetrics.run { descent - ascent }
+            canvas.drawRect(left, top, right, top + textHeight + overlayPadding * 2,
+                    identityBackgroundPaint)
+            val text = TextUtils.ellipsize(identity, identityPaint,
+                    viewport.width - overlayPadding * 2, TextUtils.TruncateAt.END)
+            canvas.drawText(text, 0, text.length, left + overlayPadding,
+                    top + overlayPadding - identityPaint.fontMetrics.ascent, identityPaint)
+        }
+        networkQualityLevelImage(tile.networkQualityLevel)?.let { image ->
+            overlayDrawable(image)?.run {
+                val iconLeft = viewport.x + overlayIconMargin
+                val iconBottom = bottom.toInt() - overlayIconMargin
+                setBounds(iconLeft, iconBottom - networkQualityIconSize,
+                        iconLeft + networkQualityIconSize, iconBottom)
+                draw(canvas)
+            }
+        }
+        if (tile.isMuted) {
+            overlayDrawable(R.drawable.ic_thumbnail_no_audio)?.run {
+                val iconRight = right.toInt() - overlayIconMargin
+                val iconBottom = bottom.toInt() - overlayIconMargin
+                setBounds(iconRight - intrinsicWidth, iconBottom - intrinsicHeight, iconRight,
+                        iconBottom)
+                draw(canvas)
+            }
+        }
+    }
+
+    private val Tile.enabledVideoTrack get() = videoTrack?.takeIf { it.isEnabled }
+
+    private fun overlayDrawable(resId: Int) = overlayDrawables.getOrPut(resId) {
+        AppCompatResources.getDrawable(context, resId)
+    }
+
+    private fun updateScene(tiles: List<TileSink>, width: Int, height: Int) {
+        val viewports = compositorLayout(tiles.size, width, height, TILE_ASPECT_RATIO, tileGap)
+        tiles.forEachIndexed { index, tileSink ->
+            viewports.getOrNull(index)?.let {
+                tileSink.frameScaler.setTargetSize(it.width, it.height)
+            }
+        }
+        surfaceHeight = height
+        scene = Scene(tiles, viewports)
+        requestRender()
+        invalidate()
+    }
+
+    private fun requestRender() {
+        if (!renderRequested.compareAndSet(false, true)) return
+        if (renderHandler?.post(renderRunnable) != true) renderRequested.set(false)
+    }
+
+    private fun render() {
+        renderRequested.set(false)
+        val eglBase = eglBase ?: return
+        val drawer = drawer ?: return
+        val frameDrawer = frameDrawer ?: return
+        val scene = scene
+        GLES20.glClearColor(0f, 0f, 0f, 0f)
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+        for (index in scene.tiles.indices) {
+            val viewport = scene.viewports.getOrNull(index) ?: break
+            val tile = scene.tiles[index]
+            val frame = tile.acquireFrame() ?: continue
+            try {
+                val fitViewport = viewport.fit(frame.rotatedWidth, frame.rotatedHeight)
+                renderMatrix.reset()
+                if (tile.tile.isMirrored) {
+                    renderMatrix.preTranslate(0.5f, 0.5f)
+                    renderMatrix.preScale(-1f, 1f)
+                    renderMatrix.preTranslate(-0.5f, -0.5f)
+                }
+                frameDrawer.drawFrame(frame, drawer, renderMatrix, fitViewport.x,
+                        surfaceHeight - fitViewport.y - fitViewport.height, fitViewport.width,
+                        fitViewport.height)
+            } finally {
+                frame.release()
+            }
+        }
+        eglBase.swapBuffers()
+    }
+
+    private fun releaseGl() {
+        frameDrawer?.release()
+        frameDrawer = null
+        drawer?.release()
+        drawer = null
+        eglBase?.release()
+        eglBase = null
+    }
+}
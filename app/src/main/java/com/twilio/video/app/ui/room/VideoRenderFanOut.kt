@@ -0,0 +1,27 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.VideoTrack
+
+/*
+ * Coordinates the views that render the same video track. The primary view puts its track on
+ * stage and the thumbnails of that track suspend rendering while it is there, so each frame of the
+ * primary participant is uploaded and drawn once instead of once per view. Listeners are notified
+ * on the main thread whenever the track on stage changes.
+ */
+internal class VideoRenderFanOut {
+
+    private val listeners = ArrayList<() -> Unit>()
+
+    var stageTrack: VideoTrack? = null
+        set(value) {
+            if (field === value) return
+            field = value
+            for (i in listeners.indices) listeners[i]()
+        }
+
+    fun isOnStage(videoTrack: VideoTrack?) = videoTrack != null && videoTrack === stageTrack
+
+    fun addListener(listener: () -> Unit) {
+        listeners.add(listener)
+    }
+}
@@ -1,10 +1,46 @@
 package com.twilio.video.app.ui.settings
 
+import android.content.Context
 import android.os.Bundle
+import androidx.lifecycle.lifecycleScope
+import androidx.preference.Preference
 import com.twilio.video.app.R
 import com.twilio.video.app.data.Preferences
+import com.twilio.video.app.sdk.BandwidthEstimate
+import com.twilio.video.app.sdk.BandwidthEstimator
+import dagger.android.support.AndroidSupportInjection
+import javax.inject.Inject
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.launch
 
 class BandwidthProfileSettingsFragment : BaseSettingsFragment() {
+
+    @Inject
+    internal lateinit var bandwidthEstimator: BandwidthEstimator
+    private var bandwidthEstimateJob: Job? = null
+
+    override fun onAttach(context: Context) {
+        AndroidSupportInjection.inject(this)
+        super.onAttach(context)
+    }
+
+    /*
+     * The measured bandwidth follows the estimates while a call is running in the background.
+     */
+    override fun onStart() {
+        super.onStart()
+        bandwidthEstimateJob = viewLifecycleOwner.lifecycleScope.launch {
+            bandwidthEstimator.estimates.collect { showBandwidthEstimate(it) }
+        }
+    }
+
+    override fun onStop() {
+        bandwidthEstimateJob?.cancel()
+        bandwidthEstimateJob = null
+        super.onStop()
+    }
+
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
         addPreferencesFromResource(R.xml.bandwidth_profile_preferences)
 
@@ -33,4 +69,13 @@ class BandwidthProfileSettingsFragment : BaseSettingsFragment() {
             Preferences.BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS,
             Preferences.BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT)
     }
+
+    private fun showBandwidthEstimate(estimate: BandwidthEstimate?) {
+        findPreference<Preference>(Preferences.BANDWIDTH_PROFILE_MEASURED_BANDWIDTH)?.summary =
+                estimate?.let {
+                    getString(R.string.settings_screen_measured_bandwidth_summary,
+                            it.inboundBitrate / 1000, it.outboundBitrate / 1000,
+                            it.peakInboundBitrate / 1000, it.peakOutboundBitrate / 1000)
+                } ?: getString(R.string.settings_screen_measured_bandwidth_none)
+    }
 }
@@ -0,0 +1,11 @@
+package com.twilio.video.app.ui.settings;
+
+import dagger.Subcomponent;
+import dagger.android.AndroidInjector;
+
+@Subcomponent
+public interface BandwidthProfileSettingsFragmentSubcomponent
+        extends AndroidInjector<BandwidthProfileSettingsFragment> {
+    @Subcomponent.Factory
+    interface Factory extends AndroidInjector.Factory<BandwidthProfileSettingsFragment> {}
+}
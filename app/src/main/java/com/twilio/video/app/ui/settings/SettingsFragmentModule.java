@@ -6,11 +6,21 @@ import dagger.android.AndroidInjector;
 import dagger.multibindings.ClassKey;
 import dagger.multibindings.IntoMap;
 
-@Module(subcomponents = SettingsFragmentSubcomponent.class)
+@Module(
+        subcomponents = {
+            SettingsFragmentSubcomponent.class,
+            BandwidthProfileSettingsFragmentSubcomponent.class
+        })
 public abstract class SettingsFragmentModule {
     @Binds
     @IntoMap
     @ClassKey(SettingsFragment.class)
     abstract AndroidInjector.Factory<?> bindYourFragmentInjectorFactory(
             SettingsFragmentSubcomponent.Factory factory);
+
+    @Binds
+    @IntoMap
+    @ClassKey(BandwidthProfileSettingsFragment.class)
+    abstract AndroidInjector.Factory<?> bindBandwidthProfileSettingsFragmentInjectorFactory(
+            BandwidthProfileSettingsFragmentSubcomponent.Factory factory);
 }
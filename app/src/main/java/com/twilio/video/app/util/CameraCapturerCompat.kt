@@ -41,6 +41,11 @@ class CameraCapturerCompat(
         cameraCapturer?.startCapture(width, height, framerate) ?: camera2Capturer?.startCapture(width, height, framerate)
     }
 
+    override fun changeCaptureFormat(width: Int, height: Int, framerate: Int) {
+        cameraCapturer?.changeCaptureFormat(width, height, framerate)
+                ?: camera2Capturer?.changeCaptureFormat(width, height, framerate)
+    }
+
     override fun stopCapture() {
         cameraCapturer?.stopCapture() ?: camera2Capturer?.stopCapture()
     }
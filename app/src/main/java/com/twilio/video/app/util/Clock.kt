@@ -0,0 +1,15 @@
+package com.twilio.video.app.util
+
+import android.os.SystemClock
+
+/*
+ * Monotonic time source in milliseconds. Tests provide the virtual time of their coroutine
+ * dispatcher instead.
+ */
+fun interface Clock {
+    fun uptimeMillis(): Long
+}
+
+object SystemUptimeClock : Clock {
+    override fun uptimeMillis() = SystemClock.uptimeMillis()
+}
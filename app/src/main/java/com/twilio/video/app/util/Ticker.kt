@@ -0,0 +1,55 @@
+package com.twilio.video.app.util
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+
+/*
+ * Runs periodic tasks as coroutines of a single shared scope instead of dedicating a thread to
+ * each of them. The interval of a task is queried before every tick, a null interval pauses the
+ * task until it is rescheduled. Rescheduling re-evaluates the interval relative to the last tick,
+ * so a shorter interval takes effect without waiting for the pending tick.
+ */
+class Ticker(
+    private val scope: CoroutineScope,
+    private val clock: Clock = SystemUptimeClock
+) {
+
+    fun schedule(
+        intervalMillis: () -> Long?,
+        task: suspend () -> Unit
+    ): TickerTask {
+        val wakeUps = Channel<Unit>(Channel.CONFLATED)
+        val job = scope.launch {
+            var lastTickMillis: Long? = null
+            while (isActive) {
+                val interval = intervalMillis()
+                if (interval == null) {
+                    wakeUps.receive()
+                    continue
+                }
+                val delayMillis = lastTickMillis?.let { it + interval - clock.uptimeMillis() } ?: 0
+                if (delayMillis > 0 && withTimeoutOrNull(delayMillis) { wakeUps.receive() } != null) {
+                    continue
+                }
+                lastTickMillis = clock.uptimeMillis()
+                task()
+            }
+        }
+        return TickerTask(job, wakeUps)
+    }
+}
+
+class TickerTask internal constructor(private val job: Job, private val wakeUps: Channel<Unit>) {
+
+    val isActive get() = job.isActive
+
+    fun reschedule() {
+        wakeUps.offer(Unit)
+    }
+
+    fun cancel() = job.cancel()
+}
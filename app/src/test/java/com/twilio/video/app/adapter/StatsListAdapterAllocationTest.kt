@@ -0,0 +1,115 @@
+package com.twilio.video.app.adapter
+
+import android.view.ContextThemeWrapper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.twilio.video.LocalAudioTrackStats
+import com.twilio.video.LocalVideoTrackStats
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.sdk.RemoteTrackIndex
+import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.statsReport
+import com.twilio.video.app.sdk.trackStats
+import java.lang.management.ManagementFactory
+import java.lang.reflect.Field
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.Config
+import timber.log.Timber
+
+private const val REMOTE_PARTICIPANTS = 15
+private const val WARM_UP_TICKS = 100
+private const val TICKS = 1_000
+private const val MAX_BYTES_PER_TICK = 256
+
+/*
+ * Measures the allocations of updating the stats rows from a report of the same tracks with
+ * changing values, as happens on every stats tick while the stats panel is shown.
+ */
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class StatsListAdapterAllocationTest : BaseUnitTest() {
+
+    private val context = ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+            R.style.AppTheme)
+    private val adapter = StatsListAdapter(context)
+    private val localAudioTrackStats = trackStats<LocalAudioTrackStats>("trackSid" to "local-audio")
+    private val localVideoTrackStats = trackStats<LocalVideoTrackStats>(
+            "trackSid" to "local-video", "dimensions" to VideoDimensions(640, 480))
+    private val remoteTrackIndex = RemoteTrackIndex()
+    private val remoteAudioTrackStats = (0 until REMOTE_PARTICIPANTS).map {
+        remoteTrackIndex.onTrackSubscribed("participant-$it", "Participant $it", "audio-$it")
+        trackStats<RemoteAudioTrackStats>("trackSid" to "audio-$it")
+    }
+    private val remoteVideoTrackStats = (0 until REMOTE_PARTICIPANTS).map {
+        remoteTrackIndex.onTrackSubscribed("participant-$it", "Participant $it", "video-$it")
+        trackStats<RemoteVideoTrackStats>("trackSid" to "video-$it",
+                "dimensions" to VideoDimensions(320, 240))
+    }
+    private val roomStats = RoomStats(remoteTrackIndex, emptyMap(), listOf(statsReport(
+            localAudioTrackStats,
+            localVideoTrackStats,
+            *remoteAudioTrackStats.toTypedArray(),
+            *remoteVideoTrackStats.toTypedArray())))
+
+    @Test
+    fun `a steady-state stats tick should not allocate`() {
+        assumeTrue(allocatedBytes() >= 0)
+        repeat(WARM_UP_TICKS) { tick(it) }
+        assertThat(adapter.itemCount, equalTo(2 + REMOTE_PARTICIPANTS * 2))
+
+        val allocatedBefore = allocatedBytes()
+        for (tick in WARM_UP_TICKS until WARM_UP_TICKS + TICKS) tick(tick)
+        val bytesPerTick = (allocatedBytes() - allocatedBefore) / TICKS
+
+        Timber.i("%d bytes allocated per stats tick", bytesPerTick)
+        assertThat(bytesPerTick < MAX_BYTES_PER_TICK, equalTo(true))
+    }
+
+    private val jitterField = statsField(LocalAudioTrackStats::class.java, "jitter")
+    private val audioLevelField = statsField(RemoteAudioTrackStats::class.java, "audioLevel")
+    private val frameRateField = statsField(RemoteVideoTrackStats::class.java, "frameRate")
+
+    /*
+     * Values are set through resolved fields on the existing stats instances, so changing them
+     * does not allocate either.
+     */
+    private fun tick(tick: Int) {
+        jitterField.setInt(localAudioTrackStats, tick)
+        for (i in 0 until REMOTE_PARTICIPANTS) {
+            audioLevelField.setInt(remoteAudioTrackStats[i], tick)
+            frameRateField.setInt(remoteVideoTrackStats[i], tick)
+        }
+        adapter.updateStatsData(roomStats)
+    }
+
+    private fun statsField(type: Class<*>, name: String): Field {
+        var declaringType: Class<*>? = type
+        while (declaringType != null) {
+            declaringType.declaredFields.find { it.name == name }?.let { field ->
+                field.isAccessible = true
+                return field
+            }
+            declaringType = declaringType.superclass
+        }
+        throw IllegalArgumentException("No field $name in $type")
+    }
+
+    private fun allocatedBytes(): Long {
+        val threadMXBean = ManagementFactory.getThreadMXBean()
+        return if (threadMXBean is com.sun.management.ThreadMXBean &&
+                threadMXBean.isThreadAllocatedMemorySupported) {
+            threadMXBean.getThreadAllocatedBytes(Thread.currentThread().id)
+        } else {
+            -1
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.twilio.video.app.adapter
+
+import android.view.ContextThemeWrapper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.sdk.RemoteTrackIndex
+import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.statsReport
+import com.twilio.video.app.sdk.trackStats
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.Config
+
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class StatsListAdapterTest : BaseUnitTest() {
+
+    private val context = ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+            R.style.AppTheme)
+    private val adapter = StatsListAdapter(context)
+    private val remoteTrackIndex = RemoteTrackIndex()
+
+    @Test
+    fun `rows of tracks that come and go should keep distinct stable ids`() {
+        update("audio-1", "audio-2", "audio-3")
+        update("audio-2", "audio-3")
+        update("audio-2", "audio-3", "audio-4")
+
+        assertThat(itemIds().distinct().size, equalTo(3))
+    }
+
+    private fun update(vararg trackSids: String) {
+        val trackStats = trackSids.map { trackStats<RemoteAudioTrackStats>("trackSid" to it) }
+        adapter.updateStatsData(RoomStats(remoteTrackIndex, emptyMap(),
+                listOf(statsReport(*trackStats.toTypedArray()))))
+        // The RecyclerView asks for the ids of the rows after every update
+        itemIds()
+    }
+
+    private fun itemIds() = (0 until adapter.itemCount).map { adapter.getItemId(it) }
+}
@@ -0,0 +1,81 @@
+package com.twilio.video.app.model
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.model.StatsListItem.ALL_FIELDS
+import com.twilio.video.app.model.StatsListItem.FIELD_BYTES
+import com.twilio.video.app.model.StatsListItem.FIELD_CAPTURE
+import com.twilio.video.app.model.StatsListItem.FIELD_DESCRIPTION
+import com.twilio.video.app.model.StatsListItem.FIELD_DIMENSIONS
+import com.twilio.video.app.model.StatsListItem.FIELD_JITTER
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class StatsListItemTest : BaseUnitTest() {
+
+    private val item = StatsListItem().apply {
+        reset("1")
+        setDescription("Track", "opus", true, true)
+        takeChangedFields()
+    }
+
+    @Test
+    fun `a reset row should be fully bound`() {
+        item.reset("2")
+
+        assertThat(item.takeChangedFields(), equalTo(ALL_FIELDS))
+        assertThat(item.trackSid, equalTo("2"))
+    }
+
+    @Test
+    fun `setting unchanged values should not record changes`() {
+        item.setDescription("Track", "opus", true, true)
+        item.setBytes(0)
+        item.setJitter(0)
+
+        assertThat(item.hasChangedFields(), equalTo(false))
+    }
+
+    @Test
+    fun `the changed fields should only contain the changed values`() {
+        item.setBytes(10)
+        item.setJitter(10)
+
+        assertThat(item.takeChangedFields(), equalTo(FIELD_BYTES or FIELD_JITTER))
+        assertThat(item.takeChangedFields(), equalTo(0))
+    }
+
+    @Test
+    fun `a changed track name should fully rebind the row`() {
+        item.setDescription("Renamed", "opus", true, true)
+
+        assertThat(item.takeChangedFields(), equalTo(FIELD_DESCRIPTION))
+    }
+
+    @Test
+    fun `showing the capture row should fully rebind the row but changing its text should not`() {
+        item.setCapture("640x480@30")
+        assertThat(item.takeChangedFields(), equalTo(FIELD_DESCRIPTION))
+
+        item.setCapture("480x360@30")
+        assertThat(item.takeChangedFields(), equalTo(FIELD_CAPTURE))
+    }
+
+    @Test
+    fun `the dimensions text should only be rebuilt when the dimensions change`() {
+        item.setDimensions(640, 480)
+        val dimensions = item.dimensions
+        item.takeChangedFields()
+
+        item.setDimensions(640, 480)
+
+        assertThat(item.dimensions, sameInstance(dimensions))
+        assertThat(item.hasChangedFields(), equalTo(false))
+
+        item.setDimensions(1280, 720)
+
+        assertThat(item.dimensions, equalTo("1280x720"))
+        assertThat(item.takeChangedFields(), equalTo(FIELD_DIMENSIONS))
+    }
+}
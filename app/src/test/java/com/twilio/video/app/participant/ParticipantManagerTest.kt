@@ -6,6 +6,7 @@ import com.nhaarman.mockitokotlin2.times
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.verifyZeroInteractions
 import com.twilio.video.LocalVideoTrack
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
 import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.TrackPriority.HIGH
 import com.twilio.video.VideoTrack
@@ -276,6 +277,112 @@ class ParticipantManagerTest : BaseUnitTest() {
         }
     }
 
+    @Test
+    fun `removeParticipant should keep the thumbnail order of the remaining participants`() {
+        setupThreeParticipantScenario()
+        participantManager.addParticipant(ParticipantViewState("4", "Participant 4"))
+
+        participantManager.removeParticipant("3")
+
+        assertThat(participantManager.participantThumbnails.map { it.sid },
+                equalTo(listOf("1", "2", "4")))
+    }
+
+    @Test
+    fun `updateNetworkQuality should not change the thumbnail order`() {
+        setupThreeParticipantScenario()
+
+        participantManager.updateNetworkQuality("2", NETWORK_QUALITY_LEVEL_THREE)
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails.map { it.sid }, equalTo(listOf("1", "2", "3")))
+        assertThat(thumbnails[1].networkQualityLevel, equalTo(NETWORK_QUALITY_LEVEL_THREE))
+    }
+
+    @Test
+    fun `changeDominantSpeaker should move the previous second participant down one position`() {
+        setupThreeParticipantScenario()
+        participantManager.addParticipant(ParticipantViewState("4", "Participant 4"))
+
+        participantManager.changeDominantSpeaker("4")
+        participantManager.changeDominantSpeaker("3")
+
+        assertThat(participantManager.participantThumbnails.map { it.sid },
+                equalTo(listOf("1", "3", "4", "2")))
+    }
+
+    @Test
+    fun `primary participant should fall back from pinned to screen sharing to dominant speaker`() {
+        setupThreeParticipantScenario()
+        participantManager.addParticipant(ParticipantViewState("4", "Participant 4"))
+        participantManager.changeDominantSpeaker("4")
+        participantManager.updateParticipantScreenTrack("3",
+                VideoTrackViewState(mock<RemoteVideoTrack>()))
+        participantManager.changePinnedParticipant("2")
+        assertThat(participantManager.primaryParticipant.sid, equalTo("2"))
+
+        participantManager.changePinnedParticipant("2")
+        assertThat(participantManager.primaryParticipant.sid, equalTo("3"))
+
+        participantManager.updateParticipantScreenTrack("3", null)
+        assertThat(participantManager.primaryParticipant.sid, equalTo("4"))
+
+        participantManager.removeParticipant("4")
+        assertThat(participantManager.primaryParticipant.sid, equalTo("2"))
+    }
+
+    @Test
+    fun `primary participant VideoTrack priority should not be reassigned for network quality updates`() {
+        setupThreeParticipantScenario()
+        val videoTrack = participantManager.primaryParticipant.getRemoteVideoTrack()!!
+
+        participantManager.updateNetworkQuality("2", NETWORK_QUALITY_LEVEL_THREE)
+        participantManager.updateNetworkQuality("2", NETWORK_QUALITY_LEVEL_THREE)
+
+        verify(videoTrack, times(1)).priority = HIGH
+        assertThat(participantManager.primaryParticipant.networkQualityLevel,
+                equalTo(NETWORK_QUALITY_LEVEL_THREE))
+    }
+
+    @Test
+    fun `batch should only update the primary participant when the batch is committed`() {
+        val participant2 = ParticipantViewState("2", "Participant 2",
+                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+        val participant3 = ParticipantViewState("3", "Participant 3",
+                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+
+        participantManager.batch {
+            updateLocalParticipant(localParticipant)
+            addParticipant(participant2)
+            addParticipant(participant3)
+            changePinnedParticipant("3")
+
+            assertThat(primaryParticipant.isLocalParticipant, equalTo(true))
+        }
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("3"))
+        verifyZeroInteractions(participant2.videoTrack!!.videoTrack)
+        verify(participant3.getRemoteVideoTrack()!!).priority = HIGH
+    }
+
+    @Test
+    fun `nested batches should only update the primary participant when the outermost batch is committed`() {
+        participantManager.beginBatch()
+        participantManager.batch {
+            addParticipant(ParticipantViewState("2", "Participant 2"))
+        }
+        assertThat(participantManager.primaryParticipant.isLocalParticipant, equalTo(true))
+
+        participantManager.commitBatch()
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("2"))
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun `commitBatch should throw an IllegalStateException without a matching beginBatch`() {
+        participantManager.commitBatch()
+    }
+
     private fun setupExistingDominantSpeakerScenario() {
         val participant2 = ParticipantViewState("2", "Participant 2",
                 isDominantSpeaker = true)
@@ -0,0 +1,186 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class ParticipantStoreTest : BaseUnitTest() {
+
+    private val localParticipant = ParticipantViewState("1", "Local Participant",
+            isLocalParticipant = true)
+    private val participantStore = ParticipantStore(localParticipant)
+
+    @Test
+    fun `add should append participants after the local participant in insertion order`() {
+        addParticipants("2", "3", "4")
+
+        assertThat(sids(), equalTo(listOf("1", "2", "3", "4")))
+        assertThat(participantStore.size, equalTo(4))
+    }
+
+    @Test
+    fun `add should update an existing participant in place instead of duplicating it`() {
+        addParticipants("2", "3", "4")
+
+        participantStore.add(ParticipantViewState("3", "Updated"))
+
+        assertThat(sids(), equalTo(listOf("1", "2", "3", "4")))
+        assertThat(participantStore["3"]!!.identity, equalTo("Updated"))
+    }
+
+    @Test
+    fun `get should return participants by sid including the local participant`() {
+        addParticipants("2", "3")
+
+        assertThat(participantStore["1"], equalTo(localParticipant))
+        assertThat(participantStore["3"]!!.sid, equalTo("3"))
+        assertThat(participantStore["5"], `is`(nullValue()))
+    }
+
+    @Test
+    fun `update should replace the participant without changing the order`() {
+        addParticipants("2", "3", "4")
+
+        val updated = participantStore.update(ParticipantViewState("3", "Participant 3", isMuted = true))
+
+        assertThat(updated, equalTo(true))
+        assertThat(sids(), equalTo(listOf("1", "2", "3", "4")))
+        assertThat(participantStore["3"]!!.isMuted, equalTo(true))
+    }
+
+    @Test
+    fun `update should return false for an unknown sid`() {
+        addParticipants("2")
+
+        assertThat(participantStore.update(ParticipantViewState("5")), equalTo(false))
+        assertThat(sids(), equalTo(listOf("1", "2")))
+    }
+
+    @Test
+    fun `remove should unlink the participant from the middle, head and tail of the remote list`() {
+        addParticipants("2", "3", "4", "5")
+
+        participantStore.remove("3")
+        assertThat(sids(), equalTo(listOf("1", "2", "4", "5")))
+
+        participantStore.remove("2")
+        assertThat(sids(), equalTo(listOf("1", "4", "5")))
+
+        participantStore.remove("5")
+        assertThat(sids(), equalTo(listOf("1", "4")))
+
+        participantStore.add(ParticipantViewState("6"))
+        assertThat(sids(), equalTo(listOf("1", "4", "6")))
+        assertThat(participantStore.size, equalTo(3))
+    }
+
+    @Test
+    fun `remove should never remove the local participant`() {
+        addParticipants("2")
+
+        assertThat(participantStore.remove("1"), `is`(nullValue()))
+        assertThat(sids(), equalTo(listOf("1", "2")))
+    }
+
+    @Test
+    fun `moveToTop should move the participant to the second position`() {
+        addParticipants("2", "3", "4")
+
+        participantStore.moveToTop(ParticipantViewState("4", isDominantSpeaker = true))
+
+        assertThat(sids(), equalTo(listOf("1", "4", "2", "3")))
+        assertThat(participantStore["4"]!!.isDominantSpeaker, equalTo(true))
+    }
+
+    @Test
+    fun `moveToTop should keep the tail consistent when moving the last participant`() {
+        addParticipants("2", "3")
+
+        participantStore.moveToTop(ParticipantViewState("3"))
+        participantStore.add(ParticipantViewState("4"))
+
+        assertThat(sids(), equalTo(listOf("1", "3", "2", "4")))
+    }
+
+    @Test
+    fun `setting the local participant should re-index it by its new sid`() {
+        val participantStore = ParticipantStore(ParticipantViewState(isLocalParticipant = true))
+
+        participantStore.localParticipant = localParticipant
+
+        assertThat(participantStore["1"], equalTo(localParticipant))
+    }
+
+    @Test
+    fun `clearRemoteParticipants should only keep the local participant`() {
+        addParticipants("2", "3")
+
+        participantStore.clearRemoteParticipants()
+        participantStore.add(ParticipantViewState("4"))
+
+        assertThat(sids(), equalTo(listOf("1", "4")))
+        assertThat(participantStore["2"], `is`(nullValue()))
+    }
+
+    @Test
+    fun `snapshot should return the same instance while the store is unchanged`() {
+        addParticipants("2", "3")
+
+        val snapshot = participantStore.snapshot()
+
+        assertThat(participantStore.snapshot() === snapshot, equalTo(true))
+        assertThat(snapshot.map { it.sid }, equalTo(listOf("1", "2", "3")))
+    }
+
+    @Test
+    fun `snapshot should increase the version for every change`() {
+        addParticipants("2", "3")
+        val first = participantStore.snapshot()
+
+        participantStore.update(ParticipantViewState("2", isMuted = true))
+        val second = participantStore.snapshot()
+        participantStore.remove("3")
+        val third = participantStore.snapshot()
+
+        assertThat(second.version > first.version, equalTo(true))
+        assertThat(third.version > second.version, equalTo(true))
+    }
+
+    @Test
+    fun `snapshot should share unchanged chunks with the previous snapshot after an update`() {
+        addParticipants(*(2..70).map { it.toString() }.toTypedArray())
+        val previous = participantStore.snapshot()
+
+        participantStore.update(ParticipantViewState("50", isMuted = true))
+        val snapshot = participantStore.snapshot()
+
+        assertThat(snapshot.size, equalTo(70))
+        assertThat(snapshot[49].isMuted, equalTo(true))
+        assertThat(previous[49].isMuted, equalTo(false))
+        assertThat(snapshot.sharesChunkWith(previous, 0), equalTo(true))
+        assertThat(snapshot.sharesChunkWith(previous, 49), equalTo(false))
+        assertThat(snapshot.sharesChunkWith(previous, 69), equalTo(true))
+    }
+
+    @Test
+    fun `snapshot should keep the thumbnail order after structural changes`() {
+        addParticipants("2", "3", "4")
+        participantStore.snapshot()
+
+        participantStore.moveToTop(ParticipantViewState("4"))
+        participantStore.update(ParticipantViewState("2", isMuted = true))
+
+        val snapshot = participantStore.snapshot()
+        assertThat(snapshot.map { it.sid }, equalTo(listOf("1", "4", "2", "3")))
+        assertThat(snapshot[2].isMuted, equalTo(true))
+        assertThat(snapshot, equalTo(participantStore.toList()))
+    }
+
+    private fun addParticipants(vararg sids: String) =
+            sids.forEach { participantStore.add(ParticipantViewState(it, "Participant $it")) }
+
+    private fun sids() = participantStore.map { it.sid }
+}
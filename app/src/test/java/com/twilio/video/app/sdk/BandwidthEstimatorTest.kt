@@ -0,0 +1,111 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.LocalVideoTrackStats
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class BandwidthEstimatorTest : BaseUnitTest() {
+
+    private val estimator = BandwidthEstimator(alpha = 0.5)
+    private val trackStatsHistory = TrackStatsHistory()
+
+    @Test
+    fun `the first report of a track should not yield a bitrate`() {
+        val estimate = update(0, reports(remoteVideoBytes = 1000))
+
+        assertThat(estimate.tracks["video"]?.bitrate, equalTo(0L))
+        assertThat(estimate.inboundBitrate, equalTo(0L))
+    }
+
+    @Test
+    fun `bitrates should be smoothed per track and summed per direction`() {
+        update(0, reports(localVideoBytes = 0, remoteAudioBytes = 0, remoteVideoBytes = 0))
+        // 8000 bps of video and 4000 bps of audio received, 16000 bps of video sent
+        update(1000, reports(localVideoBytes = 2000, remoteAudioBytes = 500,
+                remoteVideoBytes = 1000))
+        // The video rate doubles, which the smoothing only follows half way
+        val estimate = update(2000, reports(localVideoBytes = 4000,
+                remoteAudioBytes = 1000, remoteVideoBytes = 3000))
+
+        assertThat(estimate.tracks["video"]?.bitrate, equalTo(12_000L))
+        assertThat(estimate.tracks["audio"]?.bitrate, equalTo(4000L))
+        assertThat(estimate.inboundBitrate, equalTo(16_000L))
+        assertThat(estimate.outboundBitrate, equalTo(16_000L))
+        assertThat(estimate.outboundVideoBitrate, equalTo(16_000L))
+        assertThat(estimator.estimates.value, equalTo(estimate))
+    }
+
+    @Test
+    fun `a counter reset should count as a sample without traffic`() {
+        update(0, reports(remoteVideoBytes = 0))
+        update(1000, reports(remoteVideoBytes = 1000))
+
+        val resetEstimate = update(2000, reports(remoteVideoBytes = 100))
+        val nextEstimate = update(3000, reports(remoteVideoBytes = 1100))
+
+        assertThat(resetEstimate.inboundBitrate, equalTo(4000L))
+        assertThat(nextEstimate.inboundBitrate, equalTo(6000L))
+    }
+
+    @Test
+    fun `tracks missing from the reports should be dropped`() {
+        update(0, reports(remoteAudioBytes = 0, remoteVideoBytes = 0))
+        update(1000, reports(remoteAudioBytes = 1000, remoteVideoBytes = 1000))
+
+        val estimate = update(2000, reports(remoteAudioBytes = 2000))
+
+        assertThat(estimate.tracks.keys, equalTo(setOf("audio")))
+        assertThat(estimate.inboundBitrate, equalTo(8000L))
+    }
+
+    @Test
+    fun `the last estimate should be kept for the next connect`() {
+        update(0, reports(remoteVideoBytes = 0))
+        update(1000, reports(remoteVideoBytes = 250_000))
+
+        estimator.reset()
+
+        assertThat(estimator.estimates.value?.peakInboundBitrate, equalTo(2_000_000L))
+        assertThat(estimator.subscriptionBitrateHintKbps(2000), equalTo(3000))
+        assertThat(estimator.subscriptionBitrateHintKbps(1000 + MAX_BANDWIDTH_HINT_AGE_MILLIS + 1),
+                `is`(nullValue()))
+    }
+
+    @Test
+    fun `the subscription bitrate hint should not go below the minimum`() {
+        update(0, reports(remoteVideoBytes = 0))
+        update(1000, reports(remoteVideoBytes = 1000))
+
+        assertThat(estimator.subscriptionBitrateHintKbps(1000),
+                equalTo(MIN_SUBSCRIPTION_BITRATE_HINT_KBPS))
+    }
+
+    private fun update(timestampMillis: Long, statsReports: List<StatsReport>) =
+            estimator.update(timestampMillis, statsReports,
+                    trackStatsHistory.record(timestampMillis, statsReports))
+
+    private fun reports(
+        localVideoBytes: Long? = null,
+        remoteAudioBytes: Long? = null,
+        remoteVideoBytes: Long? = null
+    ) = listOf(statsReport(*listOfNotNull(
+            localVideoBytes?.let {
+                trackStats<LocalVideoTrackStats>("trackSid" to "local", "bytesSent" to it,
+                        "dimensions" to VideoDimensions(640, 480))
+            },
+            remoteAudioBytes?.let {
+                trackStats<RemoteAudioTrackStats>("trackSid" to "audio", "bytesReceived" to it)
+            },
+            remoteVideoBytes?.let {
+                trackStats<RemoteVideoTrackStats>("trackSid" to "video", "bytesReceived" to it,
+                        "dimensions" to VideoDimensions(640, 480))
+            }).toTypedArray()))
+}
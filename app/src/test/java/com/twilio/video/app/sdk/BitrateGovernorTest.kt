@@ -0,0 +1,123 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val SAMPLE_INTERVAL_MILLIS = 1000L
+
+/*
+ * Feeds synthetic stats traces, one sample per second, to a governor and records the video
+ * bitrate limit after every sample.
+ */
+class BitrateGovernorTest : BaseUnitTest() {
+
+    private class Trace(private val governor: BitrateGovernor) {
+        val limits = mutableListOf<Int>()
+        var changes = 0
+        private var timestampMillis = 0L
+
+        fun run(
+            seconds: Int,
+            sentKbps: (limitKbps: Int) -> Int = { it },
+            packetLossPercentage: (second: Int) -> Float = { 0f },
+            roundTripTimeMillis: Long = 100,
+            remoteParticipantCount: Int = 1,
+            thermalStatus: Int = THERMAL_STATUS_NONE
+        ) {
+            repeat(seconds) { second ->
+                val sample = BitrateGovernor.Sample(timestampMillis,
+                        sentKbps(governor.videoBitrateKbps) * 1000L,
+                        packetLossPercentage(second), roundTripTimeMillis, remoteParticipantCount,
+                        thermalStatus)
+                if (governor.onSample(sample) != null) changes++
+                limits.add(governor.videoBitrateKbps)
+                timestampMillis += SAMPLE_INTERVAL_MILLIS
+            }
+        }
+    }
+
+    @Test
+    fun `a clean uplink should keep the preferred maximum`() {
+        val trace = Trace(BitrateGovernor(16, 1000))
+
+        trace.run(30)
+
+        assertThat(trace.changes, equalTo(0))
+        assertThat(trace.limits.last(), equalTo(1000))
+    }
+
+    @Test
+    fun `congestion should decrease the limit in bounded and rate limited steps`() {
+        val trace = Trace(BitrateGovernor(16, 1000))
+
+        trace.run(6, packetLossPercentage = { 10f })
+
+        assertThat(trace.limits, equalTo(listOf(750, 750, 562, 562, 421, 421)))
+    }
+
+    @Test
+    fun `the limit should recover slowly once the uplink is clean`() {
+        val governor = BitrateGovernor(16, 1000)
+        val trace = Trace(governor)
+        trace.run(2, packetLossPercentage = { 10f })
+
+        trace.run(20)
+
+        // One increase of at most 10% every five seconds
+        assertThat(trace.limits.drop(2).distinct(), equalTo(listOf(750, 825, 907, 997, 1000)))
+    }
+
+    @Test
+    fun `an idle encoder should not raise the limit`() {
+        val governor = BitrateGovernor(16, 1000)
+        val trace = Trace(governor)
+        trace.run(2, packetLossPercentage = { 10f })
+
+        trace.run(20, sentKbps = { 100 })
+
+        assertThat(trace.limits.last(), equalTo(750))
+    }
+
+    @Test
+    fun `alternating congestion should not oscillate`() {
+        val trace = Trace(BitrateGovernor(16, 1000))
+
+        trace.run(60, packetLossPercentage = { second -> if (second % 2 == 0) 10f else 0f })
+
+        // Increases are blocked by the decreases every other second
+        assertThat(trace.limits.zipWithNext().count { (a, b) -> b > a }, equalTo(0))
+        assertThat(trace.limits.last(), equalTo(150))
+    }
+
+    @Test
+    fun `a severe thermal status should lower the limit to half of the maximum`() {
+        val trace = Trace(BitrateGovernor(16, 1000))
+
+        trace.run(10, thermalStatus = THERMAL_STATUS_SEVERE)
+
+        assertThat(trace.limits.distinct(), equalTo(listOf(750, 562, 500)))
+    }
+
+    @Test
+    fun `large rooms should lower the limit`() {
+        val trace = Trace(BitrateGovernor(16, 1000))
+
+        trace.run(10, remoteParticipantCount = 6)
+
+        assertThat(trace.limits.last(), equalTo(500))
+    }
+
+    @Test
+    fun `an unlimited preference should be reported as unlimited at the ceiling`() {
+        val governor = BitrateGovernor(16, 0)
+
+        assertThat(governor.limits, equalTo(EncodingLimits(16, 0)))
+
+        val limits = governor.onSample(BitrateGovernor.Sample(0, 2_000_000, 10f, 100, 1,
+                THERMAL_STATUS_NONE))
+
+        assertThat(limits, equalTo(EncodingLimits(16, 1500)))
+    }
+}
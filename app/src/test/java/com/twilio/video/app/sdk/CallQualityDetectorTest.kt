@@ -0,0 +1,209 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.LocalAudioTrackStats
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.AudioDropout
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.PacketLossSpike
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.Recovered
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.RoundTripTimeExcursion
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.VideoFreeze
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.instanceOf
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class CallQualityDetectorTest : BaseUnitTest() {
+
+    private val detector = CallQualityDetector()
+    private val trackStatsHistory = TrackStatsHistory()
+    private var timestampMillis = 0L
+    private var packets = 0
+    private var packetsLost = 0
+    private var bytes = 0L
+
+    @Test
+    fun `a packet loss spike should be reported once and recovered from`() {
+        repeat(10) { assertThat(remoteAudio(received = 100, lost = 0), equalTo(emptyList())) }
+
+        val spike = remoteAudio(received = 80, lost = 20)
+        val ongoing = remoteAudio(received = 80, lost = 20)
+        val recovered = remoteAudio(received = 100, lost = 0)
+
+        assertThat(spike, equalTo(listOf<CallQualityEvent>(PacketLossSpike("MT1", 20f, 0f))))
+        assertThat(ongoing, equalTo(emptyList()))
+        assertThat(recovered, equalTo(listOf<CallQualityEvent>(
+                Recovered("MT1", CallQualityAnomaly.PACKET_LOSS_SPIKE))))
+    }
+
+    @Test
+    fun `packet loss below the floor should not be reported`() {
+        repeat(10) { remoteAudio(received = 100, lost = 0) }
+
+        assertThat(remoteAudio(received = 97, lost = 3), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `the packet loss baseline should absorb noise`() {
+        repeat(20) { i -> remoteAudio(received = 90 + (i % 2) * 4, lost = 10 - (i % 2) * 4) }
+
+        assertThat(remoteAudio(received = 90, lost = 10), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `a round trip time excursion should be reported`() {
+        repeat(10) { localAudio(roundTripTime = 50) }
+
+        val events = localAudio(roundTripTime = 800)
+
+        assertThat(events, equalTo(listOf<CallQualityEvent>(
+                RoundTripTimeExcursion("MT1", 800, 50f))))
+    }
+
+    @Test
+    fun `a video freeze should be reported after consecutive samples without frames`() {
+        remoteVideo(frameRate = 30)
+
+        assertThat(remoteVideo(frameRate = 0), equalTo(emptyList()))
+        assertThat(remoteVideo(frameRate = 0), equalTo(listOf<CallQualityEvent>(VideoFreeze("MT1"))))
+        assertThat(remoteVideo(frameRate = 0), equalTo(emptyList()))
+        assertThat(remoteVideo(frameRate = 24), equalTo(listOf<CallQualityEvent>(
+                Recovered("MT1", CallQualityAnomaly.VIDEO_FREEZE))))
+    }
+
+    @Test
+    fun `switched off video should not be reported as frozen`() {
+        detector.onTrackSwitchedOff("MT1", true)
+
+        repeat(5) { assertThat(remoteVideo(frameRate = 0), equalTo(emptyList())) }
+    }
+
+    @Test
+    fun `static screen tracks should not be reported as frozen`() {
+        detector.onTrackSubscribed("MT1", isEnabled = true, isScreenTrack = true)
+
+        repeat(5) { assertThat(remoteVideo(frameRate = 0), equalTo(emptyList())) }
+    }
+
+    @Test
+    fun `an audio dropout should be reported after consecutive samples without audio bytes`() {
+        remoteAudio()
+
+        assertThat(remoteAudio(bytesReceived = 0), equalTo(emptyList()))
+        assertThat(remoteAudio(bytesReceived = 0), equalTo(emptyList()))
+        assertThat(remoteAudio(bytesReceived = 0), equalTo(listOf<CallQualityEvent>(
+                AudioDropout("MT1"))))
+        assertThat(remoteAudio(), equalTo(listOf<CallQualityEvent>(
+                Recovered("MT1", CallQualityAnomaly.AUDIO_DROPOUT))))
+    }
+
+    @Test
+    fun `a silent but healthy audio track should not be reported as dropped out`() {
+        repeat(10) { assertThat(remoteAudio(audioLevel = 0), equalTo(emptyList())) }
+    }
+
+    @Test
+    fun `a local user listening with the microphone on should not be reported as dropped out`() {
+        repeat(10) { assertThat(localAudio(audioLevel = 0), equalTo(emptyList())) }
+    }
+
+    @Test
+    fun `an audio dropout should only be reported while the track is unmuted`() {
+        detector.onTrackEnabled("MT1", false)
+        repeat(5) { assertThat(remoteAudio(bytesReceived = 0), equalTo(emptyList())) }
+
+        detector.onTrackEnabled("MT1", true)
+        val events = (1..3).flatMap { remoteAudio(bytesReceived = 0) }
+
+        assertThat(events.single(), instanceOf(AudioDropout::class.java))
+    }
+
+    @Test
+    fun `a disabled local audio track should not be reported as dropped out`() {
+        repeat(5) {
+            assertThat(localAudio(bytesSent = 0, isLocalAudioEnabled = false), equalTo(emptyList()))
+        }
+    }
+
+    @Test
+    fun `a track missing from the reports should start over`() {
+        remoteVideo(frameRate = 0)
+        detect(statsReport())
+
+        assertThat(remoteVideo(frameRate = 0), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `an unsubscribed track should be forgotten`() {
+        detector.onTrackSwitchedOff("MT1", true)
+        remoteVideo(frameRate = 0)
+
+        detector.onTrackUnsubscribed("MT1")
+        remoteVideo(frameRate = 0)
+
+        assertThat(remoteVideo(frameRate = 0), equalTo(listOf<CallQualityEvent>(VideoFreeze("MT1"))))
+    }
+
+    private fun remoteAudio(
+        received: Int = 100,
+        lost: Int = 0,
+        bytesReceived: Long = 4000,
+        audioLevel: Int = 1000
+    ): List<CallQualityEvent> {
+        packets += received
+        packetsLost += lost
+        bytes += bytesReceived
+        val stats = trackStats<RemoteAudioTrackStats>("trackSid" to "MT1",
+                "packetsReceived" to packets, "packetsLost" to packetsLost,
+                "bytesReceived" to bytes, "audioLevel" to audioLevel)
+        return detect(statsReport(remoteAudio = listOf(stats)))
+    }
+
+    private fun remoteVideo(frameRate: Int): List<CallQualityEvent> {
+        packets += 100
+        val stats = trackStats<RemoteVideoTrackStats>("trackSid" to "MT1",
+                "packetsReceived" to packets, "frameRate" to frameRate,
+                "dimensions" to VideoDimensions(640, 480))
+        return detect(statsReport(remoteVideo = listOf(stats)))
+    }
+
+    private fun localAudio(
+        roundTripTime: Long = 50,
+        audioLevel: Int = 1000,
+        bytesSent: Long = 4000,
+        isLocalAudioEnabled: Boolean = true
+    ): List<CallQualityEvent> {
+        packets += 100
+        bytes += bytesSent
+        val stats = trackStats<LocalAudioTrackStats>("trackSid" to "MT1", "packetsSent" to packets,
+                "bytesSent" to bytes, "roundTripTime" to roundTripTime, "audioLevel" to audioLevel)
+        return detect(statsReport(localAudio = listOf(stats)), isLocalAudioEnabled)
+    }
+
+    private fun detect(
+        statsReport: StatsReport,
+        isLocalAudioEnabled: Boolean = true
+    ): List<CallQualityEvent> {
+        val statsReports = listOf(statsReport)
+        timestampMillis += 1000
+        val trackStats = trackStatsHistory.record(timestampMillis, statsReports)
+        return detector.detect(statsReports, trackStats, isLocalAudioEnabled, true)
+    }
+
+    private fun statsReport(
+        localAudio: List<LocalAudioTrackStats> = emptyList(),
+        remoteAudio: List<RemoteAudioTrackStats> = emptyList(),
+        remoteVideo: List<RemoteVideoTrackStats> = emptyList()
+    ) = mock<StatsReport>().apply {
+        whenever(localAudioTrackStats).thenReturn(localAudio)
+        whenever(localVideoTrackStats).thenReturn(emptyList())
+        whenever(remoteAudioTrackStats).thenReturn(remoteAudio)
+        whenever(remoteVideoTrackStats).thenReturn(remoteVideo)
+    }
+}
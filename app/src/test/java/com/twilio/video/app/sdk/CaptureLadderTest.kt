@@ -0,0 +1,114 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val BITRATE = 500_000L
+
+class CaptureLadderTest : BaseUnitTest() {
+
+    private val dimensions = arrayOf(
+            VideoDimensions(176, 144),
+            VideoDimensions(352, 288),
+            VideoDimensions(640, 480),
+            VideoDimensions(1280, 720))
+    private val ladder = CaptureLadder(dimensions, 2, CaptureLadder.Thresholds(
+            stepDownSamples = 2, stepUpSamples = 3, holdSamples = 1))
+    private val vga = CaptureFormat(640, 480, 30)
+    private val cif = CaptureFormat(352, 288, 30)
+
+    @Test
+    fun `the ladder should descend from the preferred dimensions to the lowest framerate`() {
+        assertThat(ladder.rungs, equalTo(listOf(vga, cif, CaptureFormat(176, 144, 30),
+                CaptureFormat(176, 144, 15))))
+        assertThat(ladder.format, equalTo(vga))
+    }
+
+    @Test
+    fun `consecutive congested samples should step down`() {
+        assertThat(ladder.onStats(10f, 100, BITRATE), nullValue())
+
+        val step = ladder.onStats(10f, 100, BITRATE)
+
+        assertThat(step, equalTo(CaptureStep(vga, cif, CaptureStepReason.PACKET_LOSS)))
+        assertThat(ladder.format, equalTo(cif))
+        assertThat(ladder.state("MT1"), equalTo(CaptureState("MT1", cif, 1, 4, step)))
+    }
+
+    @Test
+    fun `a single congested sample should not step down`() {
+        ladder.onStats(10f, 100, BITRATE)
+        ladder.onStats(2f, 100, BITRATE)
+
+        assertThat(ladder.onStats(10f, 100, BITRATE), nullValue())
+        assertThat(ladder.format, equalTo(vga))
+    }
+
+    @Test
+    fun `a high round trip time should step down`() {
+        ladder.onStats(0f, 800, BITRATE)
+
+        assertThat(ladder.onStats(0f, 800, BITRATE)?.reason,
+                equalTo(CaptureStepReason.ROUND_TRIP_TIME))
+    }
+
+    @Test
+    fun `a poor network quality level should step down`() {
+        ladder.onNetworkQualityLevel(NETWORK_QUALITY_LEVEL_ONE)
+        ladder.onStats(0f, 100, BITRATE)
+
+        assertThat(ladder.onStats(0f, 100, BITRATE)?.reason,
+                equalTo(CaptureStepReason.NETWORK_QUALITY))
+    }
+
+    @Test
+    fun `the ladder should hold after a step and recover after good samples`() {
+        repeat(2) { ladder.onStats(10f, 100, BITRATE) }
+
+        // Hold sample
+        assertThat(ladder.onStats(0f, 100, BITRATE), nullValue())
+        assertThat(ladder.onStats(0f, 100, BITRATE), nullValue())
+        assertThat(ladder.onStats(0f, 100, BITRATE), nullValue())
+        val step = ladder.onStats(0f, 100, BITRATE)
+
+        assertThat(step, equalTo(CaptureStep(cif, vga, CaptureStepReason.RECOVERED)))
+    }
+
+    @Test
+    fun `the ladder should not step up above the preferred format`() {
+        repeat(10) { assertThat(ladder.onStats(0f, 100, BITRATE), nullValue()) }
+        assertThat(ladder.format, equalTo(vga))
+    }
+
+    @Test
+    fun `a fair network quality level should neither step down nor up`() {
+        repeat(2) { ladder.onStats(10f, 100, BITRATE) }
+        ladder.onNetworkQualityLevel(NETWORK_QUALITY_LEVEL_THREE)
+
+        repeat(10) { assertThat(ladder.onStats(0f, 100, BITRATE), nullValue()) }
+
+        ladder.onNetworkQualityLevel(NETWORK_QUALITY_LEVEL_FIVE)
+        repeat(2) { ladder.onStats(0f, 100, BITRATE) }
+        assertThat(ladder.onStats(0f, 100, BITRATE)?.to, equalTo(vga))
+    }
+
+    @Test
+    fun `samples without sent bytes should be ignored`() {
+        repeat(5) { assertThat(ladder.onStats(50f, 2000, 0), nullValue()) }
+        assertThat(ladder.format, equalTo(vga))
+    }
+
+    @Test
+    fun `the ladder should stop at the lowest rung`() {
+        repeat(20) { ladder.onStats(10f, 100, BITRATE) }
+
+        assertThat(ladder.format, equalTo(CaptureFormat(176, 144, 15)))
+    }
+}
@@ -0,0 +1,49 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class EwmaStatsTest : BaseUnitTest() {
+
+    private val stats = EwmaStats(0.5)
+
+    @Test
+    fun `the first sample should be the mean without variance`() {
+        stats.update(10.0)
+
+        assertThat(stats.mean, equalTo(10.0))
+        assertThat(stats.variance, equalTo(0.0))
+    }
+
+    @Test
+    fun `later samples should be weighted by alpha`() {
+        stats.update(10.0)
+        stats.update(20.0)
+
+        assertThat(stats.mean, equalTo(15.0))
+        assertThat(stats.variance, equalTo(25.0))
+        assertThat(stats.standardDeviation, equalTo(5.0))
+    }
+
+    @Test
+    fun `a constant stream should converge without variance`() {
+        repeat(100) { stats.update(3.0) }
+
+        assertThat(stats.mean, equalTo(3.0))
+        assertThat(stats.variance, equalTo(0.0))
+        assertThat(stats.count, equalTo(100L))
+    }
+
+    @Test
+    fun `reset should forget all samples`() {
+        stats.update(3.0)
+
+        stats.reset()
+        stats.update(7.0)
+
+        assertThat(stats.mean, equalTo(7.0))
+        assertThat(stats.count, equalTo(1L))
+    }
+}
@@ -0,0 +1,74 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteAudioTrackPublication
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.RemoteVideoTrackPublication
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RemoteTrackIndexTest : BaseUnitTest() {
+
+    private val remoteTrackIndex = RemoteTrackIndex()
+
+    @Test
+    fun `subscribed tracks should resolve to the participant identity`() {
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT1")
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT2")
+        remoteTrackIndex.onTrackSubscribed("P2", "Bob", "MT3")
+
+        assertThat(remoteTrackIndex.identityOf("MT1"), equalTo("Alice"))
+        assertThat(remoteTrackIndex.identityOf("MT2"), equalTo("Alice"))
+        assertThat(remoteTrackIndex.identityOf("MT3"), equalTo("Bob"))
+        assertThat(remoteTrackIndex.identityOf("MT4"), `is`(nullValue()))
+    }
+
+    @Test
+    fun `unsubscribed tracks should no longer resolve`() {
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT1")
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT2")
+
+        remoteTrackIndex.onTrackUnsubscribed("P1", "MT1")
+
+        assertThat(remoteTrackIndex.identityOf("MT1"), `is`(nullValue()))
+        assertThat(remoteTrackIndex.identityOf("MT2"), equalTo("Alice"))
+        assertThat(remoteTrackIndex.size, equalTo(1))
+    }
+
+    @Test
+    fun `removing a participant should remove all of its tracks`() {
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT1")
+        remoteTrackIndex.onTrackSubscribed("P1", "Alice", "MT2")
+        remoteTrackIndex.onTrackSubscribed("P2", "Bob", "MT3")
+
+        remoteTrackIndex.removeParticipant("P1")
+
+        assertThat(remoteTrackIndex.size, equalTo(1))
+        assertThat(remoteTrackIndex.identityOf("MT3"), equalTo("Bob"))
+    }
+
+    @Test
+    fun `addParticipant should only index subscribed publications`() {
+        val subscribedAudio = mock<RemoteAudioTrackPublication>()
+        whenever(subscribedAudio.trackSid).thenReturn("MT1")
+        whenever(subscribedAudio.isTrackSubscribed).thenReturn(true)
+        val unsubscribedVideo = mock<RemoteVideoTrackPublication>()
+        whenever(unsubscribedVideo.trackSid).thenReturn("MT2")
+        whenever(unsubscribedVideo.isTrackSubscribed).thenReturn(false)
+        val remoteParticipant = mock<RemoteParticipant>()
+        whenever(remoteParticipant.sid).thenReturn("P1")
+        whenever(remoteParticipant.identity).thenReturn("Alice")
+        whenever(remoteParticipant.remoteAudioTracks).thenReturn(listOf(subscribedAudio))
+        whenever(remoteParticipant.remoteVideoTracks).thenReturn(listOf(unsubscribedVideo))
+
+        remoteTrackIndex.addParticipant(remoteParticipant)
+
+        assertThat(remoteTrackIndex.identityOf("MT1"), equalTo("Alice"))
+        assertThat(remoteTrackIndex.identityOf("MT2"), `is`(nullValue()))
+    }
+}
@@ -0,0 +1,141 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.RoomEventDispatcher.Metrics
+import com.twilio.video.app.sdk.RoomEventDispatcher.OverflowPolicy
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.AudioDropout
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.Recovered
+import com.twilio.video.app.ui.room.RoomEvent.Disconnected
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class RoomEventDispatcherTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val receivedEvents = mutableListOf<RoomEvent>()
+
+    @Test
+    fun `events should be delivered in the order they were dispatched`() {
+        val dispatcher = createDispatcher()
+        val events = dominantSpeakerEvents(100)
+
+        events.forEach { dispatcher.dispatch(it) }
+
+        assertThat(receivedEvents, equalTo<List<RoomEvent>>(events))
+        assertThat(dispatcher.metrics, equalTo(Metrics(0, 1, 100, 0)))
+    }
+
+    @Test
+    fun `DROP_OLDEST should discard the oldest queued sampled events when the queue is full`() {
+        testDispatcher.pauseDispatcher()
+        val dispatcher = createDispatcher(capacity = 3)
+        val events = networkQualityEvents(5)
+
+        events.forEach { dispatcher.dispatch(it) }
+        assertThat(dispatcher.metrics, equalTo(Metrics(3, 3, 5, 2)))
+        testDispatcher.resumeDispatcher()
+
+        assertThat(receivedEvents, equalTo<List<RoomEvent>>(events.takeLast(3)))
+        assertThat(dispatcher.metrics.queueDepth, equalTo(0))
+    }
+
+    @Test
+    fun `DROP_LATEST should discard new sampled events when the queue is full`() {
+        testDispatcher.pauseDispatcher()
+        val dispatcher = createDispatcher(capacity = 3, overflowPolicy = OverflowPolicy.DROP_LATEST)
+        val events = networkQualityEvents(5)
+
+        events.forEach { dispatcher.dispatch(it) }
+        assertThat(dispatcher.metrics, equalTo(Metrics(3, 3, 3, 2)))
+        testDispatcher.resumeDispatcher()
+
+        assertThat(receivedEvents, equalTo<List<RoomEvent>>(events.take(3)))
+    }
+
+    @Test
+    fun `structural events should never be dropped`() {
+        testDispatcher.pauseDispatcher()
+        val dispatcher = createDispatcher(capacity = 3)
+        val events = dominantSpeakerEvents(5) +
+                RemoteParticipantDisconnected("1") +
+                Disconnected
+
+        events.forEach { dispatcher.dispatch(it) }
+        assertThat(dispatcher.metrics, equalTo(Metrics(7, 7, 7, 0)))
+        testDispatcher.resumeDispatcher()
+
+        assertThat(receivedEvents, equalTo(events))
+    }
+
+    @Test
+    fun `call quality events should never be dropped nor overtaken by later events`() {
+        testDispatcher.pauseDispatcher()
+        val dispatcher = createDispatcher(capacity = 3)
+        val events = listOf(AudioDropout("1")) +
+                networkQualityEvents(5) +
+                Recovered("1", CallQualityAnomaly.AUDIO_DROPOUT) +
+                DominantSpeakerChanged("1")
+
+        events.forEach { dispatcher.dispatch(it) }
+        testDispatcher.resumeDispatcher()
+
+        assertThat(receivedEvents.filter { it !is NetworkQualityLevelChange },
+                equalTo(listOf(events[0], events[6], events[7])))
+        assertThat(dispatcher.metrics.droppedEvents, equalTo(2L))
+    }
+
+    @Test
+    fun `structural events should be delivered ahead of queued sampled events`() {
+        testDispatcher.pauseDispatcher()
+        val dispatcher = createDispatcher(capacity = 3)
+        val sampledEvents = networkQualityEvents(5)
+        val structuralEvents = dominantSpeakerEvents(2)
+
+        sampledEvents.forEach { dispatcher.dispatch(it) }
+        structuralEvents.forEach { dispatcher.dispatch(it) }
+        testDispatcher.resumeDispatcher()
+
+        assertThat(receivedEvents, equalTo(structuralEvents + sampledEvents.takeLast(3)))
+        assertThat(dispatcher.metrics.droppedEvents, equalTo(2L))
+    }
+
+    @Test
+    fun `events dispatched after close should be dropped`() {
+        val dispatcher = createDispatcher()
+
+        dispatcher.close()
+        dispatcher.dispatch(DominantSpeakerChanged("1"))
+        dispatcher.dispatch(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_THREE))
+
+        assertThat(receivedEvents.isEmpty(), equalTo(true))
+        assertThat(dispatcher.metrics.droppedEvents, equalTo(2L))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `the capacity should be greater than zero`() {
+        createDispatcher(capacity = 0)
+    }
+
+    private fun createDispatcher(
+        capacity: Int = DEFAULT_ROOM_EVENT_CAPACITY,
+        overflowPolicy: OverflowPolicy = OverflowPolicy.DROP_OLDEST
+    ) = RoomEventDispatcher(CoroutineScope(testDispatcher), capacity, overflowPolicy) {
+        receivedEvents.add(it)
+    }
+
+    private fun dominantSpeakerEvents(count: Int): List<RoomEvent> =
+            (1..count).map { DominantSpeakerChanged(it.toString()) }
+
+    private fun networkQualityEvents(count: Int): List<RoomEvent> =
+            (1..count).map { NetworkQualityLevelChange(it.toString(), NETWORK_QUALITY_LEVEL_THREE) }
+}
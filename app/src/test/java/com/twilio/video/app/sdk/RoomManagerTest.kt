@@ -0,0 +1,94 @@
+package com.twilio.video.app.sdk
+
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.Room
+import com.twilio.video.StatsListener
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.util.Clock
+import com.twilio.video.app.util.MainCoroutineScopeRule
+import com.twilio.video.app.util.Ticker
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.Config
+
+@ExperimentalCoroutinesApi
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class RoomManagerTest : BaseUnitTest() {
+
+    @get:Rule
+    val coroutineScope = MainCoroutineScopeRule()
+
+    private val localParticipantManager = mock<LocalParticipantManager>()
+    private val roomManager = RoomManager(
+            ApplicationProvider.getApplicationContext(),
+            mock(),
+            mock(),
+            coroutineScope.dispatcher,
+            ticker = Ticker(CoroutineScope(coroutineScope.dispatcher),
+                    Clock { coroutineScope.dispatcher.currentTime })
+    ).apply {
+        localParticipantManager = this@RoomManagerTest.localParticipantManager
+    }
+    private val roomListener = roomManager.RoomListener()
+    private val remoteParticipant = mock<RemoteParticipant>()
+    private val room = mock<Room> {
+        whenever(it.name).thenReturn("room")
+        whenever(it.sid).thenReturn("RM1")
+        whenever(it.remoteParticipants).thenReturn(listOf(remoteParticipant))
+        doAnswer { invocation -> invocation.getArgument<StatsListener>(0).onStats(emptyList()) }
+                .whenever(it).getStats(any())
+    }
+
+    @After
+    fun tearDown() {
+        roomListener.onDisconnected(room, null)
+    }
+
+    @Test
+    fun `adaptation should receive stats at the visible interval without a stats UI demand`() {
+        roomListener.onConnected(room)
+
+        coroutineScope.advanceTimeBy(2500)
+
+        verify(localParticipantManager, times(3)).adaptCapture(any(), any())
+        verify(localParticipantManager, times(3))
+                .adaptEncoding(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `adaptation should keep the visible interval while the stats panel is hidden`() {
+        roomListener.onConnected(room)
+        roomManager.requestStats(STATS_UI_INTERVAL_MILLIS, isVisible = false)
+
+        coroutineScope.advanceTimeBy(2500)
+
+        verify(localParticipantManager, times(3)).adaptCapture(any(), any())
+        verify(localParticipantManager, times(3))
+                .adaptEncoding(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `stats should no longer be polled once disconnected`() {
+        roomListener.onConnected(room)
+        coroutineScope.advanceTimeBy(500)
+
+        roomListener.onDisconnected(room, null)
+        coroutineScope.advanceTimeBy(5000)
+
+        verify(room, times(1)).getStats(any())
+    }
+}
@@ -0,0 +1,83 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class StatsDemandsTest : BaseUnitTest() {
+
+    private var changes = 0
+    private val statsDemands = StatsDemands { changes++ }
+
+    @Test
+    fun `there should be no interval without a demand`() {
+        assertThat(statsDemands.intervalMillis, nullValue())
+        assertThat(statsDemands.isEmpty, equalTo(true))
+    }
+
+    @Test
+    fun `the shortest demanded interval should be used`() {
+        statsDemands.request(2000)
+        statsDemands.request(500)
+
+        assertThat(statsDemands.intervalMillis, equalTo(500L))
+        assertThat(changes, equalTo(2))
+    }
+
+    @Test
+    fun `hidden demands should be slowed down to the hidden interval`() {
+        val demand = statsDemands.request(1000, isVisible = false)
+
+        assertThat(statsDemands.intervalMillis, equalTo(HIDDEN_STATS_INTERVAL_MILLIS))
+
+        demand.isVisible = true
+
+        assertThat(statsDemands.intervalMillis, equalTo(1000L))
+    }
+
+    @Test
+    fun `a visible demand should win over a hidden one`() {
+        statsDemands.request(1000, isVisible = false)
+        statsDemands.request(3000)
+
+        assertThat(statsDemands.intervalMillis, equalTo(3000L))
+    }
+
+    @Test
+    fun `cancelled demands should no longer be served`() {
+        val demand = statsDemands.request(1000)
+        statsDemands.request(2000)
+
+        demand.cancel()
+
+        assertThat(statsDemands.intervalMillis, equalTo(2000L))
+    }
+
+    @Test
+    fun `cancelling a demand twice should only notify once`() {
+        val demand = statsDemands.request(1000)
+
+        demand.cancel()
+        demand.cancel()
+
+        assertThat(statsDemands.intervalMillis, nullValue())
+        assertThat(changes, equalTo(2))
+    }
+
+    @Test
+    fun `updating the interval of a demand should notify`() {
+        val demand = statsDemands.request(1000)
+
+        demand.intervalMillis = 250
+
+        assertThat(statsDemands.intervalMillis, equalTo(250L))
+        assertThat(changes, equalTo(2))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `a non positive interval should be rejected`() {
+        statsDemands.request(0)
+    }
+}
@@ -0,0 +1,130 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.LocalAudioTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import java.io.RandomAccessFile
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class StatsRecordWriterTest : BaseUnitTest() {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val localAudioTrackStats = trackStats<LocalAudioTrackStats>(
+            "trackSid" to "MT1", "codec" to "opus", "bytesSent" to 1000L, "packetsSent" to 10,
+            "packetsLost" to 1, "roundTripTime" to 50L, "jitter" to 3, "audioLevel" to 100)
+    private val remoteVideoTrackStats = trackStats<RemoteVideoTrackStats>(
+            "trackSid" to "MT2", "codec" to "VP8", "bytesReceived" to 2000L,
+            "packetsReceived" to 20, "frameRate" to 30,
+            "dimensions" to VideoDimensions(640, 480))
+    private val statsReports = listOf(statsReport(localAudioTrackStats, remoteVideoTrackStats))
+
+    @Test
+    fun `recorded stats should be read back`() {
+        val directory = temporaryFolder.newFolder()
+        StatsRecordWriter(directory).apply {
+            write(1000, statsReports)
+            write(2000, statsReports)
+            close()
+        }
+
+        val records = StatsRecordReader.read(statsRecordFiles(directory).single())
+
+        assertThat(records.map { it.timestampMillis }, equalTo(listOf(1000L, 2000L)))
+        assertThat(records[0].tracks, equalTo(listOf(
+                TrackRecord(TRACK_KIND_LOCAL_AUDIO, "MT1", "opus", 1000, 10, 1, 50, 3, 100, 0, 0,
+                        0),
+                TrackRecord(TRACK_KIND_REMOTE_VIDEO, "MT2", "VP8", 2000, 20, 0, 0, 0, 0, 30, 640,
+                        480))))
+    }
+
+    @Test
+    fun `local tracks reported by every peer connection should be recorded once`() {
+        val directory = temporaryFolder.newFolder()
+        val otherRemoteVideoTrackStats = trackStats<RemoteVideoTrackStats>(
+                "trackSid" to "MT3", "dimensions" to VideoDimensions(320, 240))
+        StatsRecordWriter(directory).apply {
+            write(1000, listOf(statsReport(localAudioTrackStats, remoteVideoTrackStats),
+                    statsReport(localAudioTrackStats, otherRemoteVideoTrackStats)))
+            close()
+        }
+
+        val tracks = StatsRecordReader.read(statsRecordFiles(directory).single()).single().tracks
+
+        assertThat(tracks.map { it.trackSid }, equalTo(listOf("MT1", "MT2", "MT3")))
+    }
+
+    @Test
+    fun `recorded stats should be converted to CSV`() {
+        val directory = temporaryFolder.newFolder()
+        StatsRecordWriter(directory).apply {
+            write(1000, statsReports)
+            close()
+        }
+        val csv = StringBuilder()
+
+        StatsRecordReader.writeCsv(statsRecordFiles(directory), csv)
+
+        assertThat(csv.toString(), equalTo(StatsRecordReader.CSV_HEADER + "\n" +
+                "1000,local_audio,MT1,opus,1000,10,1,50,3,100,0,0,0\n" +
+                "1000,remote_video,MT2,VP8,2000,20,0,0,0,0,30,640,480\n"))
+    }
+
+    @Test
+    fun `files should be rotated and bounded`() {
+        val directory = temporaryFolder.newFolder()
+        val writer = StatsRecordWriter(directory, maxFileBytes = 256, maxFiles = 3)
+
+        repeat(20) { writer.write(it * 1000L, statsReports) }
+        writer.close()
+
+        val files = statsRecordFiles(directory)
+        assertThat(files.size, equalTo(3))
+        files.forEach { assertThat(it.length() <= 256, equalTo(true)) }
+        val timestamps = files.flatMap { file ->
+            StatsRecordReader.read(file).map { it.timestampMillis }
+        }
+        assertThat(timestamps.last(), equalTo(19_000L))
+        assertThat(timestamps, equalTo(timestamps.sorted()))
+    }
+
+    @Test
+    fun `a new writer should continue after the existing files`() {
+        val directory = temporaryFolder.newFolder()
+        StatsRecordWriter(directory).apply {
+            write(1000, statsReports)
+            close()
+        }
+        StatsRecordWriter(directory).apply {
+            write(2000, statsReports)
+            close()
+        }
+
+        val timestamps = statsRecordFiles(directory).flatMap { file ->
+            StatsRecordReader.read(file).map { it.timestampMillis }
+        }
+        assertThat(timestamps, equalTo(listOf(1000L, 2000L)))
+    }
+
+    @Test
+    fun `a truncated record should end the file`() {
+        val directory = temporaryFolder.newFolder()
+        StatsRecordWriter(directory).apply {
+            write(1000, statsReports)
+            write(2000, statsReports)
+            close()
+        }
+        val file = statsRecordFiles(directory).single()
+        RandomAccessFile(file, "rw").use { it.setLength(file.length() - 10) }
+
+        val records = StatsRecordReader.read(file)
+
+        assertThat(records.map { it.timestampMillis }, equalTo(listOf(1000L)))
+    }
+}
@@ -0,0 +1,66 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import timber.log.Timber
+
+private const val TRACKS = 100
+private const val SECONDS = 3600
+private const val WARM_UP_SECONDS = 60
+
+/*
+ * Measures the write throughput of an hour of stats recorded at 1 Hz in a room with TRACKS remote
+ * tracks, half of them audio and half video, and checks that the recording is read back complete.
+ */
+class StatsRecorderBenchmarkTest : BaseUnitTest() {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val statsReports = listOf(statsReport(*Array(TRACKS) { index ->
+        if (index % 2 == 0) {
+            trackStats<RemoteAudioTrackStats>("trackSid" to "MT$index", "codec" to "opus")
+        } else {
+            trackStats<RemoteVideoTrackStats>("trackSid" to "MT$index", "codec" to "VP8",
+                    "dimensions" to VideoDimensions(640, 480))
+        }
+    }))
+
+    @Test
+    fun `an hour of stats should be written and read back`() {
+        val warmUpDirectory = temporaryFolder.newFolder()
+        StatsRecordWriter(warmUpDirectory).apply {
+            repeat(WARM_UP_SECONDS) { write(it * 1000L, statsReports) }
+            close()
+        }
+
+        val directory = temporaryFolder.newFolder()
+        val writer = StatsRecordWriter(directory, maxFileBytes = Long.MAX_VALUE)
+        val recorder = StatsRecorder(CoroutineScope(Dispatchers.IO), writer,
+                queueCapacity = SECONDS)
+        val startNanos = System.nanoTime()
+        repeat(SECONDS) { recorder.record(it * 1000L, statsReports) }
+        recorder.close()
+        runBlocking { recorder.join() }
+        val elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000
+
+        Timber.i("Wrote %d records, %d bytes in %d ms, %.1f records/s, %.1f MB/s",
+                writer.writtenRecords, writer.writtenBytes, elapsedMillis,
+                writer.writtenRecords * 1000.0 / elapsedMillis.coerceAtLeast(1),
+                writer.writtenBytes / 1000.0 / elapsedMillis.coerceAtLeast(1))
+        assertThat(recorder.droppedRecordCount, equalTo(0L))
+        val records = statsRecordFiles(directory).flatMap { StatsRecordReader.read(it) }
+        assertThat(records.size, equalTo(SECONDS))
+        assertThat(records.all { it.tracks.size == TRACKS }, equalTo(true))
+    }
+}
@@ -0,0 +1,36 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doThrow
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class StatsRecorderTest : BaseUnitTest() {
+
+    private val scope = CoroutineScope(TestCoroutineDispatcher())
+    private val writer = mock<StatsRecordWriter>()
+
+    @Test
+    fun `a failing write should stop recording without cancelling the scope`() {
+        doThrow(IllegalStateException()).whenever(writer).write(any(), any())
+        val statsRecorder = StatsRecorder(scope, writer)
+
+        statsRecorder.record(1000, emptyList())
+        statsRecorder.record(2000, emptyList())
+
+        assertThat(scope.isActive, `is`(true))
+        assertThat(statsRecorder.droppedRecordCount, equalTo(1L))
+        verify(writer).close()
+    }
+}
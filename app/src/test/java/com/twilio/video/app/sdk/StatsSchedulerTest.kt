@@ -0,0 +1,101 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.twilio.video.Room
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.Clock
+import com.twilio.video.app.util.Ticker
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.junit.After
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class StatsSchedulerTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val room = mock<Room>()
+    private val statsDemands = StatsDemands { statsScheduler.reschedule() }
+    private val statsScheduler = StatsScheduler(
+            mock(),
+            room,
+            statsDemands,
+            Ticker(CoroutineScope(testDispatcher), Clock { testDispatcher.currentTime }),
+            testDispatcher)
+
+    @After
+    fun tearDown() {
+        statsScheduler.stop()
+        testDispatcher.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun `stats should not be polled without a demand`() {
+        statsScheduler.start()
+
+        testDispatcher.advanceTimeBy(10000)
+
+        verify(room, times(0)).getStats(any())
+    }
+
+    @Test
+    fun `stats should be polled at the demanded interval`() {
+        statsScheduler.start()
+        statsDemands.request(1000)
+
+        testDispatcher.advanceTimeBy(2500)
+
+        verify(room, times(3)).getStats(any())
+    }
+
+    @Test
+    fun `stats should be polled at the hidden interval while no demand is visible`() {
+        statsScheduler.start()
+        statsDemands.request(1000, isVisible = false)
+
+        testDispatcher.advanceTimeBy(9000)
+
+        verify(room, times(2)).getStats(any())
+    }
+
+    @Test
+    fun `stats should not be polled while the room is idle`() {
+        statsScheduler.start()
+        statsScheduler.isRoomIdle = true
+        statsDemands.request(1000)
+
+        testDispatcher.advanceTimeBy(5000)
+        verify(room, times(0)).getStats(any())
+
+        statsScheduler.isRoomIdle = false
+        testDispatcher.advanceTimeBy(1500)
+        verify(room, times(2)).getStats(any())
+    }
+
+    @Test
+    fun `cancelling the last demand should stop polling`() {
+        statsScheduler.start()
+        val demand = statsDemands.request(1000)
+        testDispatcher.advanceTimeBy(1500)
+
+        demand.cancel()
+        testDispatcher.advanceTimeBy(5000)
+
+        verify(room, times(2)).getStats(any())
+    }
+
+    @Test
+    fun `restarting should not leave the previous polling running`() {
+        statsScheduler.start()
+        statsScheduler.start()
+        statsDemands.request(1000)
+
+        testDispatcher.advanceTimeBy(2500)
+
+        verify(room, times(3)).getStats(any())
+    }
+}
@@ -0,0 +1,44 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.BaseTrackStats
+import com.twilio.video.StatsReport
+import java.lang.reflect.ParameterizedType
+import org.objenesis.ObjenesisStd
+
+/*
+ * The Video SDK stats classes expose their values as final fields, which cannot be stubbed on
+ * mocks, so the fields are assigned reflectively instead.
+ */
+inline fun <reified T : BaseTrackStats> trackStats(vararg fields: Pair<String, Any?>): T =
+        mock<T>().apply { fields.forEach { (name, value) -> setStatsField(name, value) } }
+
+fun Any.setStatsField(name: String, value: Any?) {
+    var type: Class<*>? = javaClass
+    while (type != null) {
+        val field = type.declaredFields.find { it.name == name }
+        if (field != null) {
+            field.isAccessible = true
+            field.set(this, value)
+            return
+        }
+        type = type.superclass
+    }
+    throw IllegalArgumentException("No field $name in $javaClass")
+}
+
+/*
+ * Creates a real StatsReport holding the track stats, so reading it does not go through a mock.
+ * Every list field of the report is assigned the track stats of its element type.
+ */
+fun statsReport(vararg trackStats: BaseTrackStats): StatsReport =
+        ObjenesisStd().newInstance(StatsReport::class.java).apply {
+            javaClass.declaredFields.forEach { field ->
+                val elementType = (field.genericType as? ParameterizedType)
+                        ?.actualTypeArguments?.singleOrNull() as? Class<*>
+                if (elementType != null && List::class.java.isAssignableFrom(field.type)) {
+                    field.isAccessible = true
+                    field.set(this, trackStats.filter { elementType.isInstance(it) })
+                }
+            }
+        }
@@ -0,0 +1,78 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class TrackStatsSeriesTest : BaseUnitTest() {
+
+    private val series = TrackStatsSeries(capacity = 5)
+
+    @Test
+    fun `bitrate should be derived from the bytes delta of consecutive samples`() {
+        series.record(1000, bytes = 0, packets = 0, packetsLost = 0)
+        series.record(2000, bytes = 125_000, packets = 100, packetsLost = 0)
+        series.record(2500, bytes = 250_000, packets = 200, packetsLost = 0)
+
+        assertThat(series.bitrateAt(0), equalTo(0L))
+        assertThat(series.bitrateAt(1), equalTo(1_000_000L))
+        assertThat(series.bitrateAt(2), equalTo(2_000_000L))
+    }
+
+    @Test
+    fun `packet loss should be the percentage of lost packets since the previous sample`() {
+        series.record(1000, bytes = 0, packets = 0, packetsLost = 0)
+        series.record(2000, bytes = 1000, packets = 90, packetsLost = 10)
+
+        assertThat(series.packetLossPercentageAt(1), equalTo(10f))
+    }
+
+    @Test
+    fun `counter resets should not produce negative values`() {
+        series.record(1000, bytes = 50_000, packets = 500, packetsLost = 20)
+        series.record(2000, bytes = 1000, packets = 10, packetsLost = 0)
+
+        assertThat(series.bitrateAt(1), equalTo(0L))
+        assertThat(series.packetLossPercentageAt(1), equalTo(0f))
+    }
+
+    @Test
+    fun `the oldest samples should be overwritten once the capacity is reached`() {
+        repeat(8) { recordAtBitrate(it, 0) }
+
+        assertThat(series.count, equalTo(5))
+        assertThat(series.timestampAt(0), equalTo(4000L))
+        assertThat(series.timestampAt(4), equalTo(8000L))
+    }
+
+    @Test
+    fun `percentiles should be computed over the derived values of the window`() {
+        series.record(0, bytes = 0, packets = 0, packetsLost = 0)
+        var bytes = 0L
+        listOf(4_000L, 1_000L, 3_000L, 2_000L).forEachIndexed { index, bitrate ->
+            bytes += bitrate / 8
+            series.record((index + 1) * 1000L, bytes, packets = 0, packetsLost = 0)
+        }
+
+        assertThat(series.bitratePercentile(50), equalTo(3_000L))
+        assertThat(series.bitratePercentile(95), equalTo(4_000L))
+        assertThat(series.bitratePercentile(0), equalTo(1_000L))
+    }
+
+    @Test
+    fun `summary should contain the latest and rolling values`() {
+        repeat(3) { recordAtBitrate(it, 8_000) }
+
+        val summary = series.summary("MT1")
+
+        assertThat(summary, equalTo(TrackStatsSummary("MT1", 3, 8_000, 8_000, 8_000, 0f, 0f, 0f)))
+    }
+
+    private var totalBytes = 0L
+
+    private fun recordAtBitrate(second: Int, bitrate: Long) {
+        totalBytes += bitrate / 8
+        series.record((second + 1) * 1000L, totalBytes, packets = 0, packetsLost = 0)
+    }
+}
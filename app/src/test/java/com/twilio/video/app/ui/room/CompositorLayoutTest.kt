@@ -0,0 +1,62 @@
+package com.twilio.video.app.ui.room
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val TILE_ASPECT_RATIO = 96f / 148f
+
+class CompositorLayoutTest {
+
+    @Test
+    fun `a few tiles should be centered in a single row`() {
+        val viewports = compositorLayout(3, 1080, 148, TILE_ASPECT_RATIO, gap = 8)
+
+        assertThat(viewports, equalTo(listOf(
+                Viewport(388, 0, 96, 148),
+                Viewport(492, 0, 96, 148),
+                Viewport(596, 0, 96, 148))))
+    }
+
+    @Test
+    fun `tiles should wrap into more rows when that makes them larger`() {
+        val viewports = compositorLayout(12, 400, 148, TILE_ASPECT_RATIO)
+
+        assertThat(viewports.size, equalTo(12))
+        assertThat(viewports[0], equalTo(Viewport(56, 0, 48, 74)))
+        assertThat(viewports[5], equalTo(Viewport(296, 0, 48, 74)))
+        assertThat(viewports[6], equalTo(Viewport(56, 74, 48, 74)))
+    }
+
+    @Test
+    fun `tiles should not overlap or leave the surface`() {
+        (1..20).forEach { tileCount ->
+            val viewports = compositorLayout(tileCount, 720, 296, TILE_ASPECT_RATIO, gap = 8)
+
+            viewports.forEach {
+                assertThat(it.x >= 0 && it.y >= 0 && it.x + it.width <= 720 &&
+                        it.y + it.height <= 296, `is`(true))
+            }
+            viewports.forEachIndexed { index, viewport ->
+                viewports.drop(index + 1).forEach { other ->
+                    assertThat(viewport.contains(other.x, other.y), `is`(false))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `an empty surface should have no tiles`() {
+        assertThat(compositorLayout(3, 0, 148, TILE_ASPECT_RATIO).isEmpty(), `is`(true))
+        assertThat(compositorLayout(0, 1080, 148, TILE_ASPECT_RATIO).isEmpty(), `is`(true))
+    }
+
+    @Test
+    fun `frames should be fit inside their tile`() {
+        val viewport = Viewport(10, 20, 100, 100)
+
+        assertThat(viewport.fit(640, 480), equalTo(Viewport(10, 32, 100, 75)))
+        assertThat(viewport.fit(480, 640), equalTo(Viewport(22, 20, 75, 100)))
+    }
+}
@@ -0,0 +1,88 @@
+package com.twilio.video.app.ui.room
+
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class FramePacerTest {
+
+    @Test
+    fun `every frame should be rendered without a cap`() {
+        val framePacer = FramePacer()
+
+        assertThat(renderedFrames(framePacer, 30), equalTo(30))
+    }
+
+    @Test
+    fun `a 30 fps track should be rendered at the cap`() {
+        assertThat(renderedFrames(FramePacer(15), 30), equalTo(15))
+        assertThat(renderedFrames(FramePacer(10), 30), equalTo(10))
+    }
+
+    @Test
+    fun `capture jitter should not halve the rendered frame rate`() {
+        val framePacer = FramePacer(15)
+        var rendered = 0
+
+        repeat(30) { frame ->
+            val jitterMillis = if (frame % 2 == 0) -5 else 5
+            if (framePacer.shouldRender(millisToNanos(frame * 1000L / 30 + jitterMillis))) {
+                rendered++
+            }
+        }
+
+        assertThat(rendered, equalTo(15))
+    }
+
+    @Test
+    fun `a track below the cap should not lose frames`() {
+        assertThat(renderedFrames(FramePacer(15), 10), equalTo(10))
+    }
+
+    @Test
+    fun `the schedule should restart when timestamps go backwards`() {
+        val framePacer = FramePacer(10)
+        framePacer.shouldRender(millisToNanos(1000))
+
+        assertThat(framePacer.shouldRender(millisToNanos(10)), `is`(true))
+        assertThat(framePacer.shouldRender(millisToNanos(20)), `is`(false))
+    }
+
+    @Test
+    fun `the schedule should restart after a stall`() {
+        val framePacer = FramePacer(10)
+        framePacer.shouldRender(0)
+
+        assertThat(framePacer.shouldRender(millisToNanos(5000)), `is`(true))
+        assertThat(framePacer.shouldRender(millisToNanos(5050)), `is`(false))
+        assertThat(framePacer.shouldRender(millisToNanos(5100)), `is`(true))
+    }
+
+    @Test
+    fun `dropped frames should be counted`() {
+        val framePacer = FramePacer(15)
+
+        renderedFrames(framePacer, 30)
+
+        assertThat(framePacer.droppedFrames, equalTo(15L))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `a negative cap should be rejected`() {
+        FramePacer(-1)
+    }
+
+    private fun renderedFrames(framePacer: FramePacer, frameRate: Int): Int {
+        var rendered = 0
+        repeat(frameRate) { frame ->
+            if (framePacer.shouldRender(TimeUnit.SECONDS.toNanos(frame.toLong()) / frameRate)) {
+                rendered++
+            }
+        }
+        return rendered
+    }
+
+    private fun millisToNanos(millis: Long) = TimeUnit.MILLISECONDS.toNanos(millis)
+}
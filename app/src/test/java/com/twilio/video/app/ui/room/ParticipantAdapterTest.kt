@@ -0,0 +1,185 @@
+package com.twilio.video.app.ui.room
+
+import android.os.Looper
+import android.view.ContextThemeWrapper
+import android.view.View.MeasureSpec
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import tvi.webrtc.VideoSink
+
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class ParticipantAdapterTest : BaseUnitTest() {
+
+    private val context = ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+            R.style.AppTheme)
+    private val recyclerView = RecyclerView(context).apply {
+        layoutManager = LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
+    }
+    private val renderFanOut = VideoRenderFanOut()
+    private val adapter = ParticipantAdapter(renderFanOut)
+    private val primaryParticipantController =
+            PrimaryParticipantController(ParticipantPrimaryView(context), renderFanOut)
+    private val videoTracks = (0 until 20).map { videoTrack() }
+    private val participants = videoTracks.mapIndexed { index, videoTrack ->
+        ParticipantViewState(index.toString(), videoTrack = VideoTrackViewState(videoTrack))
+    }
+
+    @Test
+    fun `only thumbnails on screen should be sinks of their video tracks`() {
+        showParticipants()
+
+        val visibleCount = recyclerView.childCount
+        assertThat(visibleCount < participants.size, `is`(true))
+        videoTracks.forEachIndexed { index, videoTrack ->
+            assertThat(videoTrack.sinks.size, equalTo(if (index < visibleCount) 1 else 0))
+        }
+        assertThat(adapter.metrics.value,
+                equalTo(ParticipantAdapter.Metrics(visibleCount, participants.size)))
+    }
+
+    @Test
+    fun `scrolled off thumbnails should stop being sinks`() {
+        showParticipants()
+
+        recyclerView.scrollToPosition(participants.size - 1)
+        idleAndLayout()
+
+        val firstVisible = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(0))
+        videoTracks.forEachIndexed { index, videoTrack ->
+            assertThat(videoTrack.sinks.size, equalTo(if (index >= firstVisible) 1 else 0))
+        }
+        assertThat(adapter.metrics.value!!.activeSinks, equalTo(recyclerView.childCount))
+    }
+
+    @Test
+    fun `all sinks should be removed once the thumbnails are detached`() {
+        showParticipants()
+
+        recyclerView.adapter = null
+        idleAndLayout()
+
+        videoTracks.forEach { assertThat(it.sinks.isEmpty(), `is`(true)) }
+        assertThat(adapter.metrics.value!!.activeSinks, equalTo(0))
+    }
+
+    @Test
+    fun `disabled video tracks should not get sinks`() {
+        whenever(videoTracks[0].isEnabled).thenReturn(false)
+
+        showParticipants()
+
+        assertThat(videoTracks[0].sinks.isEmpty(), `is`(true))
+        assertThat(videoTracks[1].sinks.size, equalTo(1))
+    }
+
+    @Test
+    fun `the thumbnail of the track on stage should show a placeholder instead of rendering`() {
+        showParticipants()
+
+        renderFanOut.stageTrack = videoTracks[1]
+
+        assertThat(videoTracks[1].sinks.isEmpty(), `is`(true))
+        assertThat(thumbnail(1).state, equalTo(ParticipantView.State.ON_STAGE))
+        assertThat(videoTracks[0].sinks.size, equalTo(1))
+        assertThat(thumbnail(0).state, equalTo(ParticipantView.State.VIDEO))
+    }
+
+    @Test
+    fun `the thumbnail should render again once its track leaves the stage`() {
+        renderFanOut.stageTrack = videoTracks[0]
+        showParticipants()
+        assertThat(videoTracks[0].sinks.isEmpty(), `is`(true))
+
+        renderFanOut.stageTrack = videoTracks[1]
+
+        assertThat(videoTracks[0].sinks.size, equalTo(1))
+        assertThat(thumbnail(0).state, equalTo(ParticipantView.State.VIDEO))
+        assertThat(videoTracks[1].sinks.isEmpty(), `is`(true))
+        assertThat(adapter.metrics.value!!.activeSinks, equalTo(recyclerView.childCount - 1))
+    }
+
+    @Test
+    fun `the primary participant should put its enabled video track on stage`() {
+        showParticipants()
+
+        renderAsPrimary(videoTracks[1])
+
+        assertThat(videoTracks[1].sinks.size, equalTo(1))
+        assertThat(thumbnail(1).state, equalTo(ParticipantView.State.ON_STAGE))
+    }
+
+    @Test
+    fun `a disabled video track of the primary participant should not go on stage`() {
+        showParticipants()
+        whenever(videoTracks[1].isEnabled).thenReturn(false)
+
+        renderAsPrimary(videoTracks[1])
+
+        assertThat(renderFanOut.stageTrack == null, `is`(true))
+        assertThat(thumbnail(1).state, equalTo(ParticipantView.State.VIDEO))
+    }
+
+    @Test
+    fun `the local preview should keep rendering in its thumbnail when it is primary`() {
+        showParticipants()
+
+        renderAsPrimary(videoTracks[0], isLocalParticipant = true)
+
+        assertThat(renderFanOut.stageTrack == null, `is`(true))
+        assertThat(videoTracks[0].sinks.size, equalTo(2))
+        assertThat(thumbnail(0).state, equalTo(ParticipantView.State.VIDEO))
+    }
+
+    private fun renderAsPrimary(videoTrack: VideoTrack, isLocalParticipant: Boolean = false) {
+        primaryParticipantController.renderAsPrimary(null, null, VideoTrackViewState(videoTrack),
+                muted = false, mirror = false, isLocalParticipant = isLocalParticipant)
+    }
+
+    private fun showParticipants() {
+        recyclerView.adapter = adapter
+        adapter.submitList(participants)
+        idleAndLayout()
+    }
+
+    private fun thumbnail(position: Int) =
+            recyclerView.findViewHolderForAdapterPosition(position)!!.itemView as ParticipantThumbView
+
+    private fun idleAndLayout() {
+        shadowOf(Looper.getMainLooper()).idle()
+        recyclerView.measure(MeasureSpec.makeMeasureSpec(400, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(200, MeasureSpec.EXACTLY))
+        recyclerView.layout(0, 0, 400, 200)
+    }
+
+    private fun videoTrack(): VideoTrack {
+        val sinks = mutableListOf<VideoSink>()
+        return mock {
+            whenever(it.isEnabled).thenReturn(true)
+            whenever(it.sinks).thenReturn(sinks)
+            doAnswer { invocation -> sinks.add(invocation.getArgument(0)) }
+                    .whenever(it).addSink(any())
+            doAnswer { invocation -> sinks.remove(invocation.getArgument<VideoSink>(0)) }
+                    .whenever(it).removeSink(any())
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.twilio.video.app.ui.room
+
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomEventConflatorTest : BaseUnitTest() {
+
+    private val conflator = RoomEventConflator()
+
+    @Test
+    fun `only the latest event per sid and kind should be kept`() {
+        val latestQuality = NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE)
+        val otherQuality = NetworkQualityLevelChange("2", NETWORK_QUALITY_LEVEL_THREE)
+        val mute = MuteRemoteParticipant("1", true)
+
+        addAll(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE), otherQuality, mute,
+                NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_THREE), latestQuality)
+
+        assertThat(conflator.drain(), equalTo(listOf(otherQuality, mute, latestQuality)))
+        assertThat(conflator.droppedEvents, equalTo(2L))
+    }
+
+    @Test
+    fun `stats updates should be conflated regardless of participants`() {
+        val latestStats = StatsUpdate(mock())
+
+        addAll(StatsUpdate(mock()), StatsUpdate(mock()), latestStats)
+
+        assertThat(conflator.drain(), equalTo(listOf<RoomEvent>(latestStats)))
+        assertThat(conflator.droppedEvents, equalTo(2L))
+    }
+
+    @Test
+    fun `the latest event should stay ordered after joins and leaves of the same participant`() {
+        val disconnected = RemoteParticipantDisconnected("1")
+        val connected = RemoteParticipantConnected(mock())
+        val latestQuality = NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE)
+
+        addAll(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE), disconnected, connected,
+                latestQuality)
+
+        assertThat(conflator.drain(), equalTo(listOf(disconnected, connected, latestQuality)))
+    }
+
+    @Test
+    fun `events that are not conflatable should never be dropped`() {
+        val events = listOf(DominantSpeakerChanged("1"), DominantSpeakerChanged("1"),
+                RemoteParticipantDisconnected("2"), RemoteParticipantDisconnected("2"))
+
+        addAll(*events.toTypedArray())
+
+        assertThat(conflator.drain(), equalTo(events))
+        assertThat(conflator.droppedEvents, equalTo(0L))
+    }
+
+    @Test
+    fun `drain should start a new window`() {
+        addAll(MuteRemoteParticipant("1", true))
+        conflator.drain()
+
+        val mute = MuteRemoteParticipant("1", false)
+        conflator.add(mute)
+
+        assertThat(conflator.isEmpty, equalTo(false))
+        assertThat(conflator.drain(), equalTo(listOf<RoomEvent>(mute)))
+        assertThat(conflator.isEmpty, equalTo(true))
+        assertThat(conflator.droppedEvents, equalTo(0L))
+    }
+
+    private fun addAll(vararg roomEvents: RoomEvent) = roomEvents.forEach { conflator.add(it) }
+}
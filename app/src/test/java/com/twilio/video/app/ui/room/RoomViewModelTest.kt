@@ -9,9 +9,12 @@ import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.BaseUnitTest
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.CallQualityAnomaly
 import com.twilio.video.app.sdk.LocalParticipantManager
 import com.twilio.video.app.sdk.RoomManager
 import com.twilio.video.app.sdk.VideoTrackViewState
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.PacketLossSpike
+import com.twilio.video.app.ui.room.RoomEvent.CallQualityEvent.Recovered
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
@@ -20,6 +23,7 @@ import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitch
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.Disconnected
 import com.twilio.video.app.ui.room.RoomViewEffect.PermissionsDenied
+import com.twilio.video.app.ui.room.RoomViewEffect.ShowCallQualityWarning
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowConnectFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowMaxParticipantFailureDialog
 import com.twilio.video.app.ui.room.RoomViewEvent.Connect
@@ -70,7 +74,9 @@ class RoomViewModelTest : BaseUnitTest() {
                 roomManager,
                 mock(),
                 permissionUtil,
-                participantManager)
+                participantManager,
+                roomEventWindowMillis = 0,
+                frameScheduler = ImmediateFrameScheduler)
         testObserver = viewModel.createTestObserver()
     }
 
@@ -121,7 +127,8 @@ class RoomViewModelTest : BaseUnitTest() {
                 mock(),
                 permissionUtil,
                 participantManager,
-                initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
+                initialViewState = initialRoomViewState.copy(isCameraEnabled = true),
+                frameScheduler = ImmediateFrameScheduler)
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.CAMERA))
                 .thenReturn(false)
         val expectedViewState = initialRoomViewState.copy(isCameraEnabled = false)
@@ -151,7 +158,8 @@ class RoomViewModelTest : BaseUnitTest() {
                 mock(),
                 permissionUtil,
                 participantManager,
-                initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
+                initialViewState = initialRoomViewState.copy(isCameraEnabled = true),
+                frameScheduler = ImmediateFrameScheduler)
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.RECORD_AUDIO))
                 .thenReturn(false)
         val expectedViewState = initialRoomViewState.copy(isMicEnabled = false)
@@ -182,12 +190,12 @@ class RoomViewModelTest : BaseUnitTest() {
 
         testObserver.verifySequence(
                 initialRoomViewState.copy(configuration = RoomViewConfiguration.Connecting),
-                ShowConnectFailureDialog,
-                Disconnected,
                 initialRoomViewState.copy(configuration = Lobby),
                 initialRoomViewState.copy(configuration = Lobby,
                 primaryParticipant = localParticipantViewState,
-                participantThumbnails = listOf(localParticipantViewState)))
+                participantThumbnails = listOf(localParticipantViewState)),
+                Disconnected,
+                ShowConnectFailureDialog)
     }
 
     @Test
@@ -197,12 +205,12 @@ class RoomViewModelTest : BaseUnitTest() {
 
         testObserver.verifySequence(
                 initialRoomViewState.copy(configuration = RoomViewConfiguration.Connecting),
-                ShowMaxParticipantFailureDialog,
-                Disconnected,
                 initialRoomViewState.copy(configuration = Lobby),
                 initialRoomViewState.copy(configuration = Lobby,
                         primaryParticipant = localParticipantViewState,
-                        participantThumbnails = listOf(localParticipantViewState)))
+                        participantThumbnails = listOf(localParticipantViewState)),
+                Disconnected,
+                ShowMaxParticipantFailureDialog)
     }
 
     @Test
@@ -238,6 +246,22 @@ class RoomViewModelTest : BaseUnitTest() {
         assertThat(viewModel.roomManagerJob!!.isCancelled, equalTo(true))
     }
 
+    @Test
+    fun `A CallQualityEvent onset should send a ShowCallQualityWarning ViewEffect`() {
+        connect()
+        roomManager.sendRoomEvent(PacketLossSpike("MT1", 20f, 1f))
+
+        assertThat(testObserver.lastEventOrNull, equalTo<Any>(ShowCallQualityWarning(null)))
+    }
+
+    @Test
+    fun `A CallQualityEvent recovery should not send a ViewEffect`() {
+        connect()
+        roomManager.sendRoomEvent(Recovered("MT1", CallQualityAnomaly.PACKET_LOSS_SPIKE))
+
+        assertThat(testObserver.lastEventOrNull, `is`(nullValue()))
+    }
+
     private fun connect() =
         viewModel.processInput(Connect("Test", "Test Room"))
 }
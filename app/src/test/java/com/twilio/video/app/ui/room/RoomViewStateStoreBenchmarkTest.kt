@@ -0,0 +1,75 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import java.lang.management.ManagementFactory
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import timber.log.Timber
+
+private const val FRAMES = 1_000
+private const val EVENTS_PER_FRAME = 10
+private const val WARM_UP_ROUNDS = 3
+
+/*
+ * Compares emitting a state per mutation with the frame synchronized store under a synthetic
+ * burst of EVENTS_PER_FRAME state mutations per display frame. The emission callback copies the
+ * state into a list, which stands in for the work done per emission by the view layer.
+ */
+class RoomViewStateStoreBenchmarkTest : BaseUnitTest() {
+
+    private val initialState = RoomViewState(ParticipantViewState(isLocalParticipant = true))
+
+    @Test
+    fun `the frame synchronized store should emit once per frame under an event burst`() {
+        repeat(WARM_UP_ROUNDS) {
+            runBurst(ImmediateFrameScheduler, null)
+            runBurst(TestFrameScheduler(), TestFrameScheduler::advanceFrame)
+        }
+
+        val perEvent = runBurst(ImmediateFrameScheduler, null)
+        val perFrame = runBurst(TestFrameScheduler(), TestFrameScheduler::advanceFrame)
+
+        Timber.i("Per event: %d emissions, %d bytes allocated", perEvent.emissions,
+                perEvent.allocatedBytes)
+        Timber.i("Per frame: %d emissions, %d bytes allocated", perFrame.emissions,
+                perFrame.allocatedBytes)
+        assertThat(perEvent.emissions, equalTo(FRAMES * EVENTS_PER_FRAME.toLong()))
+        assertThat(perFrame.emissions, equalTo(FRAMES.toLong()))
+    }
+
+    private data class BurstResult(val emissions: Long, val allocatedBytes: Long)
+
+    private fun <T : FrameScheduler> runBurst(
+        frameScheduler: T,
+        advanceFrame: ((T) -> Unit)?
+    ): BurstResult {
+        val renderedStates = ArrayList<List<ParticipantViewState>?>()
+        val store = RoomViewStateStore(initialState, frameScheduler) {
+            renderedStates.add(it.participantThumbnails?.toList())
+        }
+        val thumbnails = listOf(initialState.primaryParticipant)
+        val allocatedBefore = allocatedBytes()
+        repeat(FRAMES) { frame ->
+            repeat(EVENTS_PER_FRAME) { event ->
+                store.dispatch {
+                    it.copy(isRecording = event % 2 == 0, participantThumbnails = thumbnails,
+                            title = if (event == 0) "Frame $frame" else it.title)
+                }
+            }
+            advanceFrame?.invoke(frameScheduler)
+        }
+        return BurstResult(store.metrics.emittedStates, allocatedBytes() - allocatedBefore)
+    }
+
+    private fun allocatedBytes(): Long {
+        val threadMXBean = ManagementFactory.getThreadMXBean()
+        return if (threadMXBean is com.sun.management.ThreadMXBean &&
+                threadMXBean.isThreadAllocatedMemorySupported) {
+            threadMXBean.getThreadAllocatedBytes(Thread.currentThread().id)
+        } else {
+            -1
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.ui.room.RoomViewStateStore.Metrics
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomViewStateStoreTest : BaseUnitTest() {
+
+    private val initialState = RoomViewState(ParticipantViewState(isLocalParticipant = true))
+    private val frameScheduler = TestFrameScheduler()
+    private val emittedStates = mutableListOf<RoomViewState>()
+    private val store = RoomViewStateStore(initialState, frameScheduler) { emittedStates.add(it) }
+
+    @Test
+    fun `reducers should not be applied before the next frame`() {
+        store.dispatch { it.copy(isRecording = true) }
+
+        assertThat(store.state, equalTo(initialState))
+        assertThat(emittedStates.isEmpty(), equalTo(true))
+    }
+
+    @Test
+    fun `all reducers dispatched within a frame should result in a single emission`() {
+        store.dispatch { it.copy(isRecording = true) }
+        store.dispatch { it.copy(title = "Room") }
+        store.dispatch { it.copy(isAudioMuted = true) }
+
+        frameScheduler.advanceFrame()
+
+        val expectedState = initialState.copy(isRecording = true, title = "Room", isAudioMuted = true)
+        assertThat(emittedStates, equalTo(listOf(expectedState)))
+        assertThat(store.state, equalTo(expectedState))
+        assertThat(store.metrics, equalTo(Metrics(3, 1)))
+    }
+
+    @Test
+    fun `reducers should be applied in dispatch order`() {
+        store.dispatch { it.copy(title = "First") }
+        store.dispatch { it.copy(title = "Second") }
+
+        frameScheduler.advanceFrame()
+
+        assertThat(store.state.title, equalTo("Second"))
+    }
+
+    @Test
+    fun `a frame that keeps the current state should not emit`() {
+        store.dispatch { it }
+
+        frameScheduler.advanceFrame()
+
+        assertThat(emittedStates.isEmpty(), equalTo(true))
+        assertThat(store.metrics, equalTo(Metrics(1, 0)))
+    }
+
+    @Test
+    fun `reducers dispatched in different frames should be emitted separately`() {
+        store.dispatch { it.copy(isRecording = true) }
+        frameScheduler.advanceFrame()
+        store.dispatch { it.copy(isRecording = false) }
+        frameScheduler.advanceFrame()
+        frameScheduler.advanceFrame()
+
+        assertThat(emittedStates, equalTo(listOf(initialState.copy(isRecording = true),
+                initialState.copy(isRecording = false))))
+    }
+
+    @Test
+    fun `flush should apply the pending reducers before the next frame`() {
+        store.dispatch { it.copy(isRecording = true) }
+
+        store.flush()
+
+        assertThat(emittedStates, equalTo(listOf(initialState.copy(isRecording = true))))
+        assertThat(store.state.isRecording, equalTo(true))
+    }
+
+    @Test
+    fun `the frame scheduled before a flush should apply reducers dispatched after it`() {
+        store.dispatch { it.copy(isRecording = true) }
+        store.flush()
+        store.dispatch { it.copy(title = "Room") }
+
+        frameScheduler.advanceFrame()
+
+        assertThat(emittedStates, equalTo(listOf(initialState.copy(isRecording = true),
+                initialState.copy(isRecording = true, title = "Room"))))
+        assertThat(store.metrics, equalTo(Metrics(2, 2)))
+    }
+}
@@ -0,0 +1,76 @@
+package com.twilio.video.app.ui.room
+
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.ui.room.RoomViewSection.AUDIO_DEVICES
+import com.twilio.video.app.ui.room.RoomViewSection.LAYOUT
+import com.twilio.video.app.ui.room.RoomViewSection.PRIMARY_PARTICIPANT
+import com.twilio.video.app.ui.room.RoomViewSection.STATS
+import com.twilio.video.app.ui.room.RoomViewSection.THUMBNAILS
+import java.util.EnumSet
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomViewStateTest : BaseUnitTest() {
+
+    private val localParticipant = ParticipantViewState("1", isLocalParticipant = true)
+    private val viewState = RoomViewState(localParticipant,
+            configuration = RoomViewConfiguration.Connected,
+            participantThumbnails = listOf(localParticipant))
+
+    @Test
+    fun `every section should be changed without a previous state`() {
+        assertThat(viewState.changedSections(null),
+                equalTo(EnumSet.allOf(RoomViewSection::class.java)))
+    }
+
+    @Test
+    fun `no section should be changed for an equal state`() {
+        assertThat(viewState.copy().changedSections(viewState).isEmpty(), equalTo(true))
+    }
+
+    @Test
+    fun `a stats update should only change the stats section`() {
+        assertThat(viewState.copy(roomStats = mock()).changedSections(viewState),
+                equalTo(EnumSet.of(STATS)))
+    }
+
+    @Test
+    fun `a new thumbnail list should change the thumbnails and stats sections`() {
+        val newState = viewState.copy(participantThumbnails = listOf(localParticipant,
+                ParticipantViewState("2")))
+
+        assertThat(newState.changedSections(viewState), equalTo(EnumSet.of(THUMBNAILS, STATS)))
+    }
+
+    @Test
+    fun `a new primary participant should only change the primary participant section`() {
+        val newState = viewState.copy(primaryParticipant = ParticipantViewState("2"))
+
+        assertThat(newState.changedSections(viewState), equalTo(EnumSet.of(PRIMARY_PARTICIPANT)))
+    }
+
+    @Test
+    fun `local media changes should only change the layout section`() {
+        val newState = viewState.copy(isAudioMuted = true, isRecording = true)
+
+        assertThat(newState.changedSections(viewState), equalTo(EnumSet.of(LAYOUT)))
+    }
+
+    @Test
+    fun `audio device changes should only change the audio devices section`() {
+        val newState = viewState.copy(availableAudioDevices = listOf(mock()))
+
+        assertThat(newState.changedSections(viewState), equalTo(EnumSet.of(AUDIO_DEVICES)))
+    }
+
+    @Test
+    fun `a configuration change should change every section that depends on it`() {
+        val newState = viewState.copy(configuration = RoomViewConfiguration.Lobby)
+
+        assertThat(newState.changedSections(viewState),
+                equalTo(EnumSet.of(THUMBNAILS, LAYOUT, STATS)))
+    }
+}
@@ -0,0 +1,95 @@
+package com.twilio.video.app.ui.room
+
+import android.os.Looper
+import android.view.ContextThemeWrapper
+import android.view.View
+import android.view.View.MeasureSpec
+import android.widget.TextView
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.LocalAudioTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.adapter.StatsListAdapter
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.RemoteTrackIndex
+import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.trackStats
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class StatsPanelTest : BaseUnitTest() {
+
+    private val context = ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+            R.style.AppTheme)
+    private val statsRecyclerView = RecyclerView(context)
+    private var isPanelVisible = true
+    private val statsPanel = StatsPanel(statsRecyclerView, View(context), TextView(context),
+            TextView(context), StatsListAdapter(context)) { isPanelVisible }
+    private var bytesSent = 0L
+    private val localParticipant = ParticipantViewState("1", isLocalParticipant = true)
+    private val connectedViewState = RoomViewState(localParticipant,
+            configuration = RoomViewConfiguration.Connected,
+            participantThumbnails = listOf(localParticipant, ParticipantViewState("2")))
+
+    @Test
+    fun `ViewHolders should be reused across stats ticks`() {
+        val adapter = statsRecyclerView.adapter
+        tick()
+        val viewHolders = (0 until 2).map { statsRecyclerView.findViewHolderForAdapterPosition(it) }
+
+        repeat(3) { tick() }
+
+        assertThat(statsRecyclerView.adapter, sameInstance(adapter))
+        assertThat(statsRecyclerView.adapter!!.itemCount, equalTo(2))
+        (0 until 2).forEach { position ->
+            assertThat(statsRecyclerView.findViewHolderForAdapterPosition(position),
+                    sameInstance(viewHolders[position]))
+        }
+    }
+
+    @Test
+    fun `stats should only be bound once a hidden panel is shown`() {
+        isPanelVisible = false
+        tick()
+
+        assertThat(statsRecyclerView.adapter!!.itemCount, equalTo(0))
+
+        isPanelVisible = true
+        statsPanel.onPanelShown()
+        idleAndLayout()
+
+        assertThat(statsRecyclerView.adapter!!.itemCount, equalTo(2))
+    }
+
+    private fun tick() {
+        bytesSent += 1000
+        val statsReport = mock<StatsReport> {
+            whenever(it.localAudioTrackStats).thenReturn(listOf(
+                    trackStats<LocalAudioTrackStats>("trackSid" to "1", "bytesSent" to bytesSent),
+                    trackStats<LocalAudioTrackStats>("trackSid" to "2", "bytesSent" to bytesSent)))
+        }
+        statsPanel.update(connectedViewState.copy(roomStats =
+                RoomStats(RemoteTrackIndex(), emptyMap(), listOf(statsReport))), true)
+        idleAndLayout()
+    }
+
+    private fun idleAndLayout() {
+        shadowOf(Looper.getMainLooper()).idle()
+        statsRecyclerView.measure(MeasureSpec.makeMeasureSpec(1080, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(1920, MeasureSpec.EXACTLY))
+        statsRecyclerView.layout(0, 0, 1080, 1920)
+    }
+}
@@ -0,0 +1,35 @@
+package com.twilio.video.app.ui.room
+
+import android.view.Choreographer.FrameCallback
+
+const val FRAME_INTERVAL_NANOS = 16_666_667L
+
+/*
+ * Runs frame callbacks synchronously when they are posted.
+ */
+object ImmediateFrameScheduler : FrameScheduler {
+    override fun postFrameCallback(callback: FrameCallback) = callback.doFrame(0)
+}
+
+/*
+ * Frame scheduler driven by a virtual clock. Posted callbacks only run when the clock is advanced
+ * past the next frame boundary.
+ */
+class TestFrameScheduler : FrameScheduler {
+
+    private val pendingCallbacks = mutableListOf<FrameCallback>()
+
+    var frameTimeNanos = 0L
+        private set
+
+    override fun postFrameCallback(callback: FrameCallback) {
+        pendingCallbacks.add(callback)
+    }
+
+    fun advanceFrame() {
+        frameTimeNanos += FRAME_INTERVAL_NANOS
+        val callbacks = pendingCallbacks.toList()
+        pendingCallbacks.clear()
+        callbacks.forEach { it.doFrame(frameTimeNanos) }
+    }
+}
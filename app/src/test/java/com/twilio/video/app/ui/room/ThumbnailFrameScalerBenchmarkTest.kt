@@ -0,0 +1,73 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import java.lang.management.ManagementFactory
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import timber.log.Timber
+import tvi.webrtc.VideoFrame
+
+private const val FRAME_WIDTH = 640
+private const val FRAME_HEIGHT = 480
+private const val THUMBNAIL_WIDTH = 96
+private const val THUMBNAIL_HEIGHT = 148
+private const val WARM_UP_FRAMES = 100
+private const val FRAMES = 1_000
+private const val MAX_ALLOCATED_BYTES_PER_FRAME = 2048
+
+/*
+ * Compares the cost of rendering a synthetic VGA stream in a thumbnail with and without scaling
+ * the frames to the thumbnail size. The texture bytes are what the renderer uploads per frame and
+ * keeps per thumbnail, the scaling time and allocations are what the scaled path adds on the
+ * decoder thread. Without the buffer pool every scaled frame would allocate its texture bytes of
+ * direct memory, which is what VideoFrame.Buffer.cropAndScale does for I420 frames.
+ */
+class ThumbnailFrameScalerBenchmarkTest : BaseUnitTest() {
+
+    private val frame = i420Frame(FRAME_WIDTH, FRAME_HEIGHT, y = { column, row -> column + row })
+    private val frameScaler = ThumbnailFrameScaler().apply {
+        setTargetSize(THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT)
+        isAspectFill = true
+    }
+
+    @Test
+    fun `scaled thumbnails should upload a fraction of the texture bytes without allocating pixels`() {
+        assumeTrue(allocatedBytes() >= 0)
+        repeat(WARM_UP_FRAMES) { frameScaler.scale(frame).release() }
+
+        val allocatedBefore = allocatedBytes()
+        val startNs = System.nanoTime()
+        var scaledTextureBytes = 0L
+        repeat(FRAMES) {
+            val scaledFrame = frameScaler.scale(frame)
+            scaledTextureBytes = textureBytes(scaledFrame)
+            scaledFrame.release()
+        }
+        val scaleNsPerFrame = (System.nanoTime() - startNs) / FRAMES
+        val allocatedBytesPerFrame = (allocatedBytes() - allocatedBefore) / FRAMES
+        val fullTextureBytes = textureBytes(frame)
+
+        Timber.i("Full frames: %d texture bytes per frame", fullTextureBytes)
+        Timber.i("Scaled frames: %d texture bytes per frame, %d ns and %d bytes allocated to scale",
+                scaledTextureBytes, scaleNsPerFrame, allocatedBytesPerFrame)
+        Timber.i("Unpooled scaled frames: %d bytes of pixel memory allocated per frame",
+                scaledTextureBytes)
+        assertThat(scaledTextureBytes * 10 < fullTextureBytes, equalTo(true))
+        assertThat(allocatedBytesPerFrame < MAX_ALLOCATED_BYTES_PER_FRAME, equalTo(true))
+    }
+
+    private fun textureBytes(frame: VideoFrame) =
+            frame.buffer.width.toLong() * frame.buffer.height * 3 / 2
+
+    private fun allocatedBytes(): Long {
+        val threadMXBean = ManagementFactory.getThreadMXBean()
+        return if (threadMXBean is com.sun.management.ThreadMXBean &&
+                threadMXBean.isThreadAllocatedMemorySupported) {
+            threadMXBean.getThreadAllocatedBytes(Thread.currentThread().id)
+        } else {
+            -1
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.twilio.video.app.ui.room
+
+import com.nhaarman.mockitokotlin2.verify
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import tvi.webrtc.VideoFrame
+
+class ThumbnailFrameScalerTest : BaseUnitTest() {
+
+    private val bufferPool = I420BufferPool()
+    private val frameScaler = ThumbnailFrameScaler(bufferPool).apply { setTargetSize(96, 148) }
+
+    @Test
+    fun `frames should be scaled to fit inside the target size`() {
+        val scaledFrame = frameScaler.scale(i420Frame(640, 480))
+
+        assertThat(scaledFrame.buffer.width, equalTo(96))
+        assertThat(scaledFrame.buffer.height, equalTo(72))
+    }
+
+    @Test
+    fun `frames should be cropped to the target size with aspect fill`() {
+        frameScaler.isAspectFill = true
+
+        val scaledFrame = frameScaler.scale(i420Frame(640, 480))
+
+        assertThat(scaledFrame.buffer.width, equalTo(96))
+        assertThat(scaledFrame.buffer.height, equalTo(148))
+    }
+
+    @Test
+    fun `the target size should be rotated with the frame`() {
+        val frame = i420Frame(640, 480, rotation = 90, timestampNs = 42)
+
+        val scaledFrame = frameScaler.scale(frame)
+
+        assertThat(scaledFrame.buffer.width, equalTo(128))
+        assertThat(scaledFrame.buffer.height, equalTo(96))
+        assertThat(scaledFrame.rotation, equalTo(90))
+        assertThat(scaledFrame.timestampNs, equalTo(42L))
+    }
+
+    @Test
+    fun `texture frames should be cropped and scaled by their buffer`() {
+        frameScaler.isAspectFill = true
+        val buffer = videoBuffer<VideoFrame.TextureBuffer>(640, 480)
+
+        val scaledFrame = frameScaler.scale(VideoFrame(buffer, 0, 0))
+
+        verify(buffer).cropAndScale(164, 0, 311, 480, 96, 148)
+        assertThat(scaledFrame.buffer.width, equalTo(96))
+        assertThat(bufferPool.allocatedBuffers, equalTo(0))
+    }
+
+    @Test
+    fun `frames that are small enough should be passed through`() {
+        val frame = i420Frame(64, 48)
+
+        assertThat(frameScaler.scale(frame), sameInstance(frame))
+    }
+
+    @Test
+    fun `frames should be passed through without a target size`() {
+        val frame = i420Frame(640, 480)
+
+        assertThat(ThumbnailFrameScaler().scale(frame), sameInstance(frame))
+    }
+
+    @Test
+    fun `scaling should preserve the plane values`() {
+        val scaledFrame = frameScaler.scale(i420Frame(640, 480,
+                y = { column, _ -> if (column < 320) 16 else 235 },
+                u = { _, _ -> 90 },
+                v = { _, _ -> 240 }))
+        val buffer = scaledFrame.buffer as VideoFrame.I420Buffer
+
+        assertThat(buffer.dataY.get(0).toInt() and 0xff, equalTo(16))
+        assertThat(buffer.dataY.get(buffer.width - 1).toInt() and 0xff, equalTo(235))
+        assertThat(buffer.dataU.get(buffer.strideU).toInt() and 0xff, equalTo(90))
+        assertThat(buffer.dataV.get(buffer.strideV + 1).toInt() and 0xff, equalTo(240))
+    }
+
+    @Test
+    fun `scaling should average the source pixels of each output pixel`() {
+        frameScaler.setTargetSize(320, 240)
+
+        val scaledFrame = frameScaler.scale(i420Frame(640, 480,
+                y = { column, row -> if ((column + row) % 2 == 0) 100 else 200 }))
+        val buffer = scaledFrame.buffer as VideoFrame.I420Buffer
+
+        assertThat(buffer.dataY.get(buffer.strideY * 10 + 10).toInt() and 0xff, equalTo(150))
+    }
+
+    @Test
+    fun `released buffers should be reused`() {
+        repeat(10) { frameScaler.scale(i420Frame(640, 480)).release() }
+
+        assertThat(bufferPool.allocatedBuffers, equalTo(1))
+    }
+
+    @Test
+    fun `buffers still held by the renderer should not be reused`() {
+        val heldFrame = frameScaler.scale(i420Frame(640, 480))
+
+        val nextFrame = frameScaler.scale(i420Frame(640, 480))
+
+        assertThat(nextFrame.buffer, not(sameInstance(heldFrame.buffer)))
+        assertThat(bufferPool.allocatedBuffers, equalTo(2))
+    }
+}
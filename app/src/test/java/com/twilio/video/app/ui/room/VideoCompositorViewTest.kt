@@ -0,0 +1,82 @@
+package com.twilio.video.app.ui.room
+
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.ui.room.VideoCompositorView.Tile
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.Config
+import tvi.webrtc.VideoSink
+
+@RunWith(AndroidJUnit4::class)
+@Config(application = TestApp::class)
+class VideoCompositorViewTest : BaseUnitTest() {
+
+    private val compositorView = VideoCompositorView(ApplicationProvider.getApplicationContext())
+    private val videoTracks = (0 until 2).map { videoTrack() }
+
+    @Test
+    fun `only enabled video tracks should get sinks`() {
+        whenever(videoTracks[0].isEnabled).thenReturn(false)
+
+        compositorView.setTiles(videoTracks.mapIndexed { index, it -> Tile(index.toString(), it) })
+
+        assertThat(videoTracks[0].sinks.isEmpty(), `is`(true))
+        assertThat(videoTracks[1].sinks.size, equalTo(1))
+    }
+
+    @Test
+    fun `a video track should get a sink once it is enabled`() {
+        whenever(videoTracks[0].isEnabled).thenReturn(false)
+        val tiles = listOf(Tile("0", videoTracks[0]))
+        compositorView.setTiles(tiles)
+
+        whenever(videoTracks[0].isEnabled).thenReturn(true)
+        compositorView.setTiles(tiles)
+
+        assertThat(videoTracks[0].sinks.size, equalTo(1))
+    }
+
+    @Test
+    fun `overlay changes should keep the sink of a tile`() {
+        compositorView.setTiles(listOf(Tile("0", videoTracks[0], identity = "Alice")))
+        val sink = videoTracks[0].sinks.single()
+
+        compositorView.setTiles(listOf(Tile("0", videoTracks[0], identity = "Alice",
+                isMuted = true)))
+
+        assertThat(videoTracks[0].sinks.single(), sameInstance(sink))
+    }
+
+    @Test
+    fun `all sinks should be removed once the tiles are cleared`() {
+        compositorView.setTiles(videoTracks.mapIndexed { index, it -> Tile(index.toString(), it) })
+
+        compositorView.setTiles(emptyList())
+
+        videoTracks.forEach { assertThat(it.sinks.isEmpty(), `is`(true)) }
+    }
+
+    private fun videoTrack(): VideoTrack {
+        val sinks = mutableListOf<VideoSink>()
+        return mock {
+            whenever(it.isEnabled).thenReturn(true)
+            whenever(it.sinks).thenReturn(sinks)
+            doAnswer { invocation -> sinks.add(invocation.getArgument(0)) }
+                    .whenever(it).addSink(any())
+            doAnswer { invocation -> sinks.remove(invocation.getArgument<VideoSink>(0)) }
+                    .whenever(it).removeSink(any())
+        }
+    }
+}
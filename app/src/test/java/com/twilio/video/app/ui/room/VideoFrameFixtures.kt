@@ -0,0 +1,55 @@
+package com.twilio.video.app.ui.room
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.whenever
+import java.nio.ByteBuffer
+import org.mockito.Mockito.mock
+import tvi.webrtc.JavaI420Buffer
+import tvi.webrtc.VideoFrame
+
+/*
+ * A synthetic I420 frame whose planes are filled by the given functions of the pixel position.
+ */
+fun i420Frame(
+    width: Int,
+    height: Int,
+    rotation: Int = 0,
+    timestampNs: Long = 0,
+    y: (Int, Int) -> Int = { _, _ -> 128 },
+    u: (Int, Int) -> Int = { _, _ -> 128 },
+    v: (Int, Int) -> Int = { _, _ -> 128 }
+): VideoFrame {
+    val chromaWidth = (width + 1) / 2
+    val chromaHeight = (height + 1) / 2
+    val buffer = JavaI420Buffer.wrap(width, height,
+            plane(width, height, y), width,
+            plane(chromaWidth, chromaHeight, u), chromaWidth,
+            plane(chromaWidth, chromaHeight, v), chromaWidth,
+            null)
+    return VideoFrame(buffer, rotation, timestampNs)
+}
+
+/*
+ * A mocked buffer of the given size whose cropAndScale returns a buffer of the scaled size, so the
+ * geometry of scaled texture frames can be checked without a GL context.
+ */
+inline fun <reified T : VideoFrame.Buffer> videoBuffer(width: Int, height: Int): T =
+        videoBuffer(T::class.java, width, height)
+
+fun <T : VideoFrame.Buffer> videoBuffer(type: Class<T>, width: Int, height: Int): T =
+        mock(type).also { buffer ->
+            whenever(buffer.width).thenReturn(width)
+            whenever(buffer.height).thenReturn(height)
+            doAnswer { invocation ->
+                videoBuffer(type, invocation.getArgument(4), invocation.getArgument(5))
+            }.whenever(buffer).cropAndScale(any(), any(), any(), any(), any(), any())
+        }
+
+private fun plane(width: Int, height: Int, value: (Int, Int) -> Int): ByteBuffer {
+    val plane = ByteBuffer.allocateDirect(width * height)
+    for (row in 0 until height) {
+        for (column in 0 until width) plane.put(row * width + column, value(column, row).toByte())
+    }
+    return plane
+}
@@ -0,0 +1,96 @@
+package com.twilio.video.app.util
+
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class TickerTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val ticker = Ticker(CoroutineScope(testDispatcher), Clock { testDispatcher.currentTime })
+    private val ticks = mutableListOf<Long>()
+    private var intervalMillis: Long? = 1000
+
+    @After
+    fun tearDown() = testDispatcher.cleanupTestCoroutines()
+
+    @Test
+    fun `a task should tick immediately and then once per interval`() {
+        schedule()
+
+        testDispatcher.advanceTimeBy(3500)
+
+        assertThat(ticks, equalTo(listOf(0L, 1000L, 2000L, 3000L)))
+    }
+
+    @Test
+    fun `a task without an interval should not tick until it is rescheduled`() {
+        intervalMillis = null
+        val task = schedule()
+        testDispatcher.advanceTimeBy(5000)
+
+        intervalMillis = 1000
+        task.reschedule()
+        testDispatcher.advanceTimeBy(1000)
+
+        assertThat(ticks, equalTo(listOf(5000L, 6000L)))
+    }
+
+    @Test
+    fun `a shorter interval should apply relative to the last tick`() {
+        val task = schedule()
+        testDispatcher.advanceTimeBy(200)
+
+        intervalMillis = 500
+        task.reschedule()
+        testDispatcher.advanceTimeBy(800)
+
+        assertThat(ticks, equalTo(listOf(0L, 500L, 1000L)))
+    }
+
+    @Test
+    fun `a shorter interval that has already elapsed should tick right away`() {
+        intervalMillis = 5000
+        val task = schedule()
+        testDispatcher.advanceTimeBy(2000)
+
+        intervalMillis = 1000
+        task.reschedule()
+
+        assertThat(ticks, equalTo(listOf(0L, 2000L)))
+    }
+
+    @Test
+    fun `a cancelled task should not tick anymore`() {
+        val task = schedule()
+        testDispatcher.advanceTimeBy(1000)
+
+        task.cancel()
+        task.reschedule()
+        testDispatcher.advanceTimeBy(5000)
+
+        assertThat(ticks, equalTo(listOf(0L, 1000L)))
+        assertThat(task.isActive, equalTo(false))
+    }
+
+    @Test
+    fun `tasks should share the ticker independently`() {
+        val otherTicks = mutableListOf<Long>()
+        schedule()
+        ticker.schedule({ 1500L }) { otherTicks.add(testDispatcher.currentTime) }
+
+        testDispatcher.advanceTimeBy(3000)
+
+        assertThat(ticks, equalTo(listOf(0L, 1000L, 2000L, 3000L)))
+        assertThat(otherTicks, equalTo(listOf(0L, 1500L, 3000L)))
+    }
+
+    private fun schedule() =
+            ticker.schedule({ intervalMillis }) { ticks.add(testDispatcher.currentTime) }
+}